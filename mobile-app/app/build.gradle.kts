@@ -52,6 +52,10 @@ dependencies {
 
     // Gson para serialização JSON
     implementation("com.google.code.gson:gson:2.10.1")
+
+    // Room para o cache local (pets, dispositivos, área segura e localizações)
+    implementation("androidx.room:room-runtime:2.6.1")
+    annotationProcessor("androidx.room:room-compiler:2.6.1")
     implementation(libs.swiperefreshlayout)
 
     // OpenStreetMap (osmdroid)
@@ -70,6 +74,7 @@ dependencies {
     implementation("com.google.firebase:firebase-analytics")
 
     testImplementation(libs.junit)
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.11.0")
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+package com.example.petsafe;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.Toolbar;
+
+import com.example.petsafe.api.ApiClient;
+import com.google.android.material.button.MaterialButton;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import okhttp3.Cache;
+
+/**
+ * Tela de debug com as estatísticas do cache HTTP do ApiClient (aberta pelo perfil em builds debuggable)
+ */
+public class CacheDebugActivity extends AppCompatActivity {
+
+    private static final String TAG = "CacheDebugActivity";
+
+    private TextView tvCacheStats;
+
+    // Tamanho do cache e limpeza leem o disco: fora da main thread
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_cache_debug);
+
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+        toolbar.setNavigationOnClickListener(v -> onBackPressed());
+
+        tvCacheStats = findViewById(R.id.tvCacheStats);
+        MaterialButton btnRefreshStats = findViewById(R.id.btnRefreshStats);
+        MaterialButton btnClearCache = findViewById(R.id.btnClearCache);
+
+        btnRefreshStats.setOnClickListener(v -> loadStats());
+        btnClearCache.setOnClickListener(v -> clearCache());
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        loadStats();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        executor.shutdown();
+    }
+
+    private void loadStats() {
+        Cache cache = ApiClient.getHttpCache();
+        if (cache == null) {
+            tvCacheStats.setText("Cache HTTP desativado");
+            return;
+        }
+
+        executor.execute(() -> {
+            long size;
+            try {
+                size = cache.size();
+            } catch (IOException e) {
+                size = -1;
+            }
+            String stats = formatStats(cache, size);
+            mainHandler.post(() -> tvCacheStats.setText(stats));
+        });
+    }
+
+    private void clearCache() {
+        Cache cache = ApiClient.getHttpCache();
+        if (cache == null) {
+            return;
+        }
+
+        executor.execute(() -> {
+            try {
+                cache.evictAll();
+            } catch (IOException e) {
+                Log.e(TAG, "Error clearing HTTP cache", e);
+            }
+            mainHandler.post(() -> {
+                Toast.makeText(this, "Cache HTTP limpo", Toast.LENGTH_SHORT).show();
+                loadStats();
+            });
+        });
+    }
+
+    /**
+     * Contadores do OkHttp desde a abertura do app:
+     * requestCount = requisições; networkCount = idas à rede; hitCount = respostas do cache (sem rede ou após 304)
+     */
+    private static String formatStats(Cache cache, long size) {
+        int requests = cache.requestCount();
+        int network = cache.networkCount();
+        int hits = cache.hitCount();
+        int freshHits = requests - network;
+        int conditionalHits = hits - freshHits;
+        int misses = requests - hits;
+
+        return String.format(Locale.US,
+                "Requisições:        %d%n"
+                        + "Hits (total):       %d (%.0f%%)%n"
+                        + "  sem rede:         %d%n"
+                        + "  revalidados (304): %d%n"
+                        + "Misses (download):  %d%n"
+                        + "Idas à rede:        %d%n"
+                        + "Tamanho:            %s / %s",
+                requests, hits, requests > 0 ? hits * 100.0 / requests : 0.0,
+                freshHits, conditionalHits, misses, network,
+                size >= 0 ? formatBytes(size) : "?", formatBytes(cache.maxSize()));
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.US, "%.1f KB", bytes / 1024.0);
+        }
+        return String.format(Locale.US, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -22,6 +22,7 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import com.example.petsafe.adapters.DevicesAdapter;
 import com.example.petsafe.api.ApiClient;
 import com.example.petsafe.api.ApiService;
+import com.example.petsafe.data.PetSafeRepository;
 import com.example.petsafe.models.ApiResponse;
 import com.example.petsafe.models.Device;
 import com.example.petsafe.models.DeviceRequest;
@@ -51,6 +52,7 @@ public class DevicesActivity extends AppCompatActivity implements DevicesAdapter
     // Utils
     private SessionManager sessionManager;
     private ApiService apiService;
+    private PetSafeRepository repository;
     private DevicesAdapter devicesAdapter;
 
     @Override
@@ -60,6 +62,7 @@ public class DevicesActivity extends AppCompatActivity implements DevicesAdapter
 
         sessionManager = new SessionManager(this);
         apiService = ApiClient.getApiService();
+        repository = PetSafeRepository.getInstance(this);
 
         if (!sessionManager.isLoggedIn()) {
             navigateToWelcome();
@@ -125,10 +128,7 @@ public class DevicesActivity extends AppCompatActivity implements DevicesAdapter
     private void setupListeners() {
         fabAddDevice.setOnClickListener(v -> showAddDeviceDialog());
 
-        swipeRefresh.setOnRefreshListener(() -> {
-            loadDevices();
-            swipeRefresh.setRefreshing(false);
-        });
+        swipeRefresh.setOnRefreshListener(this::loadDevices);
     }
 
     private void setupBottomNavigation() {
@@ -158,34 +158,32 @@ public class DevicesActivity extends AppCompatActivity implements DevicesAdapter
     }
 
     private void loadDevices() {
-        String token = "Bearer " + sessionManager.getAccessToken();
-
-        apiService.listDevices(token).enqueue(new Callback<ApiResponse<List<Device>>>() {
+        // Dispositivos salvos aparecem na hora; a lista é atualizada quando a API responder
+        repository.loadDevices(new PetSafeRepository.DataCallback<List<Device>>() {
             @Override
-            public void onResponse(Call<ApiResponse<List<Device>>> call, Response<ApiResponse<List<Device>>> response) {
-                if (response.isSuccessful() && response.body() != null && response.body().getData() != null) {
-                    List<Device> devices = response.body().getData();
-                    devicesAdapter.setDevices(devices);
-
-                    if (devices.isEmpty()) {
-                        llEmptyState.setVisibility(View.VISIBLE);
-                        rvDevices.setVisibility(View.GONE);
-                    } else {
-                        llEmptyState.setVisibility(View.GONE);
-                        rvDevices.setVisibility(View.VISIBLE);
-                    }
+            public void onData(List<Device> devices, boolean fromCache) {
+                devicesAdapter.setDevices(devices);
 
-                    Log.d(TAG, "Devices loaded: " + devices.size());
+                if (devices.isEmpty()) {
+                    llEmptyState.setVisibility(View.VISIBLE);
+                    rvDevices.setVisibility(View.GONE);
                 } else {
-                    Log.e(TAG, "Failed to load devices: " + response.code());
-                    Toast.makeText(DevicesActivity.this, "Erro ao carregar dispositivos", Toast.LENGTH_SHORT).show();
+                    llEmptyState.setVisibility(View.GONE);
+                    rvDevices.setVisibility(View.VISIBLE);
+                }
+
+                if (!fromCache) {
+                    swipeRefresh.setRefreshing(false);
                 }
+                Log.d(TAG, "Devices loaded: " + devices.size() + (fromCache ? " (cache)" : ""));
             }
 
             @Override
-            public void onFailure(Call<ApiResponse<List<Device>>> call, Throwable t) {
-                Log.e(TAG, "Error loading devices", t);
-                Toast.makeText(DevicesActivity.this, "Erro de conexão ao carregar dispositivos", Toast.LENGTH_SHORT).show();
+            public void onError(String message, boolean hasCachedData) {
+                swipeRefresh.setRefreshing(false);
+                Toast.makeText(DevicesActivity.this, hasCachedData
+                        ? "Sem conexão. Exibindo os dispositivos salvos."
+                        : message, Toast.LENGTH_SHORT).show();
             }
         });
     }
@@ -311,6 +309,7 @@ public class DevicesActivity extends AppCompatActivity implements DevicesAdapter
                 if (response.isSuccessful() && response.body() != null && response.body().getData() != null) {
                     Device newDevice = response.body().getData();
                     devicesAdapter.addDevice(newDevice);
+                    repository.cacheDevice(newDevice);
 
                     llEmptyState.setVisibility(View.GONE);
                     rvDevices.setVisibility(View.VISIBLE);
@@ -340,6 +339,7 @@ public class DevicesActivity extends AppCompatActivity implements DevicesAdapter
                 if (response.isSuccessful() && response.body() != null && response.body().getData() != null) {
                     Device updatedDevice = response.body().getData();
                     devicesAdapter.updateDevice(updatedDevice);
+                    repository.cacheDevice(updatedDevice);
                     Toast.makeText(DevicesActivity.this, "Dispositivo atualizado com sucesso!", Toast.LENGTH_SHORT).show();
                     Log.d(TAG, "Device updated successfully");
                 } else {
@@ -364,6 +364,7 @@ public class DevicesActivity extends AppCompatActivity implements DevicesAdapter
             public void onResponse(Call<ApiResponse<Boolean>> call, Response<ApiResponse<Boolean>> response) {
                 if (response.isSuccessful()) {
                     devicesAdapter.removeDevice(device);
+                    repository.removeCachedDevice(device.getId());
 
                     if (devicesAdapter.getItemCount() == 0) {
                         llEmptyState.setVisibility(View.VISIBLE);
@@ -20,6 +20,7 @@ import androidx.core.content.ContextCompat;
 
 import com.example.petsafe.api.ApiClient;
 import com.example.petsafe.api.ApiService;
+import com.example.petsafe.data.PetSafeRepository;
 import com.example.petsafe.models.ApiResponse;
 import com.example.petsafe.models.Geofence;
 import com.example.petsafe.models.GeofenceRequest;
@@ -36,6 +37,8 @@ import org.osmdroid.views.MapView;
 import org.osmdroid.views.overlay.Marker;
 import org.osmdroid.views.overlay.Polygon;
 
+import java.util.Objects;
+
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
@@ -62,6 +65,7 @@ public class GeofenceActivity extends AppCompatActivity {
     // Data
     private SessionManager sessionManager;
     private ApiService apiService;
+    private PetSafeRepository repository;
     private Geofence existingGeofence;
     private GeoPoint currentLocation;
     private int currentRadius = 100;
@@ -80,6 +84,7 @@ public class GeofenceActivity extends AppCompatActivity {
         // Initialize
         sessionManager = new SessionManager(this);
         apiService = ApiClient.getApiService();
+        repository = PetSafeRepository.getInstance(this);
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
 
         initializeViews();
@@ -298,23 +303,33 @@ public class GeofenceActivity extends AppCompatActivity {
     private void loadGeofence() {
         showLoading();
 
-        String token = "Bearer " + sessionManager.getAccessToken();
-        apiService.getGeofence(token).enqueue(new Callback<ApiResponse<Geofence>>() {
+        // A área salva aparece na hora; a resposta da API só redesenha se a área mudou
+        repository.loadGeofence(new PetSafeRepository.DataCallback<Geofence>() {
             @Override
-            public void onResponse(@NonNull Call<ApiResponse<Geofence>> call,
-                                   @NonNull Response<ApiResponse<Geofence>> response) {
+            public void onData(Geofence geofence, boolean fromCache) {
                 hideLoading();
 
-                if (response.isSuccessful() && response.body() != null && response.body().getData() != null) {
-                    existingGeofence = response.body().getData();
+                if (geofence == null) {
+                    // No geofence exists, that's okay
+                    if (existingGeofence != null) {
+                        existingGeofence = null;
+                        btnSaveGeofence.setText("Salvar Área");
+                    }
+                    return;
+                }
+
+                boolean unchanged = existingGeofence != null
+                        && existingGeofence.getId().equals(geofence.getId())
+                        && Objects.equals(existingGeofence.getUpdatedAt(), geofence.getUpdatedAt());
+                existingGeofence = geofence;
+                if (!unchanged) {
                     displayExistingGeofence();
                 }
             }
 
             @Override
-            public void onFailure(@NonNull Call<ApiResponse<Geofence>> call, @NonNull Throwable t) {
+            public void onError(String message, boolean hasCachedData) {
                 hideLoading();
-                // No geofence exists, that's okay
             }
         });
     }
@@ -421,6 +436,7 @@ public class GeofenceActivity extends AppCompatActivity {
                         Toast.makeText(GeofenceActivity.this,
                                 "Área segura atualizada com sucesso!", Toast.LENGTH_SHORT).show();
                         existingGeofence = response.body().getData();
+                        repository.cacheGeofence(existingGeofence);
                         displayExistingGeofence();
                     } else {
                         String errorMsg = "Erro ao atualizar área segura";
@@ -450,6 +466,7 @@ public class GeofenceActivity extends AppCompatActivity {
                         Toast.makeText(GeofenceActivity.this,
                                 "Área segura criada com sucesso!", Toast.LENGTH_SHORT).show();
                         existingGeofence = response.body().getData();
+                        repository.cacheGeofence(existingGeofence);
                         displayExistingGeofence();
                     } else {
                         String errorMsg = "Erro ao criar área segura";
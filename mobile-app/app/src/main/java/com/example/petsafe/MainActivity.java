@@ -20,9 +20,9 @@ import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 
-import com.example.petsafe.api.ApiClient;
-import com.example.petsafe.api.ApiService;
-import com.example.petsafe.models.ApiResponse;
+import com.example.petsafe.data.PetSafeRepository;
+import com.example.petsafe.map.DeviceLiveUpdater;
+import com.example.petsafe.map.DeviceMarkerLayer;
 import com.example.petsafe.models.Device;
 import com.example.petsafe.models.Geofence;
 import com.example.petsafe.models.Location;
@@ -35,7 +35,6 @@ import org.osmdroid.config.Configuration;
 import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
-import org.osmdroid.views.overlay.Marker;
 import org.osmdroid.views.overlay.Polygon;
 import org.osmdroid.views.overlay.Polyline;
 
@@ -47,10 +46,6 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-
 public class MainActivity extends AppCompatActivity {
 
     private static final String TAG = "MainActivity";
@@ -63,15 +58,18 @@ public class MainActivity extends AppCompatActivity {
 
     // Utils
     private SessionManager sessionManager;
-    private ApiService apiService;
+    private PetSafeRepository repository;
 
     // Data
     private List<Device> devicesList = new ArrayList<>();
-    private List<Pet> petsList = new ArrayList<>();
+    private Map<Long, Pet> petsById = new HashMap<>();
     private Geofence geofence;
     private Polygon geofenceCircle;
-    private Map<Long, Marker> deviceMarkers = new HashMap<>();
+    private DeviceMarkerLayer deviceMarkers;
+    private DeviceLiveUpdater liveUpdater;
     private Polyline currentPolyline;
+    private Long selectedDeviceId;
+    private boolean mapCentered = false;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -85,7 +83,7 @@ public class MainActivity extends AppCompatActivity {
 
         // Initialize SessionManager and API
         sessionManager = new SessionManager(this);
-        apiService = ApiClient.getApiService();
+        repository = PetSafeRepository.getInstance(this);
 
         // Check if user is logged in
         if (!sessionManager.isLoggedIn()) {
@@ -99,8 +97,9 @@ public class MainActivity extends AppCompatActivity {
         setupMap();
         setupListeners();
         setupBottomNavigation();
+        setupLiveUpdates();
 
-        // Load data
+        // Load data (cached data is drawn right away, then refreshed from the API)
         loadPets();
         loadDevices();
         loadGeofence();
@@ -157,6 +156,13 @@ public class MainActivity extends AppCompatActivity {
         GeoPoint startPoint = new GeoPoint(-23.550520, -46.633308);
         mapView.getController().setCenter(startPoint);
 
+        // Devices are drawn by a single overlay that groups nearby ones into count bubbles
+        deviceMarkers = new DeviceMarkerLayer(mapView,
+                ContextCompat.getDrawable(this, R.drawable.ic_map_marker),
+                ContextCompat.getColor(this, R.color.primary_dark),
+                ContextCompat.getColor(this, R.color.white),
+                device -> onDeviceMarkerClicked(device, findPetName(device)));
+
         // Disable parent scroll when touching map
         mapView.setOnTouchListener((v, event) -> {
             switch (event.getAction()) {
@@ -182,125 +188,101 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    private void setupLiveUpdates() {
+        // Positions are polled only while the map is visible; only moved markers are redrawn
+        liveUpdater = new DeviceLiveUpdater(repository, devices -> {
+            devicesList = devices;
+            displayDevicesOnMap();
+        });
+        getLifecycle().addObserver(liveUpdater);
+    }
+
     private void loadPets() {
-        String token = sessionManager.getAuthorizationHeader();
-        apiService.listPets(token).enqueue(new Callback<ApiResponse<List<Pet>>>() {
+        repository.loadPets(new PetSafeRepository.DataCallback<List<Pet>>() {
             @Override
-            public void onResponse(Call<ApiResponse<List<Pet>>> call, Response<ApiResponse<List<Pet>>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    petsList = response.body().getData();
+            public void onData(List<Pet> pets, boolean fromCache) {
+                Map<Long, Pet> index = new HashMap<>();
+                for (Pet pet : pets) {
+                    if (pet.getId() != null) {
+                        index.put(pet.getId(), pet);
+                    }
                 }
+                petsById = index;
             }
 
             @Override
-            public void onFailure(Call<ApiResponse<List<Pet>>> call, Throwable t) {
+            public void onError(String message, boolean hasCachedData) {
                 // Handle error silently
             }
         });
     }
 
     private void loadDevices() {
-        String token = sessionManager.getAuthorizationHeader();
-        apiService.listDevices(token).enqueue(new Callback<ApiResponse<List<Device>>>() {
+        // Markers are drawn from the cache first and redrawn when the API answers
+        repository.loadDevices(new PetSafeRepository.DataCallback<List<Device>>() {
             @Override
-            public void onResponse(Call<ApiResponse<List<Device>>> call, Response<ApiResponse<List<Device>>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    devicesList = response.body().getData();
-                    displayDevicesOnMap();
-                } else {
-                    Toast.makeText(MainActivity.this, "Erro ao carregar dispositivos", Toast.LENGTH_SHORT).show();
-                }
+            public void onData(List<Device> devices, boolean fromCache) {
+                devicesList = devices;
+                displayDevicesOnMap();
+                liveUpdater.setDevices(devices);
             }
 
             @Override
-            public void onFailure(Call<ApiResponse<List<Device>>> call, Throwable t) {
-                Toast.makeText(MainActivity.this, "Erro de conexão", Toast.LENGTH_SHORT).show();
+            public void onError(String message, boolean hasCachedData) {
+                Toast.makeText(MainActivity.this, hasCachedData
+                        ? "Sem conexão. Exibindo as últimas posições salvas."
+                        : message, Toast.LENGTH_SHORT).show();
             }
         });
     }
 
     private void loadGeofence() {
-        String token = sessionManager.getAuthorizationHeader();
-        apiService.getGeofence(token).enqueue(new Callback<ApiResponse<Geofence>>() {
+        repository.loadGeofence(new PetSafeRepository.DataCallback<Geofence>() {
             @Override
-            public void onResponse(Call<ApiResponse<Geofence>> call, Response<ApiResponse<Geofence>> response) {
-                if (response.isSuccessful() && response.body() != null && response.body().getData() != null) {
-                    geofence = response.body().getData();
-                    displayGeofenceOnMap();
-                }
+            public void onData(Geofence data, boolean fromCache) {
+                geofence = data;
+                displayGeofenceOnMap();
             }
 
             @Override
-            public void onFailure(Call<ApiResponse<Geofence>> call, Throwable t) {
+            public void onError(String message, boolean hasCachedData) {
                 // Handle error silently
             }
         });
     }
 
     private void displayDevicesOnMap() {
-        // Clear existing markers
-        for (Marker marker : deviceMarkers.values()) {
-            mapView.getOverlays().remove(marker);
-        }
-        deviceMarkers.clear();
-
-        if (devicesList.isEmpty()) {
-            return;
-        }
-
-        // Add marker for each device
-        for (Device device : devicesList) {
-            if (device.getLastLatitude() != null && device.getLastLongitude() != null) {
-                GeoPoint deviceLocation = new GeoPoint(device.getLastLatitude(), device.getLastLongitude());
-
-                Marker marker = new Marker(mapView);
-                marker.setPosition(deviceLocation);
-                marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
-                marker.setIcon(ContextCompat.getDrawable(this, R.drawable.ic_map_marker));
-                marker.setTitle(device.getSerialNumber());
-
-                // Find pet name for this device
-                String petName = "Sem pet associado";
-                if (device.getPetId() != null) {
-                    for (Pet pet : petsList) {
-                        if (pet.getId() != null && pet.getId().equals(device.getPetId())) {
-                            petName = pet.getName();
-                            break;
-                        }
-                    }
-                }
+        // Clusters are recomputed only when a device moved, appeared or disappeared
+        deviceMarkers.setDevices(devicesList);
 
-                final String finalPetName = petName;
-                marker.setOnMarkerClickListener((clickedMarker, mapView) -> {
-                    onDeviceMarkerClicked(device, finalPetName);
-                    return true;
-                });
-
-                mapView.getOverlays().add(marker);
-                deviceMarkers.put(device.getId(), marker);
-            }
-        }
-
-        // Center map on first device
-        if (!devicesList.isEmpty() && devicesList.get(0).getLastLatitude() != null) {
+        // Center map on first device (only once: a refresh must not move the map the user is looking at)
+        if (!mapCentered && !devicesList.isEmpty() && devicesList.get(0).getLastLatitude() != null
+                && devicesList.get(0).getLastLongitude() != null) {
+            mapCentered = true;
             GeoPoint firstDevice = new GeoPoint(
                     devicesList.get(0).getLastLatitude(),
                     devicesList.get(0).getLastLongitude()
             );
             mapView.getController().setCenter(firstDevice);
         }
+    }
 
-        mapView.invalidate();
+    private String findPetName(Device device) {
+        // Resolved on click: pets may load after the markers
+        Pet pet = device.getPetId() != null ? petsById.get(device.getPetId()) : null;
+        return pet != null ? pet.getName() : "Sem pet associado";
     }
 
     private void displayGeofenceOnMap() {
-        if (geofence == null) {
-            return;
-        }
-
         // Remove existing geofence circle
         if (geofenceCircle != null) {
             mapView.getOverlays().remove(geofenceCircle);
+            geofenceCircle = null;
+        }
+
+        if (geofence == null) {
+            mapView.invalidate();
+            return;
         }
 
         GeoPoint center = new GeoPoint(geofence.getLatitude(), geofence.getLongitude());
@@ -312,7 +294,8 @@ public class MainActivity extends AppCompatActivity {
         geofenceCircle.setStrokeColor(0xFF4CAF50); // Solid green border
         geofenceCircle.setStrokeWidth(3f);
 
-        mapView.getOverlays().add(geofenceCircle);
+        // Below the device overlay so the markers stay on top
+        mapView.getOverlays().add(0, geofenceCircle);
         mapView.invalidate();
     }
 
@@ -331,18 +314,18 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void loadDeviceLocationHistory(Long deviceId) {
-        String token = sessionManager.getAuthorizationHeader();
-        apiService.getDeviceLocations(token, deviceId, 10).enqueue(new Callback<ApiResponse<List<Location>>>() {
+        selectedDeviceId = deviceId;
+        repository.loadRecentLocations(deviceId, 10, new PetSafeRepository.DataCallback<List<Location>>() {
             @Override
-            public void onResponse(Call<ApiResponse<List<Location>>> call, Response<ApiResponse<List<Location>>> response) {
-                if (response.isSuccessful() && response.body() != null && response.body().getData() != null) {
-                    List<Location> locations = response.body().getData();
+            public void onData(List<Location> locations, boolean fromCache) {
+                // Ignore answers for a device that is no longer selected
+                if (deviceId.equals(selectedDeviceId)) {
                     drawLocationHistory(locations);
                 }
             }
 
             @Override
-            public void onFailure(Call<ApiResponse<List<Location>>> call, Throwable t) {
+            public void onError(String message, boolean hasCachedData) {
                 // Handle error silently
             }
         });
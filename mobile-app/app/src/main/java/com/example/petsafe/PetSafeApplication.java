@@ -0,0 +1,16 @@
+package com.example.petsafe;
+
+import android.app.Application;
+
+import com.example.petsafe.api.ApiClient;
+
+public class PetSafeApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // O cache HTTP precisa do Context e deve existir antes da primeira chamada à API
+        ApiClient.init(this);
+    }
+}
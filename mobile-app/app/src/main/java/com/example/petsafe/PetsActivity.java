@@ -25,6 +25,7 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import com.example.petsafe.adapters.PetsAdapter;
 import com.example.petsafe.api.ApiClient;
 import com.example.petsafe.api.ApiService;
+import com.example.petsafe.data.PetSafeRepository;
 import com.example.petsafe.models.ApiResponse;
 import com.example.petsafe.models.Device;
 import com.example.petsafe.models.Pet;
@@ -61,6 +62,7 @@ public class PetsActivity extends AppCompatActivity implements PetsAdapter.OnPet
     // Utils
     private SessionManager sessionManager;
     private ApiService apiService;
+    private PetSafeRepository repository;
     private PetsAdapter petsAdapter;
 
     // Data
@@ -74,6 +76,7 @@ public class PetsActivity extends AppCompatActivity implements PetsAdapter.OnPet
 
         sessionManager = new SessionManager(this);
         apiService = ApiClient.getApiService();
+        repository = PetSafeRepository.getInstance(this);
 
         if (!sessionManager.isLoggedIn()) {
             navigateToWelcome();
@@ -140,10 +143,7 @@ public class PetsActivity extends AppCompatActivity implements PetsAdapter.OnPet
     private void setupListeners() {
         fabAddPet.setOnClickListener(v -> showAddPetDialog());
 
-        swipeRefresh.setOnRefreshListener(() -> {
-            loadPets();
-            swipeRefresh.setRefreshing(false);
-        });
+        swipeRefresh.setOnRefreshListener(this::loadPets);
     }
 
     private void setupBottomNavigation() {
@@ -173,23 +173,17 @@ public class PetsActivity extends AppCompatActivity implements PetsAdapter.OnPet
     }
 
     private void loadDevices() {
-        String token = "Bearer " + sessionManager.getAccessToken();
-
-        apiService.listDevices(token).enqueue(new Callback<ApiResponse<List<Device>>>() {
+        repository.loadDevices(new PetSafeRepository.DataCallback<List<Device>>() {
             @Override
-            public void onResponse(Call<ApiResponse<List<Device>>> call, Response<ApiResponse<List<Device>>> response) {
-                if (response.isSuccessful() && response.body() != null && response.body().getData() != null) {
-                    availableDevices = response.body().getData();
-                    updateDeviceMap();
-                    Log.d(TAG, "Devices loaded: " + availableDevices.size());
-                } else {
-                    Log.e(TAG, "Failed to load devices: " + response.code());
-                }
+            public void onData(List<Device> devices, boolean fromCache) {
+                availableDevices = devices;
+                updateDeviceMap();
+                Log.d(TAG, "Devices loaded: " + availableDevices.size() + (fromCache ? " (cache)" : ""));
             }
 
             @Override
-            public void onFailure(Call<ApiResponse<List<Device>>> call, Throwable t) {
-                Log.e(TAG, "Error loading devices", t);
+            public void onError(String message, boolean hasCachedData) {
+                Log.e(TAG, "Failed to load devices: " + message);
             }
         });
     }
@@ -212,34 +206,32 @@ public class PetsActivity extends AppCompatActivity implements PetsAdapter.OnPet
     }
 
     private void loadPets() {
-        String token = "Bearer " + sessionManager.getAccessToken();
-
-        apiService.listPets(token).enqueue(new Callback<ApiResponse<List<Pet>>>() {
+        // Pets salvos aparecem na hora; a lista é atualizada quando a API responder
+        repository.loadPets(new PetSafeRepository.DataCallback<List<Pet>>() {
             @Override
-            public void onResponse(Call<ApiResponse<List<Pet>>> call, Response<ApiResponse<List<Pet>>> response) {
-                if (response.isSuccessful() && response.body() != null && response.body().getData() != null) {
-                    List<Pet> pets = response.body().getData();
-                    petsAdapter.setPets(pets);
+            public void onData(List<Pet> pets, boolean fromCache) {
+                petsAdapter.setPets(pets);
 
-                    if (pets.isEmpty()) {
-                        llEmptyState.setVisibility(View.VISIBLE);
-                        rvPets.setVisibility(View.GONE);
-                    } else {
-                        llEmptyState.setVisibility(View.GONE);
-                        rvPets.setVisibility(View.VISIBLE);
-                    }
-
-                    Log.d(TAG, "Pets loaded: " + pets.size());
+                if (pets.isEmpty()) {
+                    llEmptyState.setVisibility(View.VISIBLE);
+                    rvPets.setVisibility(View.GONE);
                 } else {
-                    Log.e(TAG, "Failed to load pets: " + response.code());
-                    Toast.makeText(PetsActivity.this, "Erro ao carregar pets", Toast.LENGTH_SHORT).show();
+                    llEmptyState.setVisibility(View.GONE);
+                    rvPets.setVisibility(View.VISIBLE);
+                }
+
+                if (!fromCache) {
+                    swipeRefresh.setRefreshing(false);
                 }
+                Log.d(TAG, "Pets loaded: " + pets.size() + (fromCache ? " (cache)" : ""));
             }
 
             @Override
-            public void onFailure(Call<ApiResponse<List<Pet>>> call, Throwable t) {
-                Log.e(TAG, "Error loading pets", t);
-                Toast.makeText(PetsActivity.this, "Erro de conexão ao carregar pets", Toast.LENGTH_SHORT).show();
+            public void onError(String message, boolean hasCachedData) {
+                swipeRefresh.setRefreshing(false);
+                Toast.makeText(PetsActivity.this, hasCachedData
+                        ? "Sem conexão. Exibindo os pets salvos."
+                        : message, Toast.LENGTH_SHORT).show();
             }
         });
     }
@@ -463,6 +455,7 @@ public class PetsActivity extends AppCompatActivity implements PetsAdapter.OnPet
                 if (response.isSuccessful() && response.body() != null && response.body().getData() != null) {
                     Pet newPet = response.body().getData();
                     petsAdapter.addPet(newPet);
+                    repository.cachePet(newPet);
 
                     llEmptyState.setVisibility(View.GONE);
                     rvPets.setVisibility(View.VISIBLE);
@@ -492,6 +485,7 @@ public class PetsActivity extends AppCompatActivity implements PetsAdapter.OnPet
                 if (response.isSuccessful() && response.body() != null && response.body().getData() != null) {
                     Pet updatedPet = response.body().getData();
                     petsAdapter.updatePet(updatedPet);
+                    repository.cachePet(updatedPet);
                     Toast.makeText(PetsActivity.this, "Pet atualizado com sucesso!", Toast.LENGTH_SHORT).show();
                     Log.d(TAG, "Pet updated successfully");
                 } else {
@@ -516,6 +510,7 @@ public class PetsActivity extends AppCompatActivity implements PetsAdapter.OnPet
             public void onResponse(Call<ApiResponse<Boolean>> call, Response<ApiResponse<Boolean>> response) {
                 if (response.isSuccessful()) {
                     petsAdapter.removePet(pet);
+                    repository.removeCachedPet(pet.getId());
 
                     if (petsAdapter.getItemCount() == 0) {
                         llEmptyState.setVisibility(View.VISIBLE);
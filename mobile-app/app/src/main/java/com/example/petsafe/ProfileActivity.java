@@ -2,6 +2,7 @@ package com.example.petsafe;
 
 import android.app.AlertDialog;
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
 import android.text.InputType;
 import android.util.Log;
@@ -20,6 +21,7 @@ import androidx.core.view.WindowInsetsCompat;
 
 import com.example.petsafe.api.ApiClient;
 import com.example.petsafe.api.ApiService;
+import com.example.petsafe.data.PetSafeRepository;
 import com.example.petsafe.models.ChangePasswordRequest;
 import com.example.petsafe.models.UpdateProfileRequest;
 import com.example.petsafe.models.User;
@@ -130,6 +132,14 @@ public class ProfileActivity extends AppCompatActivity {
         btnEditProfile.setOnClickListener(v -> showEditProfileDialog());
         btnChangePassword.setOnClickListener(v -> showChangePasswordDialog());
         btnLogout.setOnClickListener(v -> showLogoutConfirmation());
+
+        // Debug builds: long press on the avatar opens the HTTP cache statistics
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            tvUserInitial.setOnLongClickListener(v -> {
+                startActivity(new Intent(ProfileActivity.this, CacheDebugActivity.class));
+                return true;
+            });
+        }
     }
 
     private void setupBottomNavigation() {
@@ -381,6 +391,8 @@ public class ProfileActivity extends AppCompatActivity {
 
     private void handleLogout() {
         sessionManager.logout();
+        // Os dados salvos para uso offline pertencem ao usuário que saiu
+        PetSafeRepository.getInstance(this).clear();
         navigateToWelcome();
     }
 
@@ -1,12 +1,15 @@
 package com.example.petsafe.api;
 
+import android.content.Context;
 import android.util.Log;
 
+import okhttp3.Cache;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
+import java.io.File;
 import java.util.concurrent.TimeUnit;
 
 public class ApiClient {
@@ -30,8 +33,30 @@ public class ApiClient {
     // URL configurada para a VM da faculdade
     private static final String BASE_URL = PRODUCTION_URL;
 
+    // Cache HTTP em disco (respostas dos GETs, revalidadas por ETag)
+    private static final long HTTP_CACHE_SIZE = 10L * 1024 * 1024; // 10 MB
+
     private static Retrofit retrofit = null;
     private static ApiService apiService = null;
+    private static Cache httpCache = null;
+
+    /**
+     * Cria o cache HTTP no diretório de cache do app
+     * Chamado uma vez em PetSafeApplication, antes de qualquer requisição
+     */
+    public static synchronized void init(Context context) {
+        if (httpCache == null) {
+            File cacheDir = new File(context.getApplicationContext().getCacheDir(), "http");
+            httpCache = new Cache(cacheDir, HTTP_CACHE_SIZE);
+        }
+    }
+
+    /**
+     * Retorna o cache HTTP (estatísticas na tela de debug), ou null se init não foi chamado
+     */
+    public static Cache getHttpCache() {
+        return httpCache;
+    }
 
     /**
      * Retorna uma instância singleton do Retrofit configurada
@@ -47,13 +72,20 @@ public class ApiClient {
             loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
 
             // Configurar OkHttpClient com timeout e interceptor
-            OkHttpClient okHttpClient = new OkHttpClient.Builder()
+            OkHttpClient.Builder builder = new OkHttpClient.Builder()
                     .connectTimeout(30, TimeUnit.SECONDS)
                     .readTimeout(30, TimeUnit.SECONDS)
                     .writeTimeout(30, TimeUnit.SECONDS)
                     .addInterceptor(loggingInterceptor)
-                    .retryOnConnectionFailure(true)
-                    .build();
+                    .retryOnConnectionFailure(true);
+
+            // Cache HTTP com validade por endpoint (sem init, por exemplo em testes, segue sem cache)
+            if (httpCache != null) {
+                builder.cache(httpCache)
+                        .addNetworkInterceptor(new CachePolicyInterceptor(httpCache));
+            }
+
+            OkHttpClient okHttpClient = builder.build();
 
             // Criar instância do Retrofit
             retrofit = new Retrofit.Builder()
@@ -0,0 +1,106 @@
+package com.example.petsafe.api;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import okhttp3.Cache;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Interceptor de rede que define por quanto tempo cada GET do ApiService pode ser servido do cache HTTP
+ * A API só envia ETag e "no-cache"; aqui cada endpoint ganha seu max-age. Depois disso o OkHttp revalida com
+ * If-None-Match e, se nada mudou, a API responde 304 sem corpo e o JSON salvo é reaproveitado.
+ */
+public class CachePolicyInterceptor implements Interceptor {
+
+    private static final String TAG = "CachePolicyInterceptor";
+
+    private final Cache cache;
+
+    public CachePolicyInterceptor(Cache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+
+        if (!"GET".equals(request.method())) {
+            if (response.isSuccessful()) {
+                invalidate(request);
+            }
+            return response;
+        }
+
+        int maxAgeSeconds = maxAgeFor(request.url().encodedPathSegments());
+        if (maxAgeSeconds < 0 || !(response.isSuccessful() || response.code() == 304)) {
+            return response;
+        }
+
+        // O 304 também passa por aqui: a validade do JSON salvo é renovada junto
+        return response.newBuilder()
+                .header("Cache-Control", "private, max-age=" + maxAgeSeconds)
+                .removeHeader("Pragma")
+                .build();
+    }
+
+    /**
+     * Política por endpoint (caminho depois de /api/v1/)
+     *
+     * @return max-age em segundos (0 = sempre revalidar), ou -1 para manter o que a API enviou
+     */
+    static int maxAgeFor(List<String> segments) {
+        int start = segments.indexOf("v1") + 1;
+        if (start <= 0 || start >= segments.size()) {
+            return -1;
+        }
+        String resource = segments.get(start);
+        int depth = segments.size() - start;
+
+        switch (resource) {
+            case "pets":
+            case "geofence":
+            case "me":
+                // Mudam pouco e as alterações feitas no app invalidam o cache (ver invalidate)
+                return 30;
+            case "devices":
+                // Trazem a última posição: a lista é reaproveitada só entre telas abertas em sequência;
+                // status e histórico sempre revalidam (304 se nada mudou)
+                return depth == 1 ? 5 : 0;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Um POST/PATCH/DELETE bem-sucedido em /pets/5 invalida /pets, /pets/5 e o restante do recurso
+     * (o OkHttp sozinho só invalida a URL exata da requisição)
+     */
+    private void invalidate(Request request) {
+        List<String> segments = request.url().encodedPathSegments();
+        int start = segments.indexOf("v1") + 1;
+        if (start <= 0 || start >= segments.size()) {
+            return;
+        }
+        String prefix = "/api/v1/" + segments.get(start);
+
+        try {
+            Iterator<String> urls = cache.urls();
+            while (urls.hasNext()) {
+                String path = HttpUrl.get(urls.next()).encodedPath();
+                if (path.equals(prefix) || path.startsWith(prefix + "/")) {
+                    urls.remove();
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            Log.w(TAG, "Erro ao invalidar cache de " + prefix, e);
+        }
+    }
+}
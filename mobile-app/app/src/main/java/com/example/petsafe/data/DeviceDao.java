@@ -0,0 +1,39 @@
+package com.example.petsafe.data;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.petsafe.models.Device;
+
+import java.util.List;
+
+@Dao
+public interface DeviceDao {
+
+    @Query("SELECT * FROM devices ORDER BY id")
+    List<Device> getAll();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insert(Device device);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<Device> devices);
+
+    @Query("DELETE FROM devices WHERE id = :deviceId")
+    void deleteById(long deviceId);
+
+    @Query("DELETE FROM devices")
+    void deleteAll();
+
+    /**
+     * Substitui a lista inteira (dispositivos removidos em outro aparelho também somem do cache)
+     */
+    @Transaction
+    default void replaceAll(List<Device> devices) {
+        deleteAll();
+        insertAll(devices);
+    }
+}
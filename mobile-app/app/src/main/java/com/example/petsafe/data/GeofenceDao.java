@@ -0,0 +1,31 @@
+package com.example.petsafe.data;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.petsafe.models.Geofence;
+
+/**
+ * O usuário tem no máximo uma área segura: a tabela guarda só a última recebida
+ */
+@Dao
+public interface GeofenceDao {
+
+    @Query("SELECT * FROM geofences LIMIT 1")
+    Geofence get();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insert(Geofence geofence);
+
+    @Query("DELETE FROM geofences")
+    void deleteAll();
+
+    @Transaction
+    default void replace(Geofence geofence) {
+        deleteAll();
+        insert(geofence);
+    }
+}
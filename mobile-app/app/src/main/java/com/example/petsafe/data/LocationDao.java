@@ -0,0 +1,39 @@
+package com.example.petsafe.data;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.petsafe.models.Location;
+
+import java.util.List;
+
+@Dao
+public interface LocationDao {
+
+    /**
+     * Localizações mais recentes do dispositivo, na mesma ordem da API (mais nova primeiro)
+     */
+    @Query("SELECT * FROM locations WHERE deviceId = :deviceId ORDER BY updatedAt DESC LIMIT :limit")
+    List<Location> getRecent(long deviceId, int limit);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<Location> locations);
+
+    @Query("DELETE FROM locations WHERE deviceId = :deviceId")
+    void deleteByDevice(long deviceId);
+
+    @Query("DELETE FROM locations")
+    void deleteAll();
+
+    /**
+     * Guarda apenas o último histórico recebido de cada dispositivo
+     */
+    @Transaction
+    default void replaceForDevice(long deviceId, List<Location> locations) {
+        deleteByDevice(deviceId);
+        insertAll(locations);
+    }
+}
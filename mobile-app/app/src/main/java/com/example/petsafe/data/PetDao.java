@@ -0,0 +1,39 @@
+package com.example.petsafe.data;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.petsafe.models.Pet;
+
+import java.util.List;
+
+@Dao
+public interface PetDao {
+
+    @Query("SELECT * FROM pets ORDER BY id")
+    List<Pet> getAll();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insert(Pet pet);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<Pet> pets);
+
+    @Query("DELETE FROM pets WHERE id = :petId")
+    void deleteById(long petId);
+
+    @Query("DELETE FROM pets")
+    void deleteAll();
+
+    /**
+     * Substitui a lista inteira (pets removidos em outro aparelho também somem do cache)
+     */
+    @Transaction
+    default void replaceAll(List<Pet> pets) {
+        deleteAll();
+        insertAll(pets);
+    }
+}
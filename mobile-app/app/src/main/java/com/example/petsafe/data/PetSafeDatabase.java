@@ -0,0 +1,49 @@
+package com.example.petsafe.data;
+
+import android.content.Context;
+
+import androidx.room.Database;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+
+import com.example.petsafe.models.Device;
+import com.example.petsafe.models.Geofence;
+import com.example.petsafe.models.Location;
+import com.example.petsafe.models.Pet;
+
+/**
+ * Banco local (Room) com a última resposta da API para pets, dispositivos, área segura e localizações recentes
+ * É apenas um cache: a API continua sendo a fonte da verdade, então mudanças de schema recriam o banco
+ */
+@Database(entities = {Pet.class, Device.class, Geofence.class, Location.class}, version = 1, exportSchema = false)
+public abstract class PetSafeDatabase extends RoomDatabase {
+
+    private static final String DATABASE_NAME = "petsafe_cache.db";
+
+    private static volatile PetSafeDatabase instance;
+
+    public abstract PetDao petDao();
+
+    public abstract DeviceDao deviceDao();
+
+    public abstract GeofenceDao geofenceDao();
+
+    public abstract LocationDao locationDao();
+
+    /**
+     * Retorna uma instância singleton do banco
+     */
+    public static PetSafeDatabase getInstance(Context context) {
+        if (instance == null) {
+            synchronized (PetSafeDatabase.class) {
+                if (instance == null) {
+                    instance = Room.databaseBuilder(context.getApplicationContext(),
+                                    PetSafeDatabase.class, DATABASE_NAME)
+                            .fallbackToDestructiveMigration()
+                            .build();
+                }
+            }
+        }
+        return instance;
+    }
+}
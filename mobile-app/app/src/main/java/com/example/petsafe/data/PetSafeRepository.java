@@ -0,0 +1,278 @@
+package com.example.petsafe.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.petsafe.api.ApiClient;
+import com.example.petsafe.api.ApiService;
+import com.example.petsafe.models.ApiResponse;
+import com.example.petsafe.models.Device;
+import com.example.petsafe.models.Geofence;
+import com.example.petsafe.models.Location;
+import com.example.petsafe.models.Pet;
+import com.example.petsafe.utils.SessionManager;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import okhttp3.Cache;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Acesso aos dados das telas com cache local (stale-while-revalidate)
+ * Cada carga entrega primeiro o que está no banco, sem esperar a rede, e depois a resposta da API, que
+ * também atualiza o banco. As telas só precisam redesenhar a cada onData.
+ */
+public class PetSafeRepository {
+
+    private static final String TAG = "PetSafeRepository";
+
+    private static volatile PetSafeRepository instance;
+
+    private final PetSafeDatabase database;
+    private final SessionManager sessionManager;
+    private final ApiService apiService;
+    // Uma única thread: leituras e escritas do cache acontecem na ordem em que foram pedidas
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Resultado de uma carga, sempre entregue na main thread
+     */
+    public interface DataCallback<T> {
+
+        /**
+         * Chamado até duas vezes: com o cache (fromCache = true), se houver, e com a resposta da API
+         */
+        void onData(T data, boolean fromCache);
+
+        /**
+         * A API falhou; se hasCachedData, os dados do cache já foram entregues e continuam válidos na tela
+         */
+        void onError(String message, boolean hasCachedData);
+    }
+
+    private PetSafeRepository(Context context) {
+        database = PetSafeDatabase.getInstance(context);
+        sessionManager = new SessionManager(context.getApplicationContext());
+        apiService = ApiClient.getApiService();
+    }
+
+    /**
+     * Retorna uma instância singleton do repositório
+     */
+    public static PetSafeRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (PetSafeRepository.class) {
+                if (instance == null) {
+                    instance = new PetSafeRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // ==================== CARGAS (CACHE + API) ====================
+
+    public void loadPets(DataCallback<List<Pet>> callback) {
+        PetDao dao = database.petDao();
+        load(dao::getAll, apiService.listPets(sessionManager.getAuthorizationHeader()), dao::replaceAll,
+                false, "Erro ao carregar pets", callback);
+    }
+
+    public void loadDevices(DataCallback<List<Device>> callback) {
+        DeviceDao dao = database.deviceDao();
+        load(dao::getAll, apiService.listDevices(sessionManager.getAuthorizationHeader()), dao::replaceAll,
+                false, "Erro ao carregar dispositivos", callback);
+    }
+
+    /**
+     * Só a API, sem passar pelo cache local (atualização periódica do mapa)
+     * Uma resposta igual à anterior (304 do ETag ou ainda fresca no cache HTTP) não é gravada de novo no banco.
+     */
+    public void refreshDevices(DataCallback<List<Device>> callback) {
+        DeviceDao dao = database.deviceDao();
+        fetch(apiService.listDevices(sessionManager.getAuthorizationHeader()), dao::replaceAll, false, true,
+                "Erro ao atualizar dispositivos", new LoadState(), callback);
+    }
+
+    /**
+     * A área segura pode não existir: a API responde 404 e o callback recebe null
+     */
+    public void loadGeofence(DataCallback<Geofence> callback) {
+        GeofenceDao dao = database.geofenceDao();
+        load(dao::get, apiService.getGeofence(sessionManager.getAuthorizationHeader()), geofence -> {
+            if (geofence != null) {
+                dao.replace(geofence);
+            } else {
+                dao.deleteAll();
+            }
+        }, true, "Erro ao carregar área segura", callback);
+    }
+
+    public void loadRecentLocations(long deviceId, int limit, DataCallback<List<Location>> callback) {
+        LocationDao dao = database.locationDao();
+        load(() -> dao.getRecent(deviceId, limit),
+                apiService.getDeviceLocations(sessionManager.getAuthorizationHeader(), deviceId, limit),
+                locations -> dao.replaceForDevice(deviceId, locations),
+                false, "Erro ao carregar histórico de localizações", callback);
+    }
+
+    // ==================== ATUALIZAÇÕES LOCAIS ====================
+    // Chamadas depois que a API confirmou uma alteração feita no app, para o cache não voltar com o dado antigo
+
+    public void cachePet(Pet pet) {
+        diskExecutor.execute(() -> database.petDao().insert(pet));
+    }
+
+    public void removeCachedPet(Long petId) {
+        diskExecutor.execute(() -> database.petDao().deleteById(petId));
+    }
+
+    public void cacheDevice(Device device) {
+        diskExecutor.execute(() -> database.deviceDao().insert(device));
+    }
+
+    public void removeCachedDevice(Long deviceId) {
+        diskExecutor.execute(() -> {
+            database.deviceDao().deleteById(deviceId);
+            database.locationDao().deleteByDevice(deviceId);
+        });
+    }
+
+    public void cacheGeofence(Geofence geofence) {
+        diskExecutor.execute(() -> database.geofenceDao().replace(geofence));
+    }
+
+    /**
+     * Apaga o cache (logout): os dados de um usuário não podem aparecer para o próximo
+     * Inclui o cache HTTP do ApiClient, que guarda as mesmas respostas
+     */
+    public void clear() {
+        diskExecutor.execute(() -> {
+            database.clearAllTables();
+            Cache httpCache = ApiClient.getHttpCache();
+            if (httpCache != null) {
+                try {
+                    httpCache.evictAll();
+                } catch (IOException e) {
+                    Log.w(TAG, "Erro ao limpar cache HTTP", e);
+                }
+            }
+        });
+    }
+
+    // ==================== IMPLEMENTAÇÃO ====================
+
+    /**
+     * Lê o cache e chama a API em paralelo
+     * Se a API responder antes do disco, o cache (mais antigo) não é entregue.
+     */
+    private <T> void load(Callable<T> cacheReader, Call<ApiResponse<T>> call, Consumer<T> cacheWriter,
+                          boolean notFoundIsEmpty, String errorMessage, DataCallback<T> callback) {
+        LoadState state = new LoadState();
+
+        diskExecutor.execute(() -> {
+            T cached = readCache(cacheReader);
+            mainHandler.post(() -> {
+                if (!state.freshDelivered && hasData(cached)) {
+                    state.cacheDelivered = true;
+                    callback.onData(cached, true);
+                }
+            });
+        });
+
+        fetch(call, cacheWriter, notFoundIsEmpty, false, errorMessage, state, callback);
+    }
+
+    /**
+     * Chama a API e grava a resposta no cache
+     *
+     * @param skipUnchanged Não grava no banco uma resposta que o cache HTTP confirmou ser igual à anterior
+     */
+    private <T> void fetch(Call<ApiResponse<T>> call, Consumer<T> cacheWriter, boolean notFoundIsEmpty,
+                           boolean skipUnchanged, String errorMessage, LoadState state,
+                           DataCallback<T> callback) {
+        call.enqueue(new Callback<ApiResponse<T>>() {
+            @Override
+            public void onResponse(Call<ApiResponse<T>> call, Response<ApiResponse<T>> response) {
+                boolean notFound = notFoundIsEmpty && response.code() == 404;
+                if (notFound || (response.isSuccessful() && response.body() != null
+                        && (response.body().getData() != null || notFoundIsEmpty))) {
+                    T data = notFound ? null : response.body().getData();
+                    state.freshDelivered = true;
+                    if (!(skipUnchanged && isUnchanged(response))) {
+                        diskExecutor.execute(() -> writeCache(cacheWriter, data));
+                    }
+                    callback.onData(data, false);
+                } else {
+                    Log.e(TAG, errorMessage + ": " + response.code());
+                    deliverError(errorMessage, state, callback);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<ApiResponse<T>> call, Throwable t) {
+                Log.e(TAG, errorMessage, t);
+                deliverError("Erro de conexão", state, callback);
+            }
+        });
+    }
+
+    /**
+     * O erro passa pela fila do disco para chegar depois do cache, mesmo quando a rede falha de imediato
+     * (modo avião): assim hasCachedData é confiável
+     */
+    private <T> void deliverError(String message, LoadState state, DataCallback<T> callback) {
+        diskExecutor.execute(() -> mainHandler.post(() -> callback.onError(message, state.cacheDelivered)));
+    }
+
+    private static <T> T readCache(Callable<T> cacheReader) {
+        try {
+            return cacheReader.call();
+        } catch (Exception e) {
+            Log.w(TAG, "Erro ao ler cache local", e);
+            return null;
+        }
+    }
+
+    private static <T> void writeCache(Consumer<T> cacheWriter, T data) {
+        try {
+            cacheWriter.accept(data);
+        } catch (Exception e) {
+            Log.w(TAG, "Erro ao gravar cache local", e);
+        }
+    }
+
+    /**
+     * Resposta servida pelo cache HTTP sem rede, ou revalidada com 304
+     */
+    private static boolean isUnchanged(Response<?> response) {
+        okhttp3.Response networkResponse = response.raw().networkResponse();
+        return networkResponse == null || networkResponse.code() == 304;
+    }
+
+    private static boolean hasData(Object data) {
+        if (data instanceof Collection) {
+            return !((Collection<?>) data).isEmpty();
+        }
+        return data != null;
+    }
+
+    /**
+     * O que já foi entregue em uma carga; acessado apenas na main thread
+     */
+    private static class LoadState {
+        boolean cacheDelivered;
+        boolean freshDelivered;
+    }
+}
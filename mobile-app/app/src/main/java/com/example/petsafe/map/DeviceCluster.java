@@ -0,0 +1,81 @@
+package com.example.petsafe.map;
+
+import com.example.petsafe.models.Device;
+
+import org.osmdroid.util.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dispositivos próximos em um nível de zoom, desenhados como um único marcador
+ * O agrupamento é por grade: o mundo em pixels (Web Mercator) no zoom é dividido em células quadradas e cada
+ * célula com dispositivos vira um grupo, posicionado na média das posições.
+ */
+public class DeviceCluster {
+
+    private static final double TILE_SIZE = 256.0;
+
+    private final List<Device> devices = new ArrayList<>();
+    private double latitudeSum;
+    private double longitudeSum;
+    private GeoPoint center;
+
+    /**
+     * Agrupa os dispositivos com posição; pode levar alguns milissegundos com muitos dispositivos, então é
+     * chamado fora da main thread
+     *
+     * @param zoom       Nível de zoom inteiro
+     * @param cellSizePx Lado da célula da grade, em pixels de tela
+     */
+    public static List<DeviceCluster> compute(List<Device> devices, int zoom, int cellSizePx) {
+        double worldSize = TILE_SIZE * Math.pow(2, zoom);
+        Map<Long, DeviceCluster> cells = new LinkedHashMap<>();
+
+        for (Device device : devices) {
+            if (device.getLastLatitude() == null || device.getLastLongitude() == null) {
+                continue;
+            }
+            double x = (device.getLastLongitude() + 180.0) / 360.0 * worldSize;
+            double sinLatitude = Math.sin(Math.toRadians(Math.max(-85.0511, Math.min(85.0511,
+                    device.getLastLatitude()))));
+            double y = (0.5 - Math.log((1 + sinLatitude) / (1 - sinLatitude)) / (4 * Math.PI)) * worldSize;
+
+            long cell = ((long) Math.floor(x / cellSizePx) << 32) | ((long) Math.floor(y / cellSizePx) & 0xFFFFFFFFL);
+            DeviceCluster cluster = cells.get(cell);
+            if (cluster == null) {
+                cluster = new DeviceCluster();
+                cells.put(cell, cluster);
+            }
+            cluster.add(device);
+        }
+
+        List<DeviceCluster> clusters = new ArrayList<>(cells.values());
+        for (DeviceCluster cluster : clusters) {
+            cluster.center = new GeoPoint(cluster.latitudeSum / cluster.devices.size(),
+                    cluster.longitudeSum / cluster.devices.size());
+        }
+        return clusters;
+    }
+
+    private void add(Device device) {
+        devices.add(device);
+        latitudeSum += device.getLastLatitude();
+        longitudeSum += device.getLastLongitude();
+    }
+
+    public GeoPoint getCenter() {
+        return center;
+    }
+
+    public List<Device> getDevices() {
+        return Collections.unmodifiableList(devices);
+    }
+
+    public int size() {
+        return devices.size();
+    }
+}
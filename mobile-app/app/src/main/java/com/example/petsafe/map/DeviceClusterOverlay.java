@@ -0,0 +1,218 @@
+package com.example.petsafe.map;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Point;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.MotionEvent;
+
+import com.example.petsafe.models.Device;
+
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.Projection;
+import org.osmdroid.views.overlay.Overlay;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Um único overlay com todos os dispositivos: os próximos entre si viram uma bolha com a quantidade, que se
+ * separa ao aproximar o mapa (toque na bolha aproxima até os dispositivos dela)
+ * Os grupos são calculados em uma thread separada e guardados por nível de zoom até a lista de dispositivos
+ * mudar; enquanto o zoom atual não está pronto, os grupos do último desenho continuam na tela. Grupos de uma
+ * lista anterior continuam visíveis, mas não respondem a toques (podem conter dispositivos removidos).
+ */
+public class DeviceClusterOverlay extends Overlay {
+
+    private static final String TAG = "DeviceClusterOverlay";
+
+    private static final int CELL_SIZE_DP = 56;
+    private static final int BUBBLE_RADIUS_DP = 18;
+    private static final int TEXT_SIZE_SP = 14;
+    private static final int ZOOM_PADDING_DP = 48;
+
+    private final MapView mapView;
+    private final Drawable icon;
+    private final DeviceMarkerLayer.OnDeviceMarkerClickListener listener;
+    private final float density;
+    private final Paint bubblePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint bubbleStrokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Point screenPoint = new Point();
+    private final Rect iconBounds = new Rect();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Acessados apenas na main thread
+    private List<Device> devices = Collections.emptyList();
+    private final Map<Integer, List<DeviceCluster>> clustersByZoom = new HashMap<>();
+    private final Set<Integer> computing = new HashSet<>();
+    private List<DeviceCluster> drawnClusters = Collections.emptyList();
+    // Incrementado a cada nova lista: cálculos da lista anterior são descartados
+    private int generation;
+    // Geração da lista que originou drawnClusters
+    private int drawnGeneration;
+
+    public DeviceClusterOverlay(MapView mapView, Drawable icon, int bubbleColor, int textColor,
+                                DeviceMarkerLayer.OnDeviceMarkerClickListener listener) {
+        this.mapView = mapView;
+        this.icon = icon;
+        this.listener = listener;
+        this.density = mapView.getContext().getResources().getDisplayMetrics().density;
+
+        bubblePaint.setColor(bubbleColor);
+        bubbleStrokePaint.setColor(textColor);
+        bubbleStrokePaint.setStyle(Paint.Style.STROKE);
+        bubbleStrokePaint.setStrokeWidth(2 * density);
+        textPaint.setColor(textColor);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        textPaint.setFakeBoldText(true);
+        textPaint.setTextSize(TEXT_SIZE_SP * mapView.getContext().getResources().getDisplayMetrics().scaledDensity);
+    }
+
+    /**
+     * Troca a lista de dispositivos; os grupos de todos os zooms são recalculados sob demanda
+     */
+    public void setDevices(List<Device> devices) {
+        this.devices = Collections.unmodifiableList(new ArrayList<>(devices));
+        generation++;
+        clustersByZoom.clear();
+        computing.clear();
+        mapView.invalidate();
+    }
+
+    @Override
+    public void draw(Canvas canvas, Projection projection) {
+        int zoom = (int) Math.floor(projection.getZoomLevel());
+        List<DeviceCluster> clusters = clustersByZoom.get(zoom);
+        if (clusters == null) {
+            computeAsync(zoom);
+        } else {
+            drawnClusters = clusters;
+            drawnGeneration = generation;
+        }
+
+        Rect screen = projection.getIntrinsicScreenRect();
+        int margin = Math.round(BUBBLE_RADIUS_DP * density) + icon.getIntrinsicHeight();
+        for (DeviceCluster cluster : drawnClusters) {
+            projection.toPixels(cluster.getCenter(), screenPoint);
+            if (screenPoint.x < screen.left - margin || screenPoint.x > screen.right + margin
+                    || screenPoint.y < screen.top - margin || screenPoint.y > screen.bottom + margin) {
+                continue;
+            }
+            if (cluster.size() == 1) {
+                setIconBounds(screenPoint);
+                icon.setBounds(iconBounds);
+                icon.draw(canvas);
+            } else {
+                float radius = BUBBLE_RADIUS_DP * density;
+                canvas.drawCircle(screenPoint.x, screenPoint.y, radius, bubblePaint);
+                canvas.drawCircle(screenPoint.x, screenPoint.y, radius, bubbleStrokePaint);
+                float baseline = screenPoint.y - (textPaint.descent() + textPaint.ascent()) / 2;
+                canvas.drawText(String.valueOf(cluster.size()), screenPoint.x, baseline, textPaint);
+            }
+        }
+    }
+
+    @Override
+    public boolean onSingleTapConfirmed(MotionEvent event, MapView mapView) {
+        if (drawnGeneration != generation) {
+            return false; // Grupos da lista anterior: o toque poderia abrir um dispositivo que já mudou ou saiu
+        }
+        Projection projection = mapView.getProjection();
+        float radius = BUBBLE_RADIUS_DP * density;
+
+        // De trás para frente: o último desenhado está por cima
+        for (int i = drawnClusters.size() - 1; i >= 0; i--) {
+            DeviceCluster cluster = drawnClusters.get(i);
+            projection.toPixels(cluster.getCenter(), screenPoint);
+
+            if (cluster.size() == 1) {
+                setIconBounds(screenPoint);
+                if (iconBounds.contains((int) event.getX(), (int) event.getY())) {
+                    listener.onDeviceMarkerClick(cluster.getDevices().get(0));
+                    return true;
+                }
+            } else {
+                float dx = event.getX() - screenPoint.x;
+                float dy = event.getY() - screenPoint.y;
+                if (dx * dx + dy * dy <= radius * radius) {
+                    expand(cluster);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void onDetach(MapView mapView) {
+        executor.shutdownNow();
+        super.onDetach(mapView);
+    }
+
+    /**
+     * Aproxima até caberem os dispositivos do grupo; no zoom máximo (dispositivos no mesmo lugar) abre o primeiro
+     */
+    private void expand(DeviceCluster cluster) {
+        if (mapView.getZoomLevelDouble() >= mapView.getMaxZoomLevel()) {
+            listener.onDeviceMarkerClick(cluster.getDevices().get(0));
+            return;
+        }
+        List<GeoPoint> points = new ArrayList<>();
+        for (Device device : cluster.getDevices()) {
+            points.add(new GeoPoint(device.getLastLatitude(), device.getLastLongitude()));
+        }
+        mapView.zoomToBoundingBox(BoundingBox.fromGeoPoints(points), true, Math.round(ZOOM_PADDING_DP * density));
+    }
+
+    private void computeAsync(int zoom) {
+        if (!computing.add(zoom)) {
+            return;
+        }
+        List<Device> snapshot = devices;
+        int computeGeneration = generation;
+        int cellSizePx = Math.round(CELL_SIZE_DP * density);
+
+        try {
+            executor.execute(() -> {
+                List<DeviceCluster> clusters = DeviceCluster.compute(snapshot, zoom, cellSizePx);
+                mainHandler.post(() -> {
+                    if (computeGeneration != generation) {
+                        return;
+                    }
+                    computing.remove(zoom);
+                    clustersByZoom.put(zoom, clusters);
+                    mapView.invalidate();
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            // Overlay já removido do mapa
+            Log.d(TAG, "Agrupamento ignorado após onDetach");
+        }
+    }
+
+    /**
+     * Ícone ancorado pelo centro da base, como os Markers do osmdroid
+     */
+    private void setIconBounds(Point point) {
+        int width = icon.getIntrinsicWidth();
+        int height = icon.getIntrinsicHeight();
+        iconBounds.set(point.x - width / 2, point.y - height, point.x - width / 2 + width, point.y);
+    }
+}
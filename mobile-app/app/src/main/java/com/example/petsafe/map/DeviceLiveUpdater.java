@@ -0,0 +1,196 @@
+package com.example.petsafe.map;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.example.petsafe.data.PetSafeRepository;
+import com.example.petsafe.models.Device;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TimeZone;
+
+/**
+ * Atualiza as posições dos dispositivos enquanto o mapa está visível
+ * Consulta a lista de dispositivos (barata quando nada mudou: o cache HTTP revalida com ETag e recebe 304) em um
+ * intervalo que acompanha o dispositivo mais ativo: quem comunicou há pouco é consultado com mais frequência.
+ * Só avisa a tela quando alguma posição mudou. Fica parado entre onStop e onStart.
+ */
+public class DeviceLiveUpdater implements DefaultLifecycleObserver {
+
+    public interface OnDevicesChangedListener {
+        void onDevicesChanged(List<Device> devices);
+    }
+
+    // Intervalo de consulta pela idade da última comunicação do dispositivo
+    private static final long ACTIVE_AGE_MS = 2 * 60_000L;
+    private static final long RECENT_AGE_MS = 10 * 60_000L;
+    private static final long IDLE_AGE_MS = 60 * 60_000L;
+    private static final long ACTIVE_INTERVAL_MS = 5_000L;
+    private static final long RECENT_INTERVAL_MS = 15_000L;
+    private static final long IDLE_INTERVAL_MS = 30_000L;
+    private static final long OFFLINE_INTERVAL_MS = 60_000L;
+    // Depois de uma falha não insiste no ritmo dos dispositivos ativos
+    private static final long ERROR_INTERVAL_MS = 30_000L;
+
+    private final PetSafeRepository repository;
+    private final OnDevicesChangedListener listener;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable pollTask = this::poll;
+
+    // Id -> posição e última comunicação já entregues à tela
+    private Map<Long, String> knownStates = new HashMap<>();
+    private long intervalMs = ACTIVE_INTERVAL_MS;
+    private long lastUpdateAt;
+    private boolean started;
+    private boolean polling;
+    // Incrementado a cada onStop: respostas de um ciclo anterior são ignoradas
+    private int generation;
+
+    public DeviceLiveUpdater(PetSafeRepository repository, OnDevicesChangedListener listener) {
+        this.repository = repository;
+        this.listener = listener;
+    }
+
+    /**
+     * Dispositivos carregados pela tela (cache ou API): passam a ser a referência para as próximas mudanças
+     */
+    public void setDevices(List<Device> devices) {
+        knownStates = statesOf(devices);
+        intervalMs = intervalFor(devices);
+        lastUpdateAt = SystemClock.elapsedRealtime();
+        schedule();
+    }
+
+    @Override
+    public void onStart(@NonNull LifecycleOwner owner) {
+        started = true;
+        schedule();
+    }
+
+    @Override
+    public void onStop(@NonNull LifecycleOwner owner) {
+        started = false;
+        polling = false;
+        generation++;
+        handler.removeCallbacks(pollTask);
+    }
+
+    /**
+     * Agenda a próxima consulta a partir da última atualização (volta do background já consulta se venceu)
+     */
+    private void schedule() {
+        handler.removeCallbacks(pollTask);
+        if (!started || polling) {
+            return;
+        }
+        long elapsed = SystemClock.elapsedRealtime() - lastUpdateAt;
+        handler.postDelayed(pollTask, Math.max(0, intervalMs - elapsed));
+    }
+
+    private void poll() {
+        polling = true;
+        int pollGeneration = generation;
+
+        repository.refreshDevices(new PetSafeRepository.DataCallback<List<Device>>() {
+            @Override
+            public void onData(List<Device> devices, boolean fromCache) {
+                if (pollGeneration != generation) {
+                    return;
+                }
+                polling = false;
+
+                Map<Long, String> states = statesOf(devices);
+                boolean changed = !states.equals(knownStates);
+                knownStates = states;
+                intervalMs = intervalFor(devices);
+                lastUpdateAt = SystemClock.elapsedRealtime();
+                schedule();
+
+                if (changed) {
+                    listener.onDevicesChanged(devices);
+                }
+            }
+
+            @Override
+            public void onError(String message, boolean hasCachedData) {
+                if (pollGeneration != generation) {
+                    return;
+                }
+                // Sem aviso: o mapa continua com as últimas posições e a próxima consulta tenta de novo
+                polling = false;
+                intervalMs = Math.max(intervalMs, ERROR_INTERVAL_MS);
+                lastUpdateAt = SystemClock.elapsedRealtime();
+                schedule();
+            }
+        });
+    }
+
+    private static Map<Long, String> statesOf(List<Device> devices) {
+        Map<Long, String> states = new HashMap<>();
+        for (Device device : devices) {
+            states.put(device.getId(), device.getLastLatitude() + "," + device.getLastLongitude() + ","
+                    + device.getLastComm());
+        }
+        return states;
+    }
+
+    /**
+     * Menor intervalo entre os dispositivos (o mais ativo dita o ritmo da consulta)
+     */
+    private static long intervalFor(List<Device> devices) {
+        long now = System.currentTimeMillis();
+        long interval = OFFLINE_INTERVAL_MS;
+        for (Device device : devices) {
+            Long lastComm = parseTimestamp(device.getLastComm());
+            if (lastComm == null) {
+                continue;
+            }
+            long age = now - lastComm;
+            if (age < ACTIVE_AGE_MS) {
+                interval = Math.min(interval, ACTIVE_INTERVAL_MS);
+            } else if (age < RECENT_AGE_MS) {
+                interval = Math.min(interval, RECENT_INTERVAL_MS);
+            } else if (age < IDLE_AGE_MS) {
+                interval = Math.min(interval, IDLE_INTERVAL_MS);
+            }
+        }
+        return interval;
+    }
+
+    /**
+     * Lê o last_comm da API (RFC 3339, ex.: 2025-01-01T12:00:00.123Z ou 2025-01-01T09:00:00-03:00)
+     *
+     * @return Epoch em milissegundos, ou null se ausente ou ilegível
+     */
+    static Long parseTimestamp(String timestamp) {
+        if (timestamp == null || timestamp.length() < 19) {
+            return null;
+        }
+        try {
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            long millis = Objects.requireNonNull(format.parse(timestamp.substring(0, 19))).getTime();
+
+            String zone = timestamp.substring(19).replaceFirst("^\\.\\d+", "");
+            if (zone.length() == 6 && (zone.charAt(0) == '+' || zone.charAt(0) == '-')) {
+                long offset = (Integer.parseInt(zone.substring(1, 3)) * 60L
+                        + Integer.parseInt(zone.substring(4, 6))) * 60_000L;
+                millis += zone.charAt(0) == '+' ? -offset : offset;
+            }
+            return millis;
+        } catch (ParseException | NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.petsafe.map;
+
+import android.graphics.drawable.Drawable;
+
+import com.example.petsafe.models.Device;
+
+import org.osmdroid.views.MapView;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dispositivos no mapa, indexados pelo id do dispositivo
+ * A cada atualização compara com o que já está no mapa: se nenhum dispositivo apareceu, sumiu ou mudou de posição,
+ * nada é recalculado nem redesenhado. O desenho (com agrupamento dos dispositivos próximos) é do
+ * {@link DeviceClusterOverlay}, um único overlay no lugar de um Marker por dispositivo.
+ */
+public class DeviceMarkerLayer {
+
+    public interface OnDeviceMarkerClickListener {
+        void onDeviceMarkerClick(Device device);
+    }
+
+    private final DeviceClusterOverlay overlay;
+    private final Map<Long, Device> devices = new LinkedHashMap<>();
+
+    public DeviceMarkerLayer(MapView mapView, Drawable icon, int bubbleColor, int textColor,
+                             OnDeviceMarkerClickListener listener) {
+        // O overlay só é refeito quando algo muda de posição: o clique busca aqui a versão mais recente do dispositivo
+        overlay = new DeviceClusterOverlay(mapView, icon, bubbleColor, textColor,
+                device -> listener.onDeviceMarkerClick(latest(device)));
+        mapView.getOverlays().add(overlay);
+    }
+
+    /**
+     * Sincroniza o mapa com a lista de dispositivos (dispositivos sem posição ficam fora do mapa)
+     *
+     * @return true se algum dispositivo apareceu, sumiu ou mudou de posição (o mapa já foi redesenhado)
+     */
+    public boolean setDevices(List<Device> devices) {
+        Map<Long, Device> visible = new LinkedHashMap<>();
+        boolean changed = false;
+
+        for (Device device : devices) {
+            if (device.getId() == null || device.getLastLatitude() == null || device.getLastLongitude() == null) {
+                continue;
+            }
+            visible.put(device.getId(), device);
+
+            Device previous = this.devices.get(device.getId());
+            changed |= previous == null
+                    || !previous.getLastLatitude().equals(device.getLastLatitude())
+                    || !previous.getLastLongitude().equals(device.getLastLongitude());
+        }
+        changed |= visible.size() != this.devices.size();
+
+        this.devices.clear();
+        this.devices.putAll(visible);
+
+        if (changed) {
+            overlay.setDevices(new ArrayList<>(visible.values()));
+        }
+        return changed;
+    }
+
+    public Device getDevice(Long deviceId) {
+        return devices.get(deviceId);
+    }
+
+    public int size() {
+        return devices.size();
+    }
+
+    private Device latest(Device device) {
+        Device current = devices.get(device.getId());
+        return current != null ? current : device;
+    }
+}
@@ -1,8 +1,16 @@
 package com.example.petsafe.models;
 
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
 import com.google.gson.annotations.SerializedName;
 
+@Entity(tableName = "geofences")
 public class Geofence {
+    @PrimaryKey
+    @NonNull
     private Long id;
     private String name;
     private Double latitude;
@@ -24,6 +32,7 @@ public class Geofence {
     public Geofence() {
     }
 
+    @Ignore
     public Geofence(String name, Double latitude, Double longitude, Integer radiusM) {
         this.name = name;
         this.latitude = latitude;
@@ -1,8 +1,16 @@
 package com.example.petsafe.models;
 
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
 import com.google.gson.annotations.SerializedName;
 
+@Entity(tableName = "locations", indices = @Index("deviceId"))
 public class Location {
+    @PrimaryKey
+    @NonNull
     private Long id;
 
     @SerializedName("device_id")
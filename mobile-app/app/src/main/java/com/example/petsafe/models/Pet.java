@@ -1,8 +1,15 @@
 package com.example.petsafe.models;
 
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
 import com.google.gson.annotations.SerializedName;
 
+@Entity(tableName = "pets")
 public class Pet {
+    @PrimaryKey
+    @NonNull
     private Long id;
     private String name;
     private String species;
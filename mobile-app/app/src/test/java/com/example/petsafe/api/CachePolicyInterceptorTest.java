@@ -0,0 +1,122 @@
+package com.example.petsafe.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class CachePolicyInterceptorTest {
+
+    @Rule
+    public TemporaryFolder cacheDir = new TemporaryFolder();
+
+    private MockWebServer server;
+    private Cache cache;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        cache = new Cache(cacheDir.getRoot(), 1024 * 1024);
+        client = new OkHttpClient.Builder()
+                .cache(cache)
+                .addNetworkInterceptor(new CachePolicyInterceptor(cache))
+                .build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        cache.close();
+        server.shutdown();
+    }
+
+    @Test
+    public void maxAgeTable() {
+        assertEquals(30, CachePolicyInterceptor.maxAgeFor(path("api", "v1", "pets")));
+        assertEquals(30, CachePolicyInterceptor.maxAgeFor(path("api", "v1", "pets", "5")));
+        assertEquals(30, CachePolicyInterceptor.maxAgeFor(path("api", "v1", "geofence")));
+        assertEquals(30, CachePolicyInterceptor.maxAgeFor(path("api", "v1", "me")));
+        assertEquals(5, CachePolicyInterceptor.maxAgeFor(path("api", "v1", "devices")));
+        assertEquals(0, CachePolicyInterceptor.maxAgeFor(path("api", "v1", "devices", "7", "status")));
+        assertEquals(0, CachePolicyInterceptor.maxAgeFor(path("api", "v1", "devices", "7", "locations", "50")));
+        assertEquals(-1, CachePolicyInterceptor.maxAgeFor(path("api", "v1", "alerts")));
+        assertEquals(-1, CachePolicyInterceptor.maxAgeFor(path("api", "v1")));
+        assertEquals(-1, CachePolicyInterceptor.maxAgeFor(path("health")));
+    }
+
+    @Test
+    public void listIsServedFromCacheWithinMaxAge() throws IOException {
+        server.enqueue(new MockResponse().setBody("{\"data\":[]}").setHeader("ETag", "\"v1\"")
+                .setHeader("Cache-Control", "no-cache"));
+
+        try (Response first = get("/api/v1/pets")) {
+            assertEquals("private, max-age=30", first.header("Cache-Control"));
+        }
+        try (Response second = get("/api/v1/pets")) {
+            assertEquals("{\"data\":[]}", second.body().string());
+            assertNull(second.networkResponse());
+            assertNotNull(second.cacheResponse());
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void deviceStatusIsRevalidatedWithTheEtag() throws IOException, InterruptedException {
+        server.enqueue(new MockResponse().setBody("{\"data\":{}}").setHeader("ETag", "\"v1\""));
+        server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""));
+
+        get("/api/v1/devices/7/status").close();
+        try (Response second = get("/api/v1/devices/7/status")) {
+            assertEquals("{\"data\":{}}", second.body().string());
+            assertEquals(304, second.networkResponse().code());
+        }
+
+        server.takeRequest();
+        assertEquals("\"v1\"", server.takeRequest().getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void successfulWriteEvictsTheWholeResource() throws IOException {
+        server.enqueue(new MockResponse().setBody("[1]"));
+        server.enqueue(new MockResponse().setBody("{\"id\":5}"));
+        server.enqueue(new MockResponse().setBody("{\"data\":true}"));
+        server.enqueue(new MockResponse().setBody("[]"));
+
+        get("/api/v1/pets").close();
+        get("/api/v1/pets/5").close();
+        client.newCall(new Request.Builder().url(server.url("/api/v1/pets/5"))
+                .patch(RequestBody.create(new byte[0], null)).build()).execute().close();
+
+        try (Response list = get("/api/v1/pets")) {
+            assertEquals("[]", list.body().string());
+            assertNotNull(list.networkResponse());
+        }
+        assertEquals(4, server.getRequestCount());
+    }
+
+    private Response get(String path) throws IOException {
+        return client.newCall(new Request.Builder().url(server.url(path)).build()).execute();
+    }
+
+    private static List<String> path(String... segments) {
+        return Arrays.asList(segments);
+    }
+}
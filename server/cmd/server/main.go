@@ -47,8 +47,11 @@ func main() {
 		// rotas que requerem autenticação
 		secured := api.Group("/")
 		secured.Use(middleware.JWTAuthMiddleware())
+		// ETag/304 nas leituras pequenas que o app guarda no cache HTTP (revalida sem baixar o JSON de novo).
+		// Fica fora do histórico de localizações: o middleware guarda a resposta inteira em memória.
+		etag := middleware.ETagMiddleware()
 		{
-			secured.GET("/me", handlers.GetMe)
+			secured.GET("/me", etag, handlers.GetMe)
 			secured.PATCH("/me", handlers.UpdateUser)
 			secured.PATCH("/me/password", handlers.UpdatePassword)
 			secured.POST("/me/fcm-token", handlers.RegisterFcmToken)
@@ -60,25 +63,25 @@ func main() {
 
 			// pets
 			secured.POST("/pets", handlers.CreatePet)
-			secured.GET("/pets", handlers.ListPets)
-			secured.GET("/pets/:id", handlers.DetailsPet)
+			secured.GET("/pets", etag, handlers.ListPets)
+			secured.GET("/pets/:id", etag, handlers.DetailsPet)
 			secured.PATCH("/pets/:id", handlers.UpdatePet)
 			secured.DELETE("/pets/:id", handlers.DeletePet)
 
 			// devices
 			secured.POST("/devices", handlers.CreateDevice)
-			secured.GET("/devices", handlers.ListDevices)
+			secured.GET("/devices", etag, handlers.ListDevices)
 			secured.PATCH("/devices/:id", handlers.UpdateDevice)
 			secured.DELETE("/devices/:id", handlers.DeleteDevice)
 
 			// device data
-			secured.GET("/devices/:id/status", handlers.DeviceStatus)
+			secured.GET("/devices/:id/status", etag, handlers.DeviceStatus)
 			secured.GET("/devices/:id/locations/:limit", handlers.ListDeviceLocations)
 			// GET /devices/{id}/battery-history → histórico de bateria
 
 			// geofences (apenas 1 por usuário)
 			secured.POST("/geofence", handlers.CreateGeofence)
-			secured.GET("/geofence", handlers.GetGeofence)
+			secured.GET("/geofence", etag, handlers.GetGeofence)
 			secured.PATCH("/geofence", handlers.UpdateGeofence)
 			secured.DELETE("/geofence", handlers.DeleteGeofence)
 
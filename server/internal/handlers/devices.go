@@ -127,7 +127,19 @@ func ListDeviceLocations(c *gin.Context) {
 		return
 	}
 
+	query := db.DB.Where("device_id = ?", c.Param("id"))
+
+	// Paginação opcional: só localizações mais antigas que before_id (o último id da página anterior)
+	if beforeParam := c.Query("before_id"); beforeParam != "" {
+		beforeID, err := strconv.ParseUint(beforeParam, 10, 64)
+		if err != nil {
+			c.JSON(http.StatusBadRequest, gin.H{"error": "Invalid before_id"})
+			return
+		}
+		query = query.Where("id < ?", beforeID)
+	}
+
 	var locations []models.Location
-	db.DB.Where("device_id = ?", c.Param("id")).Order("id DESC").Limit(limit).Find(&locations)
+	query.Order("id DESC").Limit(limit).Find(&locations)
 	c.JSON(http.StatusOK, gin.H{"data": locations})
 }
@@ -0,0 +1,101 @@
+package middleware
+
+import (
+	"bytes"
+	"crypto/sha256"
+	"encoding/hex"
+	"net/http"
+	"strings"
+
+	"github.com/gin-gonic/gin"
+)
+
+// etagWriter guarda a resposta do handler para calcular o ETag antes de enviá-la
+type etagWriter struct {
+	gin.ResponseWriter
+	status int
+	body   bytes.Buffer
+}
+
+func (w *etagWriter) WriteHeader(code int) {
+	w.status = code
+}
+
+func (w *etagWriter) WriteHeaderNow() {}
+
+func (w *etagWriter) Write(data []byte) (int, error) {
+	return w.body.Write(data)
+}
+
+func (w *etagWriter) WriteString(s string) (int, error) {
+	return w.body.WriteString(s)
+}
+
+func (w *etagWriter) Status() int {
+	return w.status
+}
+
+func (w *etagWriter) Size() int {
+	return w.body.Len()
+}
+
+func (w *etagWriter) Written() bool {
+	return false
+}
+
+// ETagMiddleware adiciona um ETag forte (hash do corpo) às respostas 200 de GET e responde
+// 304 Not Modified quando o cliente já tem essa versão (If-None-Match), sem reenviar o JSON.
+// O handler continua executando: a economia é de banda, principalmente para o app em rede móvel.
+// A resposta inteira fica em memória até o hash ser calculado, então o middleware é aplicado rota a rota,
+// só em respostas pequenas (nunca em listas sem limite ou downloads).
+func ETagMiddleware() gin.HandlerFunc {
+	return func(c *gin.Context) {
+		if c.Request.Method != http.MethodGet {
+			c.Next()
+			return
+		}
+
+		original := c.Writer
+		w := &etagWriter{ResponseWriter: original, status: http.StatusOK}
+		c.Writer = w
+		c.Next()
+		c.Writer = original
+
+		if w.status == http.StatusOK && w.body.Len() > 0 {
+			sum := sha256.Sum256(w.body.Bytes())
+			etag := `"` + hex.EncodeToString(sum[:16]) + `"`
+			header := original.Header()
+			header.Set("ETag", etag)
+			if header.Get("Cache-Control") == "" {
+				// Dados do usuário: só o cache do próprio cliente, sempre revalidado
+				header.Set("Cache-Control", "private, no-cache")
+			}
+			if etagMatches(c.GetHeader("If-None-Match"), etag) {
+				header.Del("Content-Type")
+				header.Del("Content-Length")
+				original.WriteHeader(http.StatusNotModified)
+				original.WriteHeaderNow()
+				return
+			}
+		}
+
+		original.WriteHeader(w.status)
+		if w.body.Len() > 0 {
+			_, _ = original.Write(w.body.Bytes())
+		}
+	}
+}
+
+// etagMatches compara com a lista do If-None-Match (aceita "*" e ETags fracos W/"...")
+func etagMatches(ifNoneMatch, etag string) bool {
+	if ifNoneMatch == "" {
+		return false
+	}
+	for _, candidate := range strings.Split(ifNoneMatch, ",") {
+		candidate = strings.TrimPrefix(strings.TrimSpace(candidate), "W/")
+		if candidate == "*" || candidate == etag {
+			return true
+		}
+	}
+	return false
+}
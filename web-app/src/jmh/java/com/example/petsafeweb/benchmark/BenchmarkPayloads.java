@@ -0,0 +1,79 @@
+package com.example.petsafeweb.benchmark;
+
+import java.time.Instant;
+
+/**
+ * Gera payloads JSON no mesmo formato devolvido pela API Go (snake_case, datas RFC 3339)
+ */
+final class BenchmarkPayloads {
+
+    private static final Instant BASE_TIME = Instant.parse("2025-01-01T00:00:00Z");
+
+    private BenchmarkPayloads() {
+    }
+
+    static String locations(int size) {
+        StringBuilder json = new StringBuilder(size * 220).append("{\"data\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            long id = 1_000_000L - i;
+            json.append("{\"id\":").append(id)
+                    .append(",\"device_id\":42")
+                    .append(",\"latitude\":").append(-23.5505 + i * 0.00013)
+                    .append(",\"longitude\":").append(-46.6333 - i * 0.00011)
+                    .append(",\"accuracy\":").append(3.5f + (i % 7))
+                    .append(",\"speed\":").append(1.25f * (i % 5))
+                    .append(",\"heading\":").append((i * 17) % 360)
+                    .append(",\"updated_at\":").append(1_735_689_600L - i * 30L)
+                    .append(",\"received_at\":\"").append(BASE_TIME.minusSeconds(i * 30L)).append("\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    static String devices(int size) {
+        StringBuilder json = new StringBuilder(size * 260).append("{\"data\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i + 1)
+                    .append(",\"serial_number\":\"PS-").append(100_000 + i).append('"')
+                    .append(",\"imei\":\"35").append(1_000_000_000_000L + i).append('"')
+                    .append(",\"model\":\"ESP32-GPS\",\"firmware\":\"1.4.2\",\"owner_id\":7,\"active\":true")
+                    .append(",\"last_latitude\":").append(-23.55 + i * 0.001)
+                    .append(",\"last_longitude\":").append(-46.63 - i * 0.001)
+                    .append(",\"last_comm\":\"").append(BASE_TIME.minusSeconds(i * 60L)).append('"')
+                    .append(",\"pet_id\":").append(i % 2 == 0 ? String.valueOf(i + 1) : "null")
+                    .append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    static String pets(int size) {
+        StringBuilder json = new StringBuilder(size * 220).append("{\"data\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i + 1)
+                    .append(",\"owner_id\":7,\"name\":\"Pet ").append(i).append('"')
+                    .append(",\"species\":\"").append(i % 2 == 0 ? "Cachorro" : "Gato").append('"')
+                    .append(",\"breed\":\"SRD\",\"microchip_id\":\"").append(i + 1).append('"')
+                    .append(",\"dob\":\"2020-05-01T00:00:00Z\"")
+                    .append(",\"created_at\":\"").append(BASE_TIME).append("\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    static String geofence() {
+        return "{\"data\":{\"id\":3,\"owner_id\":7,\"name\":\"Casa\",\"latitude\":-23.5505,"
+                + "\"longitude\":-46.6333,\"radius_m\":150,\"active\":true,"
+                + "\"created_at\":\"2025-01-01T00:00:00Z\"}}";
+    }
+
+    static String error() {
+        return "{\"error\":\"pet não encontrado\",\"message\":\"Pet não encontrado.\",\"status\":404}";
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.petsafeweb.benchmark;
+
+import com.example.petsafeweb.config.RestTemplateConfig;
+import com.example.petsafeweb.dto.DevicesListResponse;
+import com.example.petsafeweb.dto.ErrorResponse;
+import com.example.petsafeweb.dto.GeofenceDataResponse;
+import com.example.petsafeweb.dto.PetsListResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a desserialização dos demais DTOs lidos em toda navegação/poll
+ * (dispositivos, pets, geofence) e do ErrorResponse com as duas configurações de ObjectMapper
+ * usadas no projeto: o bean snake_case do RestTemplateConfig e o new ObjectMapper() do PetService/UserService
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoSerializationBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int size;
+
+    private ObjectMapper snakeCaseMapper;
+    private ObjectMapper defaultMapper;
+    private byte[] devicesPayload;
+    private byte[] petsPayload;
+    private byte[] geofencePayload;
+    private byte[] errorPayload;
+
+    @Setup
+    public void setUp() {
+        snakeCaseMapper = new RestTemplateConfig().objectMapper();
+        defaultMapper = new ObjectMapper();
+        devicesPayload = BenchmarkPayloads.devices(size).getBytes(StandardCharsets.UTF_8);
+        petsPayload = BenchmarkPayloads.pets(size).getBytes(StandardCharsets.UTF_8);
+        geofencePayload = BenchmarkPayloads.geofence().getBytes(StandardCharsets.UTF_8);
+        errorPayload = BenchmarkPayloads.error().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public DevicesListResponse devices() throws Exception {
+        return snakeCaseMapper.readValue(devicesPayload, DevicesListResponse.class);
+    }
+
+    @Benchmark
+    public PetsListResponse pets() throws Exception {
+        return snakeCaseMapper.readValue(petsPayload, PetsListResponse.class);
+    }
+
+    @Benchmark
+    public GeofenceDataResponse geofence() throws Exception {
+        return snakeCaseMapper.readValue(geofencePayload, GeofenceDataResponse.class);
+    }
+
+    @Benchmark
+    public ErrorResponse errorWithSnakeCaseMapper() throws Exception {
+        return snakeCaseMapper.readValue(errorPayload, ErrorResponse.class);
+    }
+
+    @Benchmark
+    public ErrorResponse errorWithDefaultMapper() throws Exception {
+        return defaultMapper.readValue(errorPayload, ErrorResponse.class);
+    }
+}
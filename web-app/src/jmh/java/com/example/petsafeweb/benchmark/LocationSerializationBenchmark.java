@@ -0,0 +1,80 @@
+package com.example.petsafeweb.benchmark;
+
+import com.example.petsafeweb.config.RestTemplateConfig;
+import com.example.petsafeweb.dto.LocationListResponse;
+import com.example.petsafeweb.dto.LocationResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a (de)serialização da lista de localizações, o caminho mais quente do mapa ao vivo
+ * Leitura: JSON da API para LocationListResponse (DeviceService.listDeviceLocations)
+ * Escrita: List&lt;LocationResponse&gt; para o JSON entregue ao navegador (/devices/{id}/locations/json)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationSerializationBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int size;
+
+    /**
+     * objectMapper: chamadas diretas ao ObjectMapper (como o RestTemplate faz hoje)
+     * objectReader: ObjectReader/ObjectWriter pré-construídos para o tipo
+     */
+    @Param({"objectMapper", "objectReader"})
+    private String mapperMode;
+
+    private ObjectMapper objectMapper;
+    private ObjectReader listReader;
+    private ObjectWriter listWriter;
+    private byte[] payload;
+    private List<LocationResponse> locations;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new RestTemplateConfig().objectMapper();
+        listReader = objectMapper.readerFor(LocationListResponse.class);
+        listWriter = objectMapper.writerFor(new TypeReference<List<LocationResponse>>() {
+        });
+        payload = BenchmarkPayloads.locations(size).getBytes(StandardCharsets.UTF_8);
+        locations = objectMapper.readValue(payload, LocationListResponse.class).getData();
+    }
+
+    @Benchmark
+    public LocationListResponse deserialize() throws Exception {
+        if ("objectReader".equals(mapperMode)) {
+            return listReader.readValue(payload);
+        }
+        return objectMapper.readValue(payload, LocationListResponse.class);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        if ("objectReader".equals(mapperMode)) {
+            return listWriter.writeValueAsBytes(locations);
+        }
+        return objectMapper.writeValueAsBytes(locations);
+    }
+}
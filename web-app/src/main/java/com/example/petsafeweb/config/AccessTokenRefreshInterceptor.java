@@ -0,0 +1,29 @@
+package com.example.petsafeweb.config;
+
+import com.example.petsafeweb.service.TokenManager;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Renova o token de acesso da sessão antes do controller, se ele estiver perto de vencer
+ * Assim os controllers continuam lendo o atributo accessToken da sessão e recebem sempre um token válido.
+ */
+public class AccessTokenRefreshInterceptor implements HandlerInterceptor {
+
+    private final TokenManager tokenManager;
+
+    public AccessTokenRefreshInterceptor(TokenManager tokenManager) {
+        this.tokenManager = tokenManager;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            tokenManager.currentToken(session);
+        }
+        return true;
+    }
+}
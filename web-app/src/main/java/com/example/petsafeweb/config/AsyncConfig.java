@@ -0,0 +1,30 @@
+package com.example.petsafeweb.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Configuração do executor usado para chamadas paralelas à API
+ * Cada tarefa roda em uma virtual thread, então bloquear no RestTemplate é barato
+ */
+@Configuration
+public class AsyncConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService upstreamExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * O mesmo executor exposto como Scheduler do Reactor, para envolver chamadas bloqueantes em Mono
+     */
+    @Bean
+    public Scheduler upstreamScheduler(ExecutorService upstreamExecutor) {
+        return Schedulers.fromExecutorService(upstreamExecutor, "upstream");
+    }
+}
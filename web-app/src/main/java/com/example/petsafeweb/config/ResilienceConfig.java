@@ -0,0 +1,87 @@
+package com.example.petsafeweb.config;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuração dos circuit breakers e bulkheads da API
+ * Cada endpoint (método + URI template) ganha o seu próprio circuito e limite de concorrência,
+ * de modo que um endpoint lento não derruba os demais
+ */
+@Configuration
+public class ResilienceConfig {
+
+    @Value("${petsafe.resilience.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+
+    @Value("${petsafe.resilience.circuit-breaker.slow-call-rate-threshold:80}")
+    private float slowCallRateThreshold;
+
+    @Value("${petsafe.resilience.circuit-breaker.slow-call-duration-ms:3000}")
+    private long slowCallDurationMs;
+
+    @Value("${petsafe.resilience.circuit-breaker.sliding-window-size:20}")
+    private int slidingWindowSize;
+
+    @Value("${petsafe.resilience.circuit-breaker.minimum-number-of-calls:10}")
+    private int minimumNumberOfCalls;
+
+    @Value("${petsafe.resilience.circuit-breaker.wait-duration-open-ms:30000}")
+    private long waitDurationOpenMs;
+
+    @Value("${petsafe.resilience.circuit-breaker.permitted-calls-half-open:3}")
+    private int permittedCallsHalfOpen;
+
+    @Value("${petsafe.resilience.bulkhead.max-concurrent-calls:25}")
+    private int maxConcurrentCalls;
+
+    @Value("${petsafe.resilience.bulkhead.max-wait-ms:50}")
+    private long bulkheadMaxWaitMs;
+
+    @Bean
+    public CircuitBreakerRegistry upstreamCircuitBreakerRegistry(MeterRegistry meterRegistry) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallDurationMs))
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .waitDurationInOpenState(Duration.ofMillis(waitDurationOpenMs))
+                .permittedNumberOfCallsInHalfOpenState(permittedCallsHalfOpen)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .build();
+
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        // Métricas resilience4j.circuitbreaker.* com a tag name = endpoint
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public BulkheadRegistry upstreamBulkheadRegistry(MeterRegistry meterRegistry) {
+        BulkheadConfig config = BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ofMillis(bulkheadMaxWaitMs))
+                .build();
+
+        BulkheadRegistry registry = BulkheadRegistry.of(config);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public UpstreamGuard upstreamGuard(CircuitBreakerRegistry upstreamCircuitBreakerRegistry,
+                                       BulkheadRegistry upstreamBulkheadRegistry) {
+        return new UpstreamGuard(upstreamCircuitBreakerRegistry, upstreamBulkheadRegistry);
+    }
+}
@@ -4,9 +4,27 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.example.petsafeweb.service.TokenManager;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.InterceptingClientHttpRequestFactory;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
 
@@ -17,6 +35,30 @@ import org.springframework.web.client.RestTemplate;
 @Configuration
 public class RestTemplateConfig {
 
+    @Value("${petsafe.http.pool.max-total:100}")
+    private int maxTotal;
+
+    @Value("${petsafe.http.pool.max-per-route:50}")
+    private int maxPerRoute;
+
+    @Value("${petsafe.http.pool.idle-eviction-ms:30000}")
+    private long idleEvictionMs;
+
+    @Value("${petsafe.http.pool.ttl-ms:300000}")
+    private long timeToLiveMs;
+
+    @Value("${petsafe.http.pool.lease-timeout-ms:5000}")
+    private long leaseTimeoutMs;
+
+    @Value("${petsafe.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${petsafe.http.socket-timeout-ms:10000}")
+    private long socketTimeoutMs;
+
+    @Value("${petsafe.http.keep-alive-ms:30000}")
+    private long keepAliveMs;
+
     @Bean
     public ObjectMapper objectMapper() {
         // Configurar ObjectMapper para lidar com snake_case
@@ -30,12 +72,104 @@ public class RestTemplateConfig {
         return objectMapper;
     }
 
+    /**
+     * Pool de conexões compartilhado por todos os services que falam com a API
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager() {
+        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setSocketTimeout(Timeout.ofMilliseconds(socketTimeoutMs))
+                .setTimeToLive(TimeValue.ofMilliseconds(timeToLiveMs))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build();
+
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(connectionConfig)
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(defaultRequestConfig())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictionMs))
+                .build();
+    }
+
+    /**
+     * Cliente do proxy de passagem ({@link com.example.petsafeweb.service.UpstreamProxy}): sem descompactação
+     * automática, para repassar o gzip da API intacto ao navegador
+     * Usa o mesmo pool; os demais chamadores continuam recebendo os corpos já descompactados.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient passthroughHttpClient(PoolingHttpClientConnectionManager httpConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                // O pool é fechado pelo cliente principal
+                .setConnectionManagerShared(true)
+                .setDefaultRequestConfig(defaultRequestConfig())
+                .disableContentCompression()
+                .build();
+    }
+
+    /**
+     * Fábrica de requisições do proxy de passagem, com os mesmos interceptors do RestTemplate
+     * (resiliência, métricas e renovação do token)
+     */
+    @Bean
+    public ClientHttpRequestFactory passthroughRequestFactory(
+            @Qualifier("passthroughHttpClient") CloseableHttpClient passthroughHttpClient, RestTemplate restTemplate) {
+        HttpComponentsClientHttpRequestFactory requestFactory =
+                new HttpComponentsClientHttpRequestFactory(passthroughHttpClient);
+        requestFactory.setConnectionRequestTimeout((int) leaseTimeoutMs);
+        return new InterceptingClientHttpRequestFactory(requestFactory, restTemplate.getInterceptors());
+    }
+
+    private RequestConfig defaultRequestConfig() {
+        // Keep-alive padrão usado quando a API não envia o cabeçalho Keep-Alive
+        return RequestConfig.custom()
+                .setConnectionKeepAlive(TimeValue.ofMilliseconds(keepAliveMs))
+                .build();
+    }
+
+    /**
+     * Exporta o estado do pool (conexões em uso, pendentes e livres) como métricas
+     */
     @Bean
-    public RestTemplate restTemplate(ObjectMapper objectMapper) {
+    public MeterBinder httpConnectionPoolMetrics(PoolingHttpClientConnectionManager httpConnectionManager) {
+        return registry -> {
+            Gauge.builder("petsafe.http.pool.leased", httpConnectionManager,
+                            manager -> manager.getTotalStats().getLeased())
+                    .description("Conexões com a API atualmente em uso")
+                    .register(registry);
+            Gauge.builder("petsafe.http.pool.pending", httpConnectionManager,
+                            manager -> manager.getTotalStats().getPending())
+                    .description("Requisições aguardando uma conexão livre")
+                    .register(registry);
+            Gauge.builder("petsafe.http.pool.available", httpConnectionManager,
+                            manager -> manager.getTotalStats().getAvailable())
+                    .description("Conexões ociosas prontas para reuso")
+                    .register(registry);
+            Gauge.builder("petsafe.http.pool.max", httpConnectionManager,
+                            manager -> manager.getTotalStats().getMax())
+                    .description("Tamanho máximo do pool")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public RestTemplate restTemplate(ObjectMapper objectMapper, CloseableHttpClient httpClient,
+                                     MeterRegistry meterRegistry, UpstreamGuard upstreamGuard,
+                                     ObjectProvider<TokenManager> tokenManager) {
         // Usar HttpComponentsClientHttpRequestFactory para suportar todos os métodos HTTP incluindo PATCH
-        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory();
-        requestFactory.setConnectTimeout(5000);
-        requestFactory.setConnectionRequestTimeout(5000);
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setConnectionRequestTimeout((int) leaseTimeoutMs);
 
         RestTemplate restTemplate = new RestTemplate(requestFactory);
 
@@ -47,6 +181,15 @@ public class RestTemplateConfig {
         restTemplate.getMessageConverters().removeIf(m -> m instanceof MappingJackson2HttpMessageConverter);
         restTemplate.getMessageConverters().add(converter);
 
+        // Circuit breaker/bulkhead por endpoint (primeiro: chamadas recusadas não chegam às métricas de latência)
+        restTemplate.getInterceptors().add(new UpstreamResilienceInterceptor(upstreamGuard));
+
+        // Métricas de latência por endpoint da API
+        restTemplate.getInterceptors().add(new UpstreamMetricsInterceptor(meterRegistry));
+
+        // Renova o token e repete a chamada recusada com 401 (último: a repetição conta como uma chamada)
+        restTemplate.getInterceptors().add(new UpstreamAuthRetryInterceptor(tokenManager));
+
         return restTemplate;
     }
 }
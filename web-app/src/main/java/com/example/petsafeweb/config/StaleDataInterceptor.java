@@ -0,0 +1,27 @@
+package com.example.petsafeweb.config;
+
+import com.example.petsafeweb.service.LastKnownGoodCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Expõe ao template (atributo staleData) que a página foi montada com a última resposta válida da API
+ * O aviso é exibido no cabeçalho (fragments/header)
+ */
+public class StaleDataInterceptor implements HandlerInterceptor {
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (modelAndView == null || !LastKnownGoodCache.isStale(request)) {
+            return;
+        }
+        String viewName = modelAndView.getViewName();
+        if (viewName != null && viewName.startsWith("redirect:")) {
+            return;
+        }
+        modelAndView.addObject("staleData", true);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.petsafeweb.config;
+
+import com.example.petsafeweb.service.TokenManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Equivalente do UpstreamAuthRetryInterceptor para o WebClient (mesmas regras sobre o que pode ser repetido)
+ * A renovação do token é bloqueante (lock por sessão + RestTemplate), então roda no boundedElastic.
+ */
+public class UpstreamAuthRetryExchangeFilter implements ExchangeFilterFunction {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final ObjectProvider<TokenManager> tokenManager;
+
+    public UpstreamAuthRetryExchangeFilter(ObjectProvider<TokenManager> tokenManager) {
+        this.tokenManager = tokenManager;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        String authorization = request.headers().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)
+                || !UpstreamAuthRetryInterceptor.isRetryable(request.method(), request.url())) {
+            return next.exchange(request);
+        }
+        String token = authorization.substring(BEARER_PREFIX.length());
+
+        return next.exchange(request).flatMap(response -> {
+            if (response.statusCode().value() != HttpStatus.UNAUTHORIZED.value()) {
+                return Mono.just(response);
+            }
+            return Mono.fromCallable(() -> tokenManager.getObject().refreshAfterUnauthorized(token))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(renewedToken -> response.releaseBody()
+                            .then(next.exchange(ClientRequest.from(request)
+                                    .headers(headers -> headers.setBearerAuth(renewedToken))
+                                    .build())))
+                    // Sem token novo: o 401 original segue para o service
+                    .switchIfEmpty(Mono.just(response));
+        });
+    }
+}
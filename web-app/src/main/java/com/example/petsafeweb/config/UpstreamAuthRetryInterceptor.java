@@ -0,0 +1,83 @@
+package com.example.petsafeweb.config;
+
+import com.example.petsafeweb.service.TokenManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.support.HttpRequestWrapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Set;
+
+/**
+ * Interceptor que repete uma vez, com o token renovado, a leitura recusada com 401 por token vencido
+ * Só leituras (GET/HEAD) são repetidas: uma escrita recusada pode ter outro motivo e não deve ser reenviada.
+ * Endpoints que conferem credenciais (ex.: PATCH /me/password responde 401 para a senha atual errada) nunca são
+ * repetidos, e o TokenManager só renova um token que está de fato vencendo.
+ * Deve ser o último da cadeia: a repetição vai direto para a API e passa pelas métricas e pelo circuit breaker
+ * como uma única chamada. O TokenManager é obtido sob demanda porque ele próprio usa o RestTemplate.
+ */
+public class UpstreamAuthRetryInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final Set<HttpMethod> REPLAY_SAFE_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD);
+    // Respondem 401 para credenciais erradas, não para token vencido
+    private static final Set<String> CREDENTIAL_PATH_SUFFIXES = Set.of("/password", "/auth/login", "/auth/refresh");
+
+    private final ObjectProvider<TokenManager> tokenManager;
+
+    public UpstreamAuthRetryInterceptor(ObjectProvider<TokenManager> tokenManager) {
+        this.tokenManager = tokenManager;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        ClientHttpResponse response = execution.execute(request, body);
+
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (response.getStatusCode().value() != HttpStatus.UNAUTHORIZED.value()
+                || authorization == null || !authorization.startsWith(BEARER_PREFIX)
+                || !isRetryable(request.getMethod(), request.getURI())) {
+            return response;
+        }
+
+        String renewedToken = tokenManager.getObject()
+                .refreshAfterUnauthorized(authorization.substring(BEARER_PREFIX.length()));
+        if (renewedToken == null) {
+            return response; // Sem refresh token válido: o 401 segue para o controller (volta ao login)
+        }
+
+        response.close();
+        return execution.execute(withBearer(request, renewedToken), body);
+    }
+
+    /**
+     * Se uma chamada recusada com 401 pode ser repetida com um token novo (também usado pelo filtro do WebClient)
+     */
+    static boolean isRetryable(HttpMethod method, URI uri) {
+        if (!REPLAY_SAFE_METHODS.contains(method)) {
+            return false;
+        }
+        String path = uri.getPath() != null ? uri.getPath() : "";
+        return CREDENTIAL_PATH_SUFFIXES.stream().noneMatch(path::endsWith);
+    }
+
+    private static HttpRequest withBearer(HttpRequest request, String accessToken) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(request.getHeaders());
+        headers.setBearerAuth(accessToken);
+        return new HttpRequestWrapper(request) {
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        };
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.petsafeweb.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Circuit breaker + bulkhead por endpoint da API, compartilhado pelo RestTemplate e pelo WebClient
+ * O nome de cada endpoint é "MÉTODO /uri/{template}" (ex.: "GET /api/v1/devices/{id}/status")
+ * Falhas de rede e respostas 5xx contam como erro; respostas 4xx contam como sucesso
+ */
+public class UpstreamGuard {
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+
+    public UpstreamGuard(CircuitBreakerRegistry circuitBreakerRegistry, BulkheadRegistry bulkheadRegistry) {
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.bulkheadRegistry = bulkheadRegistry;
+    }
+
+    /**
+     * Obtém permissão para chamar o endpoint
+     *
+     * @param mayWait Se pode aguardar (até max-wait-ms) por uma vaga no bulkhead; false em threads não bloqueantes
+     * @throws UpstreamRejectedException Se o circuito estiver aberto ou o bulkhead estiver cheio
+     */
+    public Permit acquire(String method, URI uri, boolean mayWait) throws UpstreamRejectedException {
+        String name = method + " " + UpstreamUriTemplate.of(uri);
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(name);
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(name);
+
+        try {
+            circuitBreaker.acquirePermission();
+        } catch (CallNotPermittedException e) {
+            throw new UpstreamRejectedException("Circuito aberto para " + name, e);
+        }
+
+        try {
+            if (mayWait) {
+                bulkhead.acquirePermission();
+            } else if (!bulkhead.tryAcquirePermission()) {
+                throw BulkheadFullException.createBulkheadFullException(bulkhead);
+            }
+        } catch (BulkheadFullException e) {
+            circuitBreaker.releasePermission();
+            throw new UpstreamRejectedException("Limite de chamadas simultâneas atingido para " + name, e);
+        }
+
+        return new Permit(circuitBreaker, bulkhead);
+    }
+
+    /**
+     * Permissão de uma chamada em andamento; deve ser finalizada exatamente uma vez
+     */
+    public static final class Permit {
+
+        private final CircuitBreaker circuitBreaker;
+        private final Bulkhead bulkhead;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+
+        private Permit(CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+            this.circuitBreaker = circuitBreaker;
+            this.bulkhead = bulkhead;
+        }
+
+        public void completed(int status) {
+            if (status >= 500) {
+                failed(new IOException("Resposta " + status + " da API"));
+                return;
+            }
+            if (finished.compareAndSet(false, true)) {
+                circuitBreaker.onSuccess(elapsedNanos(), TimeUnit.NANOSECONDS);
+                bulkhead.onComplete();
+            }
+        }
+
+        public void failed(Throwable error) {
+            if (finished.compareAndSet(false, true)) {
+                circuitBreaker.onError(elapsedNanos(), TimeUnit.NANOSECONDS, error);
+                bulkhead.onComplete();
+            }
+        }
+
+        /**
+         * Chamada abandonada antes da resposta (ex.: cancelamento): não conta nem como sucesso nem como erro
+         */
+        public void cancelled() {
+            if (finished.compareAndSet(false, true)) {
+                circuitBreaker.releasePermission();
+                bulkhead.onComplete();
+            }
+        }
+
+        private long elapsedNanos() {
+            return System.nanoTime() - startNanos;
+        }
+    }
+}
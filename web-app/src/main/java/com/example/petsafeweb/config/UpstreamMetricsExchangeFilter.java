@@ -0,0 +1,62 @@
+package com.example.petsafeweb.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Equivalente do UpstreamMetricsInterceptor para o WebClient
+ * Registra o mesmo timer petsafe.upstream.requests, com as mesmas tags, para os dois clientes
+ */
+public class UpstreamMetricsExchangeFilter implements ExchangeFilterFunction {
+
+    private static final String METRIC_NAME = "petsafe.upstream.requests";
+
+    private final MeterRegistry meterRegistry;
+
+    public UpstreamMetricsExchangeFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            AtomicReference<String> status = new AtomicReference<>("IO_ERROR");
+            AtomicReference<String> outcome = new AtomicReference<>("UNKNOWN");
+
+            return next.exchange(request)
+                    .doOnNext(response -> {
+                        int code = response.statusCode().value();
+                        status.set(String.valueOf(code));
+                        outcome.set(outcomeOf(code));
+                    })
+                    .doFinally(signal -> sample.stop(Timer.builder(METRIC_NAME)
+                            .description("Latência das chamadas à API PetSafe")
+                            .tag("uri", UpstreamUriTemplate.of(request.url()))
+                            .tag("method", request.method().name())
+                            .tag("status", status.get())
+                            .tag("outcome", outcome.get())
+                            .register(meterRegistry)));
+        });
+    }
+
+    private static String outcomeOf(int code) {
+        if (code >= 500) {
+            return "SERVER_ERROR";
+        }
+        if (code >= 400) {
+            return "CLIENT_ERROR";
+        }
+        if (code >= 300) {
+            return "REDIRECTION";
+        }
+        return code >= 200 ? "SUCCESS" : "INFORMATIONAL";
+    }
+}
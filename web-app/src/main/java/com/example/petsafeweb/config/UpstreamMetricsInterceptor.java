@@ -0,0 +1,62 @@
+package com.example.petsafeweb.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Interceptor que mede a latência de cada chamada à API
+ * Registra o timer petsafe.upstream.requests com as tags uri (template), method, status e outcome
+ */
+public class UpstreamMetricsInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final String METRIC_NAME = "petsafe.upstream.requests";
+
+    private final MeterRegistry meterRegistry;
+
+    public UpstreamMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String status = "IO_ERROR";
+        String outcome = "UNKNOWN";
+
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            int code = response.getStatusCode().value();
+            status = String.valueOf(code);
+            outcome = outcomeOf(code);
+            return response;
+        } finally {
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .description("Latência das chamadas à API PetSafe")
+                    .tag("uri", UpstreamUriTemplate.of(request.getURI()))
+                    .tag("method", request.getMethod().name())
+                    .tag("status", status)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String outcomeOf(int code) {
+        if (code >= 500) {
+            return "SERVER_ERROR";
+        }
+        if (code >= 400) {
+            return "CLIENT_ERROR";
+        }
+        if (code >= 300) {
+            return "REDIRECTION";
+        }
+        return code >= 200 ? "SUCCESS" : "INFORMATIONAL";
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.petsafeweb.config;
+
+import java.io.IOException;
+
+/**
+ * Chamada à API recusada localmente (circuito aberto ou bulkhead cheio), sem tocar a rede
+ * É uma IOException para seguir o mesmo caminho de uma falha de conexão no RestTemplate
+ */
+public class UpstreamRejectedException extends IOException {
+
+    public UpstreamRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
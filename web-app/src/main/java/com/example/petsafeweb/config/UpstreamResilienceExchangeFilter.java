@@ -0,0 +1,37 @@
+package com.example.petsafeweb.config;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * Equivalente do UpstreamResilienceInterceptor para o WebClient
+ * Nunca aguarda vaga no bulkhead, para não bloquear as threads do Reactor Netty
+ */
+public class UpstreamResilienceExchangeFilter implements ExchangeFilterFunction {
+
+    private final UpstreamGuard upstreamGuard;
+
+    public UpstreamResilienceExchangeFilter(UpstreamGuard upstreamGuard) {
+        this.upstreamGuard = upstreamGuard;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.defer(() -> {
+            UpstreamGuard.Permit permit;
+            try {
+                permit = upstreamGuard.acquire(request.method().name(), request.url(), false);
+            } catch (UpstreamRejectedException e) {
+                return Mono.error(e);
+            }
+
+            return next.exchange(request)
+                    .doOnNext(response -> permit.completed(response.statusCode().value()))
+                    .doOnError(permit::failed)
+                    .doOnCancel(permit::cancelled);
+        });
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.petsafeweb.config;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Interceptor que aplica o circuit breaker e o bulkhead do endpoint a cada chamada do RestTemplate
+ * Com o circuito aberto a chamada falha na hora (UpstreamRejectedException), sem esperar o timeout da API
+ */
+public class UpstreamResilienceInterceptor implements ClientHttpRequestInterceptor {
+
+    private final UpstreamGuard upstreamGuard;
+
+    public UpstreamResilienceInterceptor(UpstreamGuard upstreamGuard) {
+        this.upstreamGuard = upstreamGuard;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        UpstreamGuard.Permit permit = upstreamGuard.acquire(request.getMethod().name(), request.getURI(), true);
+
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            permit.completed(response.getStatusCode().value());
+            return response;
+        } catch (IOException | RuntimeException e) {
+            permit.failed(e);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.petsafeweb.config;
+
+import java.net.URI;
+
+/**
+ * Converte URLs concretas da API em templates de baixa cardinalidade
+ * Ex.: /api/v1/devices/42/locations/10 vira /api/v1/devices/{id}/locations/{limit}
+ */
+public final class UpstreamUriTemplate {
+
+    private UpstreamUriTemplate() {
+    }
+
+    public static String of(URI uri) {
+        String path = uri.getPath();
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+
+        String[] segments = path.split("/");
+        StringBuilder template = new StringBuilder();
+        String previous = "";
+        for (String segment : segments) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            template.append('/');
+            if (isNumeric(segment)) {
+                // Em /locations/{n} o número é o limite, nos demais casos é um ID
+                template.append("locations".equals(previous) ? "{limit}" : "{id}");
+            } else {
+                template.append(segment);
+            }
+            previous = segment;
+        }
+        return template.length() > 0 ? template.toString() : "/";
+    }
+
+    private static boolean isNumeric(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
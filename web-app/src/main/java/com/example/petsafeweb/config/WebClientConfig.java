@@ -0,0 +1,83 @@
+package com.example.petsafeweb.config;
+
+import com.example.petsafeweb.service.TokenManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Configuração do WebClient (Reactor Netty) usado como cliente não bloqueante da API
+ * Só é ativada com petsafe.api.client=webclient; usa os mesmos limites de pool e timeouts do RestTemplate
+ */
+@Configuration
+@ConditionalOnProperty(name = "petsafe.api.client", havingValue = "webclient")
+public class WebClientConfig {
+
+    @Value("${petsafe.api.base-url}")
+    private String apiBaseUrl;
+
+    @Value("${petsafe.http.pool.max-total:100}")
+    private int maxTotal;
+
+    @Value("${petsafe.http.pool.idle-eviction-ms:30000}")
+    private long idleEvictionMs;
+
+    @Value("${petsafe.http.pool.ttl-ms:300000}")
+    private long timeToLiveMs;
+
+    @Value("${petsafe.http.pool.lease-timeout-ms:5000}")
+    private long leaseTimeoutMs;
+
+    @Value("${petsafe.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${petsafe.http.socket-timeout-ms:10000}")
+    private long socketTimeoutMs;
+
+    /**
+     * Pool de conexões do Reactor Netty (métricas reactor.netty.connection.provider.*)
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider upstreamConnectionProvider() {
+        return ConnectionProvider.builder("petsafe-api")
+                .maxConnections(maxTotal)
+                .pendingAcquireTimeout(Duration.ofMillis(leaseTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(idleEvictionMs))
+                .maxLifeTime(Duration.ofMillis(timeToLiveMs))
+                .evictInBackground(Duration.ofMillis(idleEvictionMs))
+                .metrics(true)
+                .build();
+    }
+
+    /**
+     * O WebClient.Builder do Spring Boot já vem com os codecs do ObjectMapper snake_case
+     */
+    @Bean
+    public WebClient upstreamWebClient(WebClient.Builder webClientBuilder,
+                                       ConnectionProvider upstreamConnectionProvider,
+                                       MeterRegistry meterRegistry,
+                                       UpstreamGuard upstreamGuard,
+                                       ObjectProvider<TokenManager> tokenManager) {
+        HttpClient httpClient = HttpClient.create(upstreamConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(socketTimeoutMs));
+
+        return webClientBuilder
+                .baseUrl(apiBaseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(new UpstreamResilienceExchangeFilter(upstreamGuard))
+                .filter(new UpstreamMetricsExchangeFilter(meterRegistry))
+                .filter(new UpstreamAuthRetryExchangeFilter(tokenManager))
+                .build();
+    }
+}
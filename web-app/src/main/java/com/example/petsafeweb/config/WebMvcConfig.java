@@ -0,0 +1,26 @@
+package com.example.petsafeweb.config;
+
+import com.example.petsafeweb.service.TokenManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuração do Spring MVC
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final TokenManager tokenManager;
+
+    public WebMvcConfig(TokenManager tokenManager) {
+        this.tokenManager = tokenManager;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AccessTokenRefreshInterceptor(tokenManager))
+                .excludePathPatterns("/css/**", "/js/**", "/images/**");
+        registry.addInterceptor(new StaleDataInterceptor());
+    }
+}
@@ -1,13 +1,23 @@
 package com.example.petsafeweb.controller;
 
 import com.example.petsafeweb.service.AlertService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.petsafeweb.service.AlertStreamService;
+import com.example.petsafeweb.service.DashboardChangedEvent;
+import com.example.petsafeweb.service.DashboardSection;
+import com.example.petsafeweb.service.ReactiveAlertService;
+import com.example.petsafeweb.service.UpstreamProxy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -18,40 +28,79 @@ import java.util.Map;
 public class AlertController {
 
     private final AlertService alertService;
-    private final RestTemplate restTemplate;
+    private final AlertStreamService alertStreamService;
+    private final UpstreamProxy upstreamProxy;
+    private final ObjectProvider<ReactiveAlertService> reactiveAlertService;
+    private final Scheduler upstreamScheduler;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${petsafe.api.base-url}")
     private String apiBaseUrl;
 
-    public AlertController(AlertService alertService, RestTemplate restTemplate) {
+    public AlertController(AlertService alertService, AlertStreamService alertStreamService,
+                           UpstreamProxy upstreamProxy, ObjectProvider<ReactiveAlertService> reactiveAlertService,
+                           Scheduler upstreamScheduler, ApplicationEventPublisher eventPublisher) {
         this.alertService = alertService;
-        this.restTemplate = restTemplate;
+        this.alertStreamService = alertStreamService;
+        this.upstreamProxy = upstreamProxy;
+        this.reactiveAlertService = reactiveAlertService;
+        this.upstreamScheduler = upstreamScheduler;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * Retorna a contagem de alertas não lidos
+     * A resposta é assíncrona: a thread do Tomcat é liberada enquanto a API responde
+     * O ETag é a própria contagem: se não mudou desde o último polling, a resposta é 304 sem corpo
      */
     @GetMapping("/count")
-    public ResponseEntity<Map<String, Integer>> getUnreadAlertsCount(HttpSession session) {
+    public Mono<ResponseEntity<Map<String, Integer>>> getUnreadAlertsCount(HttpSession session) {
         String accessToken = (String) session.getAttribute("accessToken");
         if (accessToken == null) {
             Map<String, Integer> response = new HashMap<>();
             response.put("count", 0);
-            return ResponseEntity.ok(response);
+            return Mono.just(ResponseEntity.ok(response));
         }
 
-        Integer count = alertService.getUnreadAlertsCount(accessToken);
-        Map<String, Integer> response = new HashMap<>();
-        response.put("count", count);
+        ReactiveAlertService reactive = reactiveAlertService.getIfAvailable();
+        Mono<Integer> count = reactive != null
+                ? reactive.getUnreadAlertsCount(accessToken)
+                : Mono.fromCallable(() -> alertService.getUnreadAlertsCount(accessToken))
+                        .subscribeOn(upstreamScheduler);
 
-        return ResponseEntity.ok(response);
+        return count.map(value -> {
+            Map<String, Integer> response = new HashMap<>();
+            response.put("count", value);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .eTag("count-" + value)
+                    .body(response);
+        });
+    }
+
+    /**
+     * Stream (Server-Sent Events) com a contagem de alertas não lidos
+     * Todas as abas do mesmo usuário compartilham um único poller da API
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamUnreadAlertsCount(HttpSession session) {
+        Long userId = (Long) session.getAttribute("userId");
+        String accessToken = (String) session.getAttribute("accessToken");
+        if (userId == null || accessToken == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        return ResponseEntity.ok(alertStreamService.subscribe(userId, session));
     }
 
     /**
      * Proxy para buscar todos os alertas
+     * O corpo da API é repassado ao navegador sem desserialização; respostas iguais à que o navegador já tem
+     * viram 304 (ETag da API, quando existir, ou calculado sobre o corpo)
      */
     @GetMapping
-    public ResponseEntity<?> listAlerts(HttpSession session) {
+    public ResponseEntity<?> listAlerts(HttpSession session, HttpServletRequest request,
+                                        HttpServletResponse response) {
         String accessToken = (String) session.getAttribute("accessToken");
         if (accessToken == null) {
             return ResponseEntity.ok(Map.of("data", new Object[]{}));
@@ -59,23 +108,14 @@ public class AlertController {
 
         try {
             String url = apiBaseUrl + "/api/v1/alerts";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(accessToken);
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-
-            ResponseEntity<Map> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                requestEntity,
-                Map.class
-            );
-
-            return ResponseEntity.ok(response.getBody());
+            upstreamProxy.forwardConditional(url, accessToken, request, response);
+            return null;
         } catch (Exception e) {
             log.error("Erro ao buscar alertas", e);
+            if (response.isCommitted()) {
+                return null;
+            }
+            response.reset();
             return ResponseEntity.ok(Map.of("data", new Object[]{}));
         }
     }
@@ -84,7 +124,8 @@ public class AlertController {
      * Proxy para marcar alerta como lido
      */
     @PatchMapping("/{id}/read")
-    public ResponseEntity<?> markAsRead(@PathVariable Long id, HttpSession session) {
+    public ResponseEntity<?> markAsRead(@PathVariable Long id, HttpSession session, HttpServletRequest request,
+                                        HttpServletResponse response) {
         String accessToken = (String) session.getAttribute("accessToken");
         if (accessToken == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not authenticated"));
@@ -92,23 +133,19 @@ public class AlertController {
 
         try {
             String url = apiBaseUrl + "/api/v1/alerts/" + id + "/read";
+            int status = upstreamProxy.forward(HttpMethod.PATCH, url, accessToken, request, response);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(accessToken);
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-
-            ResponseEntity<Map> response = restTemplate.exchange(
-                url,
-                HttpMethod.PATCH,
-                requestEntity,
-                Map.class
-            );
-
-            return ResponseEntity.ok(response.getBody());
+            // Atualiza a contagem nas outras abas do usuário
+            if (HttpStatus.valueOf(status).is2xxSuccessful()) {
+                refreshStream(session);
+            }
+            return null;
         } catch (Exception e) {
             log.error("Erro ao marcar alerta como lido", e);
+            if (response.isCommitted()) {
+                return null;
+            }
+            response.reset();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(Map.of("error", e.getMessage()));
         }
@@ -118,7 +155,8 @@ public class AlertController {
      * Proxy para marcar todos os alertas como lidos
      */
     @PatchMapping("/read-all")
-    public ResponseEntity<?> markAllAsRead(HttpSession session) {
+    public ResponseEntity<?> markAllAsRead(HttpSession session, HttpServletRequest request,
+                                           HttpServletResponse response) {
         String accessToken = (String) session.getAttribute("accessToken");
         if (accessToken == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not authenticated"));
@@ -126,25 +164,31 @@ public class AlertController {
 
         try {
             String url = apiBaseUrl + "/api/v1/alerts/read-all";
+            int status = upstreamProxy.forward(HttpMethod.PATCH, url, accessToken, request, response);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(accessToken);
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-
-            ResponseEntity<Map> response = restTemplate.exchange(
-                url,
-                HttpMethod.PATCH,
-                requestEntity,
-                Map.class
-            );
-
-            return ResponseEntity.ok(response.getBody());
+            // Atualiza a contagem nas outras abas do usuário
+            if (HttpStatus.valueOf(status).is2xxSuccessful()) {
+                refreshStream(session);
+            }
+            return null;
         } catch (Exception e) {
             log.error("Erro ao marcar todos alertas como lidos", e);
+            if (response.isCommitted()) {
+                return null;
+            }
+            response.reset();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(Map.of("error", e.getMessage()));
         }
     }
+
+    private void refreshStream(HttpSession session) {
+        String accessToken = (String) session.getAttribute("accessToken");
+        eventPublisher.publishEvent(new DashboardChangedEvent(accessToken, DashboardSection.ALERTS));
+
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId != null) {
+            alertStreamService.refresh(userId);
+        }
+    }
 }
@@ -0,0 +1,50 @@
+package com.example.petsafeweb.controller;
+
+import com.example.petsafeweb.dto.DashboardSnapshot;
+import com.example.petsafeweb.service.DashboardSection;
+import com.example.petsafeweb.service.DashboardService;
+import com.example.petsafeweb.service.UpstreamResult;
+import jakarta.servlet.http.HttpSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Endpoint agregado com pets, dispositivos, área segura e alertas não lidos do usuário
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+
+    private final DashboardService dashboardService;
+
+    public DashboardController(DashboardService dashboardService) {
+        this.dashboardService = dashboardService;
+    }
+
+    /**
+     * Retorna o snapshot do painel; só as partes ausentes ou invalidadas são buscadas na API
+     */
+    @GetMapping
+    public ResponseEntity<?> getDashboard(HttpSession session) {
+        String accessToken = (String) session.getAttribute("accessToken");
+        if (accessToken == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not authenticated"));
+        }
+
+        return switch (dashboardService.getSnapshot(accessToken, DashboardSection.PETS, DashboardSection.DEVICES)) {
+            case UpstreamResult.Success<DashboardSnapshot> success -> ResponseEntity.ok(success.value());
+            case UpstreamResult.Failure<DashboardSnapshot> failure -> {
+                log.error("Erro ao carregar painel: {}", failure.message());
+                HttpStatus status = failure.isSessionExpired() ? HttpStatus.UNAUTHORIZED : HttpStatus.BAD_GATEWAY;
+                yield ResponseEntity.status(status).body(Map.of("error", failure.message()));
+            }
+        };
+    }
+}
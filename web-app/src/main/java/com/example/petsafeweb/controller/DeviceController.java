@@ -1,19 +1,48 @@
 package com.example.petsafeweb.controller;
 
+import com.example.petsafeweb.dto.DashboardSnapshot;
 import com.example.petsafeweb.dto.DeviceRequest;
 import com.example.petsafeweb.dto.DeviceResponse;
 import com.example.petsafeweb.dto.GeofenceResponse;
 import com.example.petsafeweb.dto.LocationResponse;
+import com.example.petsafeweb.service.DashboardSection;
+import com.example.petsafeweb.service.DashboardService;
+import com.example.petsafeweb.service.DeviceClusterer;
 import com.example.petsafeweb.service.DeviceService;
 import com.example.petsafeweb.service.GeofenceService;
+import com.example.petsafeweb.service.LocationExportFormat;
+import com.example.petsafeweb.service.LocationExportWriter;
+import com.example.petsafeweb.service.LocationHistoryStream;
+import com.example.petsafeweb.service.PolylineEncoder;
+import com.example.petsafeweb.service.LocationFeedService;
+import com.example.petsafeweb.service.ReactiveDeviceService;
+import com.example.petsafeweb.service.TrajectorySimplifier;
+import com.example.petsafeweb.service.UpstreamCalls;
+import com.example.petsafeweb.service.UpstreamFailureException;
+import com.example.petsafeweb.service.UpstreamResult;
+import com.example.petsafeweb.service.UpstreamTaskScope;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpSession;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import reactor.core.publisher.Mono;
 
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controller para gerenciamento de dispositivos
@@ -25,10 +54,39 @@ public class DeviceController {
 
     private final DeviceService deviceService;
     private final GeofenceService geofenceService;
-
-    public DeviceController(DeviceService deviceService, GeofenceService geofenceService) {
+    private final LocationFeedService locationFeedService;
+    private final ObjectProvider<ReactiveDeviceService> reactiveDeviceService;
+    private final UpstreamCalls upstreamCalls;
+    private final TrajectorySimplifier trajectorySimplifier;
+    private final ObjectMapper objectMapper;
+    private final DashboardService dashboardService;
+    private final DeviceClusterer deviceClusterer;
+
+    // Máximo de pontos históricos pedidos à API por requisição (o trajeto é simplificado antes do envio)
+    @Value("${petsafe.locations.history.max-limit:5000}")
+    private int historyMaxLimit;
+
+    // Pontos históricos carregados para o trajeto do mapa de detalhes
+    @Value("${petsafe.locations.history.map-limit:1000}")
+    private int historyMapLimit;
+
+    // Máximo de pontos de uma exportação (o histórico é transmitido ponto a ponto, sem ficar em memória)
+    @Value("${petsafe.locations.export.max-limit:100000}")
+    private int exportMaxLimit;
+
+    public DeviceController(DeviceService deviceService, GeofenceService geofenceService,
+            LocationFeedService locationFeedService, ObjectProvider<ReactiveDeviceService> reactiveDeviceService,
+            UpstreamCalls upstreamCalls, TrajectorySimplifier trajectorySimplifier, ObjectMapper objectMapper,
+            DashboardService dashboardService, DeviceClusterer deviceClusterer) {
         this.deviceService = deviceService;
         this.geofenceService = geofenceService;
+        this.locationFeedService = locationFeedService;
+        this.reactiveDeviceService = reactiveDeviceService;
+        this.upstreamCalls = upstreamCalls;
+        this.trajectorySimplifier = trajectorySimplifier;
+        this.objectMapper = objectMapper;
+        this.dashboardService = dashboardService;
+        this.deviceClusterer = deviceClusterer;
     }
 
     private String checkAuth(HttpSession session, RedirectAttributes redirectAttributes) {
@@ -53,35 +111,69 @@ public class DeviceController {
 
         String accessToken = (String) session.getAttribute("accessToken");
 
-        try {
-            // VERIFICA SE O USUÁRIO JÁ CADASTROU UM GEOFENCE
-            GeofenceResponse geofence = geofenceService.getGeofence(accessToken);
-            if (geofence == null) {
-                redirectAttributes.addFlashAttribute("warning",
-                    "Você primeiro precisa cadastrar uma área segura antes de cadastrar um dispositivo.");
-                return "redirect:/area-segura";
-            }
-
-            List<DeviceResponse> devices = deviceService.listDevices(accessToken);
-
-            model.addAttribute("devices", devices != null ? devices : List.of());
-            model.addAttribute("deviceRequest", new DeviceRequest());
-
-            return "devices"; // Nome do seu template Thymeleaf/JSP
+        // Geofence e lista de dispositivos vêm do snapshot do painel (partes ausentes são buscadas em paralelo)
+        UpstreamResult<DashboardSnapshot> result = dashboardService.getSnapshot(accessToken,
+                DashboardSection.GEOFENCE, DashboardSection.DEVICES);
 
-        } catch (Exception e) {
-            log.error("Erro ao carregar página de dispositivos: {}", e.getMessage(), e);
+        if (result instanceof UpstreamResult.Failure<DashboardSnapshot> failure) {
+            log.error("Erro ao carregar página de dispositivos: {}", failure.message());
 
-            if (e.getMessage().contains("Sessão expirada")) {
-                redirectAttributes.addFlashAttribute("error", e.getMessage());
+            if (failure.isSessionExpired()) {
+                redirectAttributes.addFlashAttribute("error", failure.message());
                 return "redirect:/login";
             }
 
-            model.addAttribute("error", e.getMessage());
+            model.addAttribute("error", failure.message());
             model.addAttribute("devices", List.of());
             model.addAttribute("deviceRequest", new DeviceRequest());
             return "devices";
         }
+
+        DashboardSnapshot snapshot = result.orElseThrow();
+
+        // VERIFICA SE O USUÁRIO JÁ CADASTROU UM GEOFENCE
+        GeofenceResponse geofence = snapshot.getGeofence();
+        if (geofence == null) {
+            redirectAttributes.addFlashAttribute("warning",
+                "Você primeiro precisa cadastrar uma área segura antes de cadastrar um dispositivo.");
+            return "redirect:/area-segura";
+        }
+
+        List<DeviceResponse> devices = snapshot.getDevices();
+
+        model.addAttribute("devices", devices != null ? devices : List.of());
+        model.addAttribute("deviceRequest", new DeviceRequest());
+
+        return "devices"; // Nome do seu template Thymeleaf/JSP
+    }
+
+    /**
+     * Mapa geral: última posição de todos os dispositivos em um único GeoJSON, agrupada em clusters conforme o zoom.
+     * Usa a lista de dispositivos do snapshot do painel (nenhuma chamada por dispositivo).
+     */
+    @GetMapping(path = "/map", produces = "application/geo+json")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getDevicesMap(
+            @RequestParam(name = "zoom", defaultValue = "12") int zoom,
+            HttpSession session) {
+        String accessToken = (String) session.getAttribute("accessToken");
+        if (accessToken == null || accessToken.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        if (zoom < TrajectorySimplifier.MIN_ZOOM || zoom > TrajectorySimplifier.MAX_ZOOM) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "zoom deve estar entre " + TrajectorySimplifier.MIN_ZOOM + " e " + TrajectorySimplifier.MAX_ZOOM);
+        }
+
+        return switch (dashboardService.getSnapshot(accessToken, DashboardSection.DEVICES)) {
+            case UpstreamResult.Success<DashboardSnapshot> success ->
+                    ResponseEntity.ok(deviceClusterer.toGeoJson(success.value().getDevices(), zoom));
+            case UpstreamResult.Failure<DashboardSnapshot> failure -> {
+                log.error("Erro ao montar mapa de dispositivos: {}", failure.message());
+                throw toResponseStatus(failure);
+            }
+        };
     }
 
     /**
@@ -95,22 +187,19 @@ public class DeviceController {
         if (authCheck != null)
             return authCheck;
 
-        try {
-            // Conversão para null de strings vazias para PATCH (se o DTO for usado para
-            // criar E atualizar)
-            // Para criação, o serial_number é binding:"required", os outros são opcionais.
-
-            String accessToken = (String) session.getAttribute("accessToken");
-            deviceService.createDevice(deviceRequest, accessToken);
+        // Conversão para null de strings vazias para PATCH (se o DTO for usado para
+        // criar E atualizar)
+        // Para criação, o serial_number é binding:"required", os outros são opcionais.
 
-            redirectAttributes.addFlashAttribute("success", "Dispositivo cadastrado com sucesso!");
-            return "redirect:/devices";
-
-        } catch (Exception e) {
-            log.error("Erro ao criar dispositivo", e);
-            redirectAttributes.addFlashAttribute("error", e.getMessage());
-            return "redirect:/devices";
+        String accessToken = (String) session.getAttribute("accessToken");
+        UpstreamResult<?> result = deviceService.createDevice(deviceRequest, accessToken);
+        if (result instanceof UpstreamResult.Failure<?> failure) {
+            redirectAttributes.addFlashAttribute("error", failure.message());
+            return failure.isSessionExpired() ? "redirect:/login" : "redirect:/devices";
         }
+
+        redirectAttributes.addFlashAttribute("success", "Dispositivo cadastrado com sucesso!");
+        return "redirect:/devices";
     }
 
     /**
@@ -125,26 +214,23 @@ public class DeviceController {
         if (authCheck != null)
             return authCheck;
 
-        try {
-            // Conversão de strings vazias para null (se aplicável aos campos do formulário)
-            // Isso garante que o JSON enviado pelo DTO com
-            // @JsonInclude(JsonInclude.Include.NON_EMPTY) seja limpo.
-            if (deviceRequest.getImei() != null && deviceRequest.getImei().trim().isEmpty()) {
-                deviceRequest.setImei(null);
-            }
-            // Repita para outros campos opcionais de atualização...
-
-            String accessToken = (String) session.getAttribute("accessToken");
-            deviceService.updateDevice(id, deviceRequest, accessToken);
-
-            redirectAttributes.addFlashAttribute("success", "Dispositivo atualizado com sucesso!");
-            return "redirect:/devices";
+        // Conversão de strings vazias para null (se aplicável aos campos do formulário)
+        // Isso garante que o JSON enviado pelo DTO com
+        // @JsonInclude(JsonInclude.Include.NON_EMPTY) seja limpo.
+        if (deviceRequest.getImei() != null && deviceRequest.getImei().trim().isEmpty()) {
+            deviceRequest.setImei(null);
+        }
+        // Repita para outros campos opcionais de atualização...
 
-        } catch (Exception e) {
-            log.error("Erro ao atualizar dispositivo", e);
-            redirectAttributes.addFlashAttribute("error", e.getMessage());
-            return "redirect:/devices";
+        String accessToken = (String) session.getAttribute("accessToken");
+        UpstreamResult<?> result = deviceService.updateDevice(id, deviceRequest, accessToken);
+        if (result instanceof UpstreamResult.Failure<?> failure) {
+            redirectAttributes.addFlashAttribute("error", failure.message());
+            return failure.isSessionExpired() ? "redirect:/login" : "redirect:/devices";
         }
+
+        redirectAttributes.addFlashAttribute("success", "Dispositivo atualizado com sucesso!");
+        return "redirect:/devices";
     }
 
     /**
@@ -158,18 +244,15 @@ public class DeviceController {
         if (authCheck != null)
             return authCheck;
 
-        try {
-            String accessToken = (String) session.getAttribute("accessToken");
-            deviceService.deleteDevice(id, accessToken);
-
-            redirectAttributes.addFlashAttribute("success", "Dispositivo excluído com sucesso!");
-            return "redirect:/devices";
-
-        } catch (Exception e) {
-            log.error("Erro ao excluir dispositivo", e);
-            redirectAttributes.addFlashAttribute("error", e.getMessage());
-            return "redirect:/devices";
+        String accessToken = (String) session.getAttribute("accessToken");
+        UpstreamResult<?> result = deviceService.deleteDevice(id, accessToken);
+        if (result instanceof UpstreamResult.Failure<?> failure) {
+            redirectAttributes.addFlashAttribute("error", failure.message());
+            return failure.isSessionExpired() ? "redirect:/login" : "redirect:/devices";
         }
+
+        redirectAttributes.addFlashAttribute("success", "Dispositivo excluído com sucesso!");
+        return "redirect:/devices";
     }
 
     /**
@@ -188,42 +271,95 @@ public class DeviceController {
         String accessToken = (String) session.getAttribute("accessToken");
         final int API_LIMIT = 10; // Limite de 50 pontos, conforme solicitado
         final int DISPLAY_LIMIT = 3;
-        try {
-            // 1. Obter Detalhes do Dispositivo (usando /devices/{id}/status)
-            DeviceResponse device = deviceService.getDeviceDetails(id, accessToken);
 
-            // 2. Obter Localizações Recentes (usando /devices/{id}/locations/{limit})
-            List<LocationResponse> locations = deviceService.listDeviceLocations(id, API_LIMIT, accessToken);
-
-            // 3. Obter Geofence para exibir no mapa
-            GeofenceResponse geofence = geofenceService.getGeofence(accessToken);
+        // As três chamadas são independentes, então rodam em paralelo com um prazo comum
+        // Com petsafe.api.client=webclient, dispositivo e localizações vêm do cliente não bloqueante
+        ReactiveDeviceService reactive = reactiveDeviceService.getIfAvailable();
+        DeviceResponse device;
+        List<LocationResponse> locations = List.of();
+        GeofenceResponse geofence = null;
+
+        try (UpstreamTaskScope scope = upstreamCalls.open()) {
+            UpstreamTaskScope.Subtask<DeviceResponse> deviceTask = reactive != null
+                    ? scope.fork(reactive.getDeviceDetails(id, accessToken))
+                    : scope.fork(() -> deviceService.getDeviceDetails(id, accessToken).orElseThrow());
+            UpstreamTaskScope.Subtask<List<LocationResponse>> locationsTask = reactive != null
+                    ? scope.fork(reactive.listDeviceLocations(id, API_LIMIT, accessToken))
+                    : scope.fork(() -> deviceService.listDeviceLocations(id, API_LIMIT, accessToken).orElseThrow());
+            UpstreamTaskScope.Subtask<GeofenceResponse> geofenceTask = scope.fork(
+                    () -> geofenceService.getGeofence(accessToken));
+
+            scope.join();
+
+            // 1. Detalhes do dispositivo são obrigatórios para renderizar a página
+            try {
+                device = deviceTask.get();
+            } catch (Exception e) {
+                log.error("Erro ao carregar detalhes do dispositivo {}: {}", id, e.getMessage());
+                redirectAttributes.addFlashAttribute("error", "Erro ao carregar detalhes: " + e.getMessage());
+                return "redirect:/devices";
+            }
 
-            // Adiciona dados ao modelo para o Thymeleaf
-            model.addAttribute("device", device);
-            model.addAttribute("locations", locations);
-            model.addAttribute("geofence", geofence);
-            model.addAttribute("locationLimit", API_LIMIT);
-            model.addAttribute("mapDisplayLimit", DISPLAY_LIMIT);
+            // 2. Localizações e geofence são opcionais: em caso de falha a página é exibida parcialmente,
+            // com um aviso para cada parte que faltou
+            List<String> warnings = new ArrayList<>();
+            try {
+                locations = locationsTask.get();
+            } catch (Exception e) {
+                log.warn("Falha ao carregar localizações do dispositivo {}: {}", id, e.getMessage());
+                warnings.add("Não foi possível carregar as localizações recentes.");
+            }
 
-            return "device_details"; // Novo template
+            try {
+                geofence = geofenceTask.get();
+            } catch (Exception e) {
+                log.warn("Falha ao carregar geofence para o dispositivo {}: {}", id, e.getMessage());
+                warnings.add("Não foi possível carregar a área segura.");
+            }
 
-        } catch (Exception e) {
-            log.error("Erro ao carregar detalhes do dispositivo {}: {}", id, e.getMessage());
-            redirectAttributes.addFlashAttribute("error", "Erro ao carregar detalhes: " + e.getMessage());
+            if (!warnings.isEmpty()) {
+                model.addAttribute("warning", String.join(" ", warnings));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            redirectAttributes.addFlashAttribute("error", "Erro ao carregar detalhes do dispositivo.");
             return "redirect:/devices";
         }
+
+        // Adiciona dados ao modelo para o Thymeleaf
+        model.addAttribute("device", device);
+        model.addAttribute("locations", locations != null ? locations : List.of());
+        model.addAttribute("geofence", geofence);
+        model.addAttribute("locationLimit", API_LIMIT);
+        model.addAttribute("mapDisplayLimit", DISPLAY_LIMIT);
+        model.addAttribute("historyLimit", historyMapLimit);
+        model.addAttribute("exportLimit", exportMaxLimit);
+
+        return "device_details"; // Novo template
     }
 
     /**
      * Retorna a lista de localizações recentes em formato JSON para atualização do
      * mapa.
+     * Com o parâmetro {@code since} (ID da última localização ou received_at), retorna
+     * apenas os pontos mais novos que o cursor.
+     * Com o parâmetro {@code zoom} (nível do Leaflet), o trajeto é simplificado (Douglas–Peucker) com tolerância
+     * de ~1 pixel nesse zoom, o que permite pedir milhares de pontos históricos.
+     * Com {@code format=polyline}, a lista é devolvida no formato compacto ({@link PolylineEncoder}) em vez de um
+     * objeto JSON por ponto.
+     * A resposta leva um ETag forte derivado dos IDs dos pontos (localizações não mudam depois de gravadas): um
+     * polling sem pontos novos recebe 304 sem corpo, e o navegador reaproveita a resposta em cache.
+     * A resposta é assíncrona: a thread do Tomcat é liberada enquanto a API responde.
      */
     @GetMapping("/{id}/locations/json")
     @ResponseBody // Indica que o retorno é o corpo da resposta HTTP (JSON) e não o nome de um
                   // template
-    public List<LocationResponse> getDeviceLocationsJson(
+    public Mono<ResponseEntity<Object>> getDeviceLocationsJson(
             @PathVariable("id") Long id,
             @RequestParam(name = "limit", defaultValue = "50") int limit,
+            @RequestParam(name = "since", required = false) String since,
+            @RequestParam(name = "zoom", required = false) Integer zoom,
+            @RequestParam(name = "format", defaultValue = "json") String format,
             HttpSession session) throws Exception {
 
         String accessToken = (String) session.getAttribute("accessToken");
@@ -231,8 +367,117 @@ public class DeviceController {
             throw new Exception("Sessão expirada ou não autenticada.");
         }
 
-        // Reusa o método do service. O limite é 50 por padrão ou o que for passado como
-        // parâmetro.
-        return deviceService.listDeviceLocations(id, limit, accessToken);
+        if (limit < 1 || limit > historyMaxLimit) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit deve estar entre 1 e " + historyMaxLimit);
+        }
+        if (zoom != null && (zoom < TrajectorySimplifier.MIN_ZOOM || zoom > TrajectorySimplifier.MAX_ZOOM)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "zoom deve estar entre " + TrajectorySimplifier.MIN_ZOOM + " e " + TrajectorySimplifier.MAX_ZOOM);
+        }
+        boolean polyline = "polyline".equalsIgnoreCase(format);
+        if (!polyline && !"json".equalsIgnoreCase(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format deve ser json ou polyline");
+        }
+
+        // O limite é 50 por padrão ou o que for passado como parâmetro.
+        Mono<List<LocationResponse>> locations = locationFeedService.listLocationsAsync(id, limit, since, accessToken)
+                .onErrorMap(IllegalArgumentException.class,
+                        e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage()))
+                .onErrorMap(UpstreamFailureException.class, e -> toResponseStatus(e.getFailure()));
+
+        if (zoom != null) {
+            locations = locations.map(points -> trajectorySimplifier.simplify(points, zoom));
+        }
+        return locations.map(points -> ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(locationsEtag(points, polyline))
+                .body(polyline ? PolylineEncoder.encode(points) : points));
+    }
+
+    /**
+     * Para a mesma URL, o conteúdo só muda quando chega um ponto novo (muda o primeiro ID) ou quando a janela
+     * de {@code limit} pontos anda (muda o último ID)
+     */
+    private static String locationsEtag(List<LocationResponse> points, boolean polyline) {
+        if (points.isEmpty()) {
+            return polyline ? "loc-empty-p" : "loc-empty";
+        }
+        return "loc-" + points.get(0).getId() + "-" + points.get(points.size() - 1).getId() + "-" + points.size()
+                + (polyline ? "-p" : "");
+    }
+
+    /**
+     * Status HTTP equivalente a uma falha da API para os endpoints JSON/arquivo
+     */
+    private static ResponseStatusException toResponseStatus(UpstreamResult.Failure<?> failure) {
+        HttpStatus status = switch (failure.reason()) {
+            case SESSION_EXPIRED -> HttpStatus.UNAUTHORIZED;
+            case NOT_FOUND -> HttpStatus.NOT_FOUND;
+            case REJECTED, UNAVAILABLE -> HttpStatus.BAD_GATEWAY;
+        };
+        return new ResponseStatusException(status, failure.message());
+    }
+
+    /**
+     * Exporta o histórico de localizações do dispositivo como arquivo GeoJSON, CSV ou GPX.
+     * A conexão com a API é aberta antes da resposta (erros viram status HTTP); depois os pontos são lidos do corpo
+     * da API e escritos no download um a um, em uma thread assíncrona. Um cliente lento bloqueia a escrita, que
+     * por sua vez pausa a leitura da API: a memória usada é constante, qualquer que seja o tamanho do histórico.
+     * Os pontos seguem a ordem da API (mais recente primeiro).
+     */
+    @GetMapping("/{id}/locations/export")
+    public ResponseEntity<StreamingResponseBody> exportDeviceLocations(
+            @PathVariable("id") Long id,
+            @RequestParam(name = "format", defaultValue = "geojson") String format,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            HttpSession session) {
+
+        String accessToken = (String) session.getAttribute("accessToken");
+        if (accessToken == null || accessToken.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.FOUND).location(URI.create("/login")).build();
+        }
+
+        LocationExportFormat exportFormat;
+        try {
+            exportFormat = LocationExportFormat.fromParameter(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        int pointLimit = limit != null ? limit : exportMaxLimit;
+        if (pointLimit < 1 || pointLimit > exportMaxLimit) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit deve estar entre 1 e " + exportMaxLimit);
+        }
+
+        LocationHistoryStream history;
+        switch (deviceService.openLocationHistory(id, pointLimit, accessToken)) {
+            case UpstreamResult.Success<LocationHistoryStream> success -> history = success.value();
+            case UpstreamResult.Failure<LocationHistoryStream> failure -> {
+                if (failure.isSessionExpired()) {
+                    return ResponseEntity.status(HttpStatus.FOUND).location(URI.create("/login")).build();
+                }
+                throw toResponseStatus(failure);
+            }
+        }
+
+        StreamingResponseBody body = out -> {
+            try (history) {
+                LocationExportWriter writer = exportFormat.open(out, id, objectMapper);
+                LocationResponse location;
+                while ((location = history.next()) != null) {
+                    writer.write(location);
+                }
+                writer.finish();
+            }
+        };
+
+        String filename = "dispositivo-" + id + "-localizacoes." + exportFormat.getExtension();
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,8 @@ package com.example.petsafeweb.controller;
 import com.example.petsafeweb.dto.LoginRequest;
 import com.example.petsafeweb.dto.LoginResponse;
 import com.example.petsafeweb.service.AuthService;
+import com.example.petsafeweb.service.TokenManager;
+import com.example.petsafeweb.service.UpstreamResult;
 import jakarta.servlet.http.HttpSession;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Controller;
@@ -20,9 +22,11 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 public class LoginController {
 
     private final AuthService authService;
+    private final TokenManager tokenManager;
 
-    public LoginController(AuthService authService) {
+    public LoginController(AuthService authService, TokenManager tokenManager) {
         this.authService = authService;
+        this.tokenManager = tokenManager;
     }
 
     @GetMapping("/login")
@@ -50,27 +54,30 @@ public class LoginController {
                 return "login";
             }
 
-            // Fazer login via API
-            LoginResponse response = authService.loginUser(loginRequest);
+            // Fazer login via API (credenciais inválidas voltam como falha, sem exceção)
+            UpstreamResult<LoginResponse> result = authService.loginUser(loginRequest);
+            if (result instanceof UpstreamResult.Failure<LoginResponse> failure) {
+                model.addAttribute("error", failure.message());
+                model.addAttribute("loginRequest", loginRequest);
+                return "login";
+            }
+            LoginResponse response = result.orElseThrow();
 
             // Armazenar dados na sessão
             session.setAttribute("userId", response.getUserId());
             session.setAttribute("userEmail", response.getEmail());
             session.setAttribute("userFullName", response.getFullName());
-            session.setAttribute("accessToken", response.getAccessToken());
-            session.setAttribute("refreshToken", response.getRefreshToken());
             session.setAttribute("isAuthenticated", true);
+            // Tokens de acesso/refresh, com renovação automática antes de vencer
+            tokenManager.startSession(session, response);
 
             // Redirecionar para dashboard (ou home)
             redirectAttributes.addFlashAttribute("success", "Login realizado com sucesso! Bem-vindo, " + response.getFullName());
             return "redirect:/";
 
         } catch (Exception e) {
-            // Apenas logar se for um erro inesperado (não de autenticação)
-            if (e.getMessage() == null || !e.getMessage().contains("E-mail ou senha")) {
-                log.error("Erro ao fazer login", e);
-            }
-            model.addAttribute("error", e.getMessage());
+            log.error("Erro ao fazer login", e);
+            model.addAttribute("error", "Erro ao fazer login. Tente novamente mais tarde.");
             model.addAttribute("loginRequest", loginRequest);
             return "login";
         }
@@ -78,6 +85,7 @@ public class LoginController {
 
     @GetMapping("/logout")
     public String logout(HttpSession session, RedirectAttributes redirectAttributes) {
+        tokenManager.endSession(session);
         session.invalidate();
         redirectAttributes.addFlashAttribute("success", "Logout realizado com sucesso!");
         return "redirect:/";
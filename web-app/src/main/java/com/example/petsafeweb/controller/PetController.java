@@ -1,10 +1,13 @@
 package com.example.petsafeweb.controller;
 
+import com.example.petsafeweb.dto.DashboardSnapshot;
 import com.example.petsafeweb.dto.DeviceResponse;
 import com.example.petsafeweb.dto.PetRequest;
 import com.example.petsafeweb.dto.PetResponse;
-import com.example.petsafeweb.service.DeviceService;
+import com.example.petsafeweb.service.DashboardSection;
+import com.example.petsafeweb.service.DashboardService;
 import com.example.petsafeweb.service.PetService;
+import com.example.petsafeweb.service.UpstreamResult;
 import jakarta.servlet.http.HttpSession;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Controller;
@@ -23,11 +26,11 @@ import java.util.List;
 public class PetController {
 
     private final PetService petService;
-    private final DeviceService deviceService;
+    private final DashboardService dashboardService;
 
-    public PetController(PetService petService, DeviceService deviceService) {
+    public PetController(PetService petService, DashboardService dashboardService) {
         this.petService = petService;
-        this.deviceService = deviceService;
+        this.dashboardService = dashboardService;
     }
 
     /**
@@ -44,37 +47,41 @@ public class PetController {
             return "redirect:/login";
         }
 
-        try {
-            // Verificar se tem token
-            if (accessToken == null || accessToken.isEmpty()) {
-                redirectAttributes.addFlashAttribute("error", "Sessão expirada. Faça login novamente.");
-                return "redirect:/login";
-            }
-
-            List<PetResponse> pets = petService.listPets(accessToken);
-            List<DeviceResponse> devices = deviceService.listDevices(accessToken);
-
-            model.addAttribute("pets", pets != null ? pets : List.of());
-            model.addAttribute("devices", devices != null ? devices : List.of());
-            model.addAttribute("petRequest", new PetRequest());
+        // Verificar se tem token
+        if (accessToken == null || accessToken.isEmpty()) {
+            redirectAttributes.addFlashAttribute("error", "Sessão expirada. Faça login novamente.");
+            return "redirect:/login";
+        }
 
-            return "pets";
+        // Pets e dispositivos vêm do snapshot do painel (partes ausentes são buscadas em paralelo)
+        UpstreamResult<DashboardSnapshot> result = dashboardService.getSnapshot(accessToken,
+                DashboardSection.PETS, DashboardSection.DEVICES);
 
-        } catch (Exception e) {
-            log.error("Erro ao carregar página de pets: {}", e.getMessage(), e);
+        if (result instanceof UpstreamResult.Failure<DashboardSnapshot> failure) {
+            log.error("Erro ao carregar página de pets: {}", failure.message());
 
             // Se for erro de autenticação, redirecionar para login
-            if (e.getMessage().contains("Sessão expirada") || e.getMessage().contains("Unauthorized")) {
+            if (failure.isSessionExpired()) {
                 redirectAttributes.addFlashAttribute("error", "Sessão expirada. Faça login novamente.");
                 return "redirect:/login";
             }
 
-            model.addAttribute("error", e.getMessage());
+            model.addAttribute("error", failure.message());
             model.addAttribute("pets", List.of());
             model.addAttribute("devices", List.of());
             model.addAttribute("petRequest", new PetRequest());
             return "pets";
         }
+
+        DashboardSnapshot snapshot = result.orElseThrow();
+        List<PetResponse> pets = snapshot.getPets();
+        List<DeviceResponse> devices = snapshot.getDevices();
+
+        model.addAttribute("pets", pets != null ? pets : List.of());
+        model.addAttribute("devices", devices != null ? devices : List.of());
+        model.addAttribute("petRequest", new PetRequest());
+
+        return "pets";
     }
 
     /**
@@ -84,38 +91,35 @@ public class PetController {
     public String createPet(@ModelAttribute PetRequest petRequest,
                            HttpSession session,
                            RedirectAttributes redirectAttributes) {
-        try {
-            // Converter strings vazias em null para campos opcionais
-            if (petRequest.getBreed() != null && petRequest.getBreed().trim().isEmpty()) {
-                petRequest.setBreed(null);
-            }
-            if (petRequest.getMicrochipId() != null && petRequest.getMicrochipId().trim().isEmpty()) {
-                petRequest.setMicrochipId(null);
-            }
+        // Converter strings vazias em null para campos opcionais
+        if (petRequest.getBreed() != null && petRequest.getBreed().trim().isEmpty()) {
+            petRequest.setBreed(null);
+        }
+        if (petRequest.getMicrochipId() != null && petRequest.getMicrochipId().trim().isEmpty()) {
+            petRequest.setMicrochipId(null);
+        }
 
-            // Processar data de nascimento
-            if (petRequest.getDob() != null && !petRequest.getDob().trim().isEmpty()) {
-                // Converter formato yyyy-MM-dd para ISO 8601 (yyyy-MM-ddT00:00:00Z)
-                String dob = petRequest.getDob().trim();
-                if (!dob.contains("T")) {
-                    dob = dob + "T00:00:00Z";
-                    petRequest.setDob(dob);
-                }
-            } else {
-                petRequest.setDob(null);
+        // Processar data de nascimento
+        if (petRequest.getDob() != null && !petRequest.getDob().trim().isEmpty()) {
+            // Converter formato yyyy-MM-dd para ISO 8601 (yyyy-MM-ddT00:00:00Z)
+            String dob = petRequest.getDob().trim();
+            if (!dob.contains("T")) {
+                dob = dob + "T00:00:00Z";
+                petRequest.setDob(dob);
             }
+        } else {
+            petRequest.setDob(null);
+        }
 
-            String accessToken = (String) session.getAttribute("accessToken");
-            petService.createPet(petRequest, accessToken);
-
-            redirectAttributes.addFlashAttribute("success", "Pet cadastrado com sucesso!");
-            return "redirect:/pets";
-
-        } catch (Exception e) {
-            log.error("Erro ao criar pet", e);
-            redirectAttributes.addFlashAttribute("error", e.getMessage());
-            return "redirect:/pets";
+        String accessToken = (String) session.getAttribute("accessToken");
+        UpstreamResult<?> result = petService.createPet(petRequest, accessToken);
+        if (result instanceof UpstreamResult.Failure<?> failure) {
+            redirectAttributes.addFlashAttribute("error", failure.message());
+            return failure.isSessionExpired() ? "redirect:/login" : "redirect:/pets";
         }
+
+        redirectAttributes.addFlashAttribute("success", "Pet cadastrado com sucesso!");
+        return "redirect:/pets";
     }
 
     /**
@@ -126,38 +130,35 @@ public class PetController {
                            @ModelAttribute PetRequest petRequest,
                            HttpSession session,
                            RedirectAttributes redirectAttributes) {
-        try {
-            // Converter strings vazias em null para campos opcionais
-            if (petRequest.getBreed() != null && petRequest.getBreed().trim().isEmpty()) {
-                petRequest.setBreed(null);
-            }
-            if (petRequest.getMicrochipId() != null && petRequest.getMicrochipId().trim().isEmpty()) {
-                petRequest.setMicrochipId(null);
-            }
+        // Converter strings vazias em null para campos opcionais
+        if (petRequest.getBreed() != null && petRequest.getBreed().trim().isEmpty()) {
+            petRequest.setBreed(null);
+        }
+        if (petRequest.getMicrochipId() != null && petRequest.getMicrochipId().trim().isEmpty()) {
+            petRequest.setMicrochipId(null);
+        }
 
-            // Processar data de nascimento
-            if (petRequest.getDob() != null && !petRequest.getDob().trim().isEmpty()) {
-                // Converter formato yyyy-MM-dd para ISO 8601 (yyyy-MM-ddT00:00:00Z)
-                String dob = petRequest.getDob().trim();
-                if (!dob.contains("T")) {
-                    dob = dob + "T00:00:00Z";
-                    petRequest.setDob(dob);
-                }
-            } else {
-                petRequest.setDob(null);
+        // Processar data de nascimento
+        if (petRequest.getDob() != null && !petRequest.getDob().trim().isEmpty()) {
+            // Converter formato yyyy-MM-dd para ISO 8601 (yyyy-MM-ddT00:00:00Z)
+            String dob = petRequest.getDob().trim();
+            if (!dob.contains("T")) {
+                dob = dob + "T00:00:00Z";
+                petRequest.setDob(dob);
             }
+        } else {
+            petRequest.setDob(null);
+        }
 
-            String accessToken = (String) session.getAttribute("accessToken");
-            petService.updatePet(id, petRequest, accessToken);
-
-            redirectAttributes.addFlashAttribute("success", "Pet atualizado com sucesso!");
-            return "redirect:/pets";
-
-        } catch (Exception e) {
-            log.error("Erro ao atualizar pet", e);
-            redirectAttributes.addFlashAttribute("error", e.getMessage());
-            return "redirect:/pets";
+        String accessToken = (String) session.getAttribute("accessToken");
+        UpstreamResult<?> result = petService.updatePet(id, petRequest, accessToken);
+        if (result instanceof UpstreamResult.Failure<?> failure) {
+            redirectAttributes.addFlashAttribute("error", failure.message());
+            return failure.isSessionExpired() ? "redirect:/login" : "redirect:/pets";
         }
+
+        redirectAttributes.addFlashAttribute("success", "Pet atualizado com sucesso!");
+        return "redirect:/pets";
     }
 
     /**
@@ -167,17 +168,14 @@ public class PetController {
     public String deletePet(@PathVariable Long id,
                            HttpSession session,
                            RedirectAttributes redirectAttributes) {
-        try {
-            String accessToken = (String) session.getAttribute("accessToken");
-            petService.deletePet(id, accessToken);
-
-            redirectAttributes.addFlashAttribute("success", "Pet excluído com sucesso!");
-            return "redirect:/pets";
-
-        } catch (Exception e) {
-            log.error("Erro ao excluir pet", e);
-            redirectAttributes.addFlashAttribute("error", e.getMessage());
-            return "redirect:/pets";
+        String accessToken = (String) session.getAttribute("accessToken");
+        UpstreamResult<?> result = petService.deletePet(id, accessToken);
+        if (result instanceof UpstreamResult.Failure<?> failure) {
+            redirectAttributes.addFlashAttribute("error", failure.message());
+            return failure.isSessionExpired() ? "redirect:/login" : "redirect:/pets";
         }
+
+        redirectAttributes.addFlashAttribute("success", "Pet excluído com sucesso!");
+        return "redirect:/pets";
     }
 }
@@ -3,6 +3,9 @@ package com.example.petsafeweb.controller;
 import com.example.petsafeweb.dto.UpdatePasswordRequest;
 import com.example.petsafeweb.dto.UpdateProfileRequest;
 import com.example.petsafeweb.dto.UserProfileResponse;
+import com.example.petsafeweb.service.UpstreamCalls;
+import com.example.petsafeweb.service.UpstreamResult;
+import com.example.petsafeweb.service.UpstreamTaskScope;
 import com.example.petsafeweb.service.UserService;
 import jakarta.servlet.http.HttpSession;
 import lombok.extern.slf4j.Slf4j;
@@ -21,9 +24,29 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 public class ProfileController {
 
     private final UserService userService;
+    private final UpstreamCalls upstreamCalls;
 
-    public ProfileController(UserService userService) {
+    public ProfileController(UserService userService, UpstreamCalls upstreamCalls) {
         this.userService = userService;
+        this.upstreamCalls = upstreamCalls;
+    }
+
+    /**
+     * Busca o perfil na API respeitando o prazo configurado para chamadas à API
+     */
+    private UpstreamResult<UserProfileResponse> fetchProfile(Long userId, String accessToken) {
+        try (UpstreamTaskScope scope = upstreamCalls.open()) {
+            UpstreamTaskScope.Subtask<UpstreamResult<UserProfileResponse>> profileTask = scope.fork(
+                    () -> userService.getUserProfile(userId, accessToken));
+            scope.join();
+            return profileTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return UpstreamResult.fromException(e);
+        } catch (Exception e) {
+            // Prazo esgotado
+            return UpstreamResult.fromException(e);
+        }
     }
 
     @GetMapping("/profile")
@@ -35,25 +58,24 @@ public class ProfileController {
             return "redirect:/login";
         }
 
-        try {
-            Long userId = (Long) session.getAttribute("userId");
-            String accessToken = (String) session.getAttribute("accessToken");
-
-            // Buscar dados do perfil na API
-            UserProfileResponse profile = userService.getUserProfile(userId, accessToken);
-
-            // Adicionar dados ao model
-            model.addAttribute("profile", profile);
-            model.addAttribute("updateRequest", new UpdateProfileRequest());
-
-            return "profile";
-
-        } catch (Exception e) {
-            log.error("Erro ao carregar perfil", e);
-            model.addAttribute("error", e.getMessage());
-            model.addAttribute("updateRequest", new UpdateProfileRequest());
-            return "profile";
+        Long userId = (Long) session.getAttribute("userId");
+        String accessToken = (String) session.getAttribute("accessToken");
+
+        // Buscar dados do perfil na API
+        switch (fetchProfile(userId, accessToken)) {
+            case UpstreamResult.Success<UserProfileResponse> success -> model.addAttribute("profile", success.value());
+            case UpstreamResult.Failure<UserProfileResponse> failure -> {
+                log.error("Erro ao carregar perfil: {}", failure.message());
+                if (failure.isSessionExpired()) {
+                    redirectAttributes.addFlashAttribute("error", failure.message());
+                    return "redirect:/login";
+                }
+                model.addAttribute("error", failure.message());
+            }
         }
+
+        model.addAttribute("updateRequest", new UpdateProfileRequest());
+        return "profile";
     }
 
     @PostMapping("/profile/update")
@@ -71,73 +93,96 @@ public class ProfileController {
             return "redirect:/login";
         }
 
-        try {
-            Long userId = (Long) session.getAttribute("userId");
-            String accessToken = (String) session.getAttribute("accessToken");
-
-            // Validar campos obrigatórios
-            if (fullName == null || fullName.trim().isEmpty()) {
-                throw new Exception("Nome completo é obrigatório");
-            }
+        Long userId = (Long) session.getAttribute("userId");
+        String accessToken = (String) session.getAttribute("accessToken");
 
-            if (phone == null || phone.trim().isEmpty()) {
-                throw new Exception("Telefone é obrigatório");
-            }
-
-            // Validar senha ANTES de salvar qualquer coisa
-            boolean isChangingPassword = newPassword != null && !newPassword.trim().isEmpty();
-            if (isChangingPassword) {
-                if (currentPassword == null || currentPassword.trim().isEmpty()) {
-                    throw new Exception("Para alterar a senha, informe a senha atual");
-                }
-                if (newPassword.length() < 8) {
-                    throw new Exception("A nova senha deve ter no mínimo 8 caracteres");
-                }
-            }
+        // Validar campos obrigatórios e a senha ANTES de salvar qualquer coisa
+        boolean isChangingPassword = newPassword != null && !newPassword.trim().isEmpty();
+        String validationError = validate(fullName, phone, currentPassword, newPassword, isChangingPassword);
+        if (validationError != null) {
+            return showProfileError(validationError, userId, accessToken, model);
+        }
 
-            // Se está alterando senha, atualizar senha PRIMEIRO
-            if (isChangingPassword) {
-                UpdatePasswordRequest passwordRequest = UpdatePasswordRequest.builder()
-                        .currentPassword(currentPassword)
-                        .newPassword(newPassword)
-                        .build();
+        // Se está alterando senha, atualizar senha PRIMEIRO
+        if (isChangingPassword) {
+            UpdatePasswordRequest passwordRequest = UpdatePasswordRequest.builder()
+                    .currentPassword(currentPassword)
+                    .newPassword(newPassword)
+                    .build();
 
-                userService.updateUserPassword(passwordRequest, accessToken);
+            if (userService.updateUserPassword(passwordRequest, accessToken)
+                    instanceof UpstreamResult.Failure<Void> failure) {
+                return handleUpdateFailure(failure, userId, accessToken, model, redirectAttributes);
             }
+        }
 
-            // Só depois de validar/atualizar senha, atualizar dados do perfil
-            UpdateProfileRequest profileRequest = UpdateProfileRequest.builder()
-                    .fullName(fullName.trim())
-                    .phone(phone.trim())
-                    .build();
+        // Só depois de validar/atualizar senha, atualizar dados do perfil
+        UpdateProfileRequest profileRequest = UpdateProfileRequest.builder()
+                .fullName(fullName.trim())
+                .phone(phone.trim())
+                .build();
 
-            UserProfileResponse updatedProfile = userService.updateUserProfile(profileRequest, accessToken);
+        UpstreamResult<UserProfileResponse> result = userService.updateUserProfile(profileRequest, accessToken);
+        if (result instanceof UpstreamResult.Failure<UserProfileResponse> failure) {
+            return handleUpdateFailure(failure, userId, accessToken, model, redirectAttributes);
+        }
 
-            // Atualizar dados na sessão
+        // Atualizar dados na sessão
+        UserProfileResponse updatedProfile = result.orElseThrow();
+        if (updatedProfile != null) {
             session.setAttribute("userFullName", updatedProfile.getFullName());
+        }
 
-            // Redirecionar com mensagem de sucesso
-            String successMessage = isChangingPassword
-                    ? "Perfil e senha atualizados com sucesso!"
-                    : "Perfil atualizado com sucesso!";
-            redirectAttributes.addFlashAttribute("success", successMessage);
-            return "redirect:/profile";
+        // Redirecionar com mensagem de sucesso
+        String successMessage = isChangingPassword
+                ? "Perfil e senha atualizados com sucesso!"
+                : "Perfil atualizado com sucesso!";
+        redirectAttributes.addFlashAttribute("success", successMessage);
+        return "redirect:/profile";
+    }
 
-        } catch (Exception e) {
-            log.error("Erro ao atualizar perfil", e);
-
-            // Recarregar dados do perfil para exibir na página
-            try {
-                Long userId = (Long) session.getAttribute("userId");
-                String accessToken = (String) session.getAttribute("accessToken");
-                UserProfileResponse profile = userService.getUserProfile(userId, accessToken);
-                model.addAttribute("profile", profile);
-            } catch (Exception ex) {
-                log.error("Erro ao recarregar perfil", ex);
+    /**
+     * @return Mensagem do primeiro campo inválido, ou {@code null}
+     */
+    private static String validate(String fullName, String phone, String currentPassword, String newPassword,
+                                   boolean isChangingPassword) {
+        if (fullName == null || fullName.trim().isEmpty()) {
+            return "Nome completo é obrigatório";
+        }
+        if (phone == null || phone.trim().isEmpty()) {
+            return "Telefone é obrigatório";
+        }
+        if (isChangingPassword) {
+            if (currentPassword == null || currentPassword.trim().isEmpty()) {
+                return "Para alterar a senha, informe a senha atual";
+            }
+            if (newPassword.length() < 8) {
+                return "A nova senha deve ter no mínimo 8 caracteres";
             }
+        }
+        return null;
+    }
+
+    private String handleUpdateFailure(UpstreamResult.Failure<?> failure, Long userId, String accessToken,
+                                       Model model, RedirectAttributes redirectAttributes) {
+        log.error("Erro ao atualizar perfil: {}", failure.message());
+        if (failure.isSessionExpired()) {
+            redirectAttributes.addFlashAttribute("error", failure.message());
+            return "redirect:/login";
+        }
+        return showProfileError(failure.message(), userId, accessToken, model);
+    }
 
-            model.addAttribute("error", e.getMessage());
-            return "profile";
+    /**
+     * Recarrega os dados do perfil para exibir a página com a mensagem de erro
+     */
+    private String showProfileError(String error, Long userId, String accessToken, Model model) {
+        UpstreamResult<UserProfileResponse> profile = fetchProfile(userId, accessToken);
+        if (profile instanceof UpstreamResult.Failure<UserProfileResponse> failure) {
+            log.error("Erro ao recarregar perfil: {}", failure.message());
         }
+        model.addAttribute("profile", profile.orElse(null));
+        model.addAttribute("error", error);
+        return "profile";
     }
 }
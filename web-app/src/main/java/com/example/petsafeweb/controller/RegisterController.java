@@ -3,6 +3,7 @@ package com.example.petsafeweb.controller;
 import com.example.petsafeweb.dto.RegisterRequest;
 import com.example.petsafeweb.dto.RegisterResponse;
 import com.example.petsafeweb.service.AuthService;
+import com.example.petsafeweb.service.UpstreamResult;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -74,7 +75,11 @@ public class RegisterController {
             );
 
             // Chamar a API para registrar o usuário
-            RegisterResponse response = authService.registerUser(registerRequest);
+            UpstreamResult<RegisterResponse> result = authService.registerUser(registerRequest);
+            if (result instanceof UpstreamResult.Failure<RegisterResponse> failure) {
+                redirectAttributes.addFlashAttribute("error", failure.message());
+                return "redirect:/register";
+            }
 
             redirectAttributes.addFlashAttribute("success",
                 "Cadastro realizado com sucesso! Faça login para continuar.");
@@ -82,7 +87,7 @@ public class RegisterController {
 
         } catch (Exception e) {
             log.error("Erro ao registrar usuário", e);
-            redirectAttributes.addFlashAttribute("error", e.getMessage());
+            redirectAttributes.addFlashAttribute("error", "Erro ao registrar usuário. Tente novamente mais tarde.");
             return "redirect:/register";
         }
     }
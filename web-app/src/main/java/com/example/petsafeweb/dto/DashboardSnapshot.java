@@ -0,0 +1,27 @@
+package com.example.petsafeweb.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Visão agregada dos dados do usuário: pets, dispositivos, área segura e alertas não lidos
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardSnapshot {
+
+    private List<PetResponse> pets;
+    private List<DeviceResponse> devices;
+    private GeofenceResponse geofence;
+    private Integer unreadAlerts;
+
+    // Momento em que a parte mais antiga do snapshot foi carregada da API
+    private Instant loadedAt;
+}
@@ -0,0 +1,37 @@
+package com.example.petsafeweb.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Representação compacta de uma lista de localizações ({@code format=polyline})
+ * Todas as séries usam o algoritmo do Google Encoded Polyline sobre diferenças entre pontos consecutivos,
+ * na mesma ordem da lista original (mais recente primeiro).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EncodedLocationsResponse {
+
+    // Nome e precisão da codificação, para que o cliente saiba como decodificar
+    private String encoding;
+
+    private Integer count;
+
+    // Pares latitude/longitude com 5 casas decimais (~1 m)
+    private String polyline;
+
+    // IDs das localizações
+    private String ids;
+
+    // received_at em segundos desde a época (0 quando ausente)
+    @JsonProperty("received_at")
+    private String receivedAt;
+
+    // Acurácia arredondada em metros (-1 quando ausente)
+    private String accuracy;
+}
@@ -0,0 +1,20 @@
+package com.example.petsafeweb.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO para renovação do token de acesso (POST /auth/refresh)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshTokenRequest {
+
+    @JsonProperty("refresh_token")
+    private String refreshToken;
+}
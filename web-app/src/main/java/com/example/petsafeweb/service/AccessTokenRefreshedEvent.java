@@ -0,0 +1,10 @@
+package com.example.petsafeweb.service;
+
+/**
+ * O token de acesso de uma sessão foi renovado; caches indexados pelo token antigo podem migrar para o novo
+ *
+ * @param previousToken Token substituído
+ * @param accessToken   Novo token da sessão
+ */
+public record AccessTokenRefreshedEvent(String previousToken, String accessToken) {
+}
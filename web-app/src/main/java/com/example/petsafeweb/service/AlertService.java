@@ -1,56 +1,51 @@
 package com.example.petsafeweb.service;
 
 import com.example.petsafeweb.dto.AlertCountResponse;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.petsafeweb.service.UpstreamResult.Reason;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 @Slf4j
 @Service
 public class AlertService {
 
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    private final UpstreamClient upstreamClient;
+    private final RequestCoalescer requestCoalescer;
 
     @Value("${petsafe.api.base-url}")
     private String apiBaseUrl;
 
-    public AlertService(RestTemplate restTemplate, ObjectMapper objectMapper) {
-        this.restTemplate = restTemplate;
-        this.objectMapper = objectMapper;
+    public AlertService(UpstreamClient upstreamClient, RequestCoalescer requestCoalescer) {
+        this.upstreamClient = upstreamClient;
+        this.requestCoalescer = requestCoalescer;
     }
 
     /**
      * Busca a contagem de alertas não lidos
+     * Para o badge do menu: em caso de falha devolve 0 em vez de quebrar a página
      */
     public Integer getUnreadAlertsCount(String accessToken) {
-        try {
-            String url = apiBaseUrl + "/api/v1/alerts/count";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(accessToken);
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-
-            ResponseEntity<AlertCountResponse> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                requestEntity,
-                AlertCountResponse.class
-            );
-
-            if (response.getBody() != null) {
-                return response.getBody().getCount();
-            }
-
-            return 0;
-        } catch (Exception e) {
-            log.error("Erro ao buscar contagem de alertas", e);
-            return 0;
-        }
+        return unreadAlertsCount(accessToken).orElse(0);
+    }
+
+    /**
+     * Contagem de alertas não lidos ou a falha da chamada, para quem não pode confundir "falhou" com "zero"
+     * (stream SSE, snapshot do painel)
+     */
+    public UpstreamResult<Integer> unreadAlertsCount(String accessToken) {
+        String url = apiBaseUrl + "/api/v1/alerts/count";
+        // Polls simultâneos da mesma conta compartilham uma única chamada à API
+        return requestCoalescer.execute(url, accessToken, () -> fetchUnreadAlertsCount(url, accessToken));
+    }
+
+    private UpstreamResult<Integer> fetchUnreadAlertsCount(String url, String accessToken) {
+        return upstreamClient.exchange(HttpMethod.GET, url, accessToken, null, AlertCountResponse.class)
+                .map(body -> body != null && body.getCount() != null ? body.getCount() : 0)
+                .describeFailure(error -> {
+                    log.error("Erro ao buscar contagem de alertas: {}", error);
+                    return UpstreamResult.failure(Reason.of(error), error, "Erro ao buscar contagem de alertas.");
+                });
     }
 }
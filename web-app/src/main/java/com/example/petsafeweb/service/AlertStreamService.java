@@ -0,0 +1,225 @@
+package com.example.petsafeweb.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Service que envia a contagem de alertas não lidos via Server-Sent Events
+ * Mantém um único poller da API por usuário, compartilhado entre todas as abas abertas
+ */
+@Slf4j
+@Service
+public class AlertStreamService {
+
+    private final AlertService alertService;
+    private final TokenManager tokenManager;
+    private final ExecutorService upstreamExecutor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ScheduledExecutorService scheduler;
+    private final Map<Long, UserStream> streams = new ConcurrentHashMap<>();
+
+    @Value("${petsafe.alerts.stream.poll-interval-ms:5000}")
+    private long pollIntervalMs;
+
+    @Value("${petsafe.alerts.stream.heartbeat-interval-ms:30000}")
+    private long heartbeatIntervalMs;
+
+    @Value("${petsafe.alerts.stream.timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    public AlertStreamService(AlertService alertService, TokenManager tokenManager, ExecutorService upstreamExecutor,
+                              ApplicationEventPublisher eventPublisher) {
+        this.alertService = alertService;
+        this.tokenManager = tokenManager;
+        this.upstreamExecutor = upstreamExecutor;
+        this.eventPublisher = eventPublisher;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("alert-stream-scheduler").daemon().factory());
+    }
+
+    /**
+     * Registra uma nova aba do usuário e devolve o emitter que receberá as contagens
+     *
+     * @param userId      ID do usuário logado
+     * @param session     Sessão da aba; o poller usa o token atual dela, renovado quando perto de vencer, e
+     *                    encerra o stream da aba quando ela termina (logout ou expiração)
+     * @return Emitter SSE da aba
+     */
+    public SseEmitter subscribe(Long userId, HttpSession session) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+
+        UserStream stream = streams.compute(userId, (id, existing) -> {
+            UserStream current = existing != null ? existing : new UserStream(id);
+            current.emitters.put(emitter, session);
+            if (current.schedule == null) {
+                current.schedule = scheduler.scheduleWithFixedDelay(
+                        () -> upstreamExecutor.execute(() -> poll(current)),
+                        0, pollIntervalMs, TimeUnit.MILLISECONDS);
+            }
+            return current;
+        });
+
+        emitter.onCompletion(() -> unsubscribe(userId, emitter));
+        emitter.onTimeout(() -> unsubscribe(userId, emitter));
+        emitter.onError(e -> unsubscribe(userId, emitter));
+
+        // A nova aba recebe imediatamente a última contagem conhecida
+        Integer lastCount = stream.lastCount;
+        if (lastCount != null) {
+            send(stream, emitter, lastCount);
+        }
+
+        return emitter;
+    }
+
+    /**
+     * Força uma consulta imediata (ex.: após marcar alertas como lidos)
+     */
+    public void refresh(Long userId) {
+        UserStream stream = streams.get(userId);
+        if (stream != null) {
+            upstreamExecutor.execute(() -> poll(stream));
+        }
+    }
+
+    private void unsubscribe(Long userId, SseEmitter emitter) {
+        streams.computeIfPresent(userId, (id, stream) -> {
+            stream.emitters.remove(emitter);
+            if (!stream.emitters.isEmpty()) {
+                return stream;
+            }
+            // Última aba fechada: encerra o poller do usuário
+            stream.schedule.cancel(false);
+            return null;
+        });
+    }
+
+    private void poll(UserStream stream) {
+        // Evita consultas sobrepostas quando a API está lenta
+        if (!stream.polling.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            Set<String> accessTokens = activeTokens(stream);
+            if (accessTokens.isEmpty()) {
+                return; // Nenhuma aba com sessão válida: os streams já foram encerrados
+            }
+            UpstreamResult<Integer> result = alertService.unreadAlertsCount(accessTokens.iterator().next());
+            if (!(result instanceof UpstreamResult.Success<Integer> success)) {
+                // Falha não é "zero": as abas e os snapshots ficam com a última contagem até a API responder
+                log.warn("Contagem de alertas do usuário {} indisponível: {}", stream.userId,
+                        ((UpstreamResult.Failure<Integer>) result).message());
+                return;
+            }
+            Integer count = success.value();
+
+            if (!count.equals(stream.lastCount)) {
+                stream.lastCount = count;
+                // A contagem guardada no snapshot do painel de cada sessão ficou desatualizada
+                for (String accessToken : accessTokens) {
+                    eventPublisher.publishEvent(new DashboardChangedEvent(accessToken, DashboardSection.ALERTS));
+                }
+                stream.lastSentAt = System.currentTimeMillis();
+                for (SseEmitter emitter : stream.emitters.keySet()) {
+                    send(stream, emitter, count);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Erro ao atualizar stream de alertas do usuário {}", stream.userId, e);
+        } finally {
+            // Heartbeat independente do resultado da consulta (API fora do ar), para detectar abas fechadas
+            long now = System.currentTimeMillis();
+            if (now - stream.lastSentAt >= heartbeatIntervalMs) {
+                stream.lastSentAt = now;
+                for (SseEmitter emitter : stream.emitters.keySet()) {
+                    heartbeat(stream, emitter);
+                }
+            }
+            stream.polling.set(false);
+        }
+    }
+
+    /**
+     * Tokens atuais das sessões das abas (o stream vive mais que o token: 30 min de SSE)
+     * Abas cuja sessão terminou (logout em um navegador, expiração) são encerradas; as dos outros navegadores
+     * continuam. Sem nenhuma aba, o poller do usuário é cancelado.
+     */
+    private Set<String> activeTokens(UserStream stream) {
+        Map<HttpSession, String> tokensBySession = new HashMap<>();
+        Set<String> accessTokens = new LinkedHashSet<>();
+
+        for (Map.Entry<SseEmitter, HttpSession> entry : stream.emitters.entrySet()) {
+            String accessToken = tokensBySession.computeIfAbsent(entry.getValue(),
+                    session -> Objects.requireNonNullElse(tokenManager.currentToken(session), ""));
+            if (accessToken.isEmpty()) {
+                entry.getKey().complete();
+                unsubscribe(stream.userId, entry.getKey());
+            } else {
+                accessTokens.add(accessToken);
+            }
+        }
+        return accessTokens;
+    }
+
+    private void send(UserStream stream, SseEmitter emitter, Integer count) {
+        try {
+            emitter.send(SseEmitter.event().name("count").data(Map.of("count", count)));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Aba desconectada do stream de alertas do usuário {}", stream.userId);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void heartbeat(UserStream stream, SseEmitter emitter) {
+        try {
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Aba desconectada do stream de alertas do usuário {}", stream.userId);
+            emitter.completeWithError(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        streams.values().forEach(stream -> stream.emitters.keySet().forEach(SseEmitter::complete));
+        streams.clear();
+    }
+
+    /**
+     * Estado compartilhado pelas abas de um mesmo usuário
+     */
+    private static final class UserStream {
+        private final Long userId;
+        // Cada aba com a sessão do navegador em que foi aberta
+        private final Map<SseEmitter, HttpSession> emitters = new ConcurrentHashMap<>();
+        private final AtomicBoolean polling = new AtomicBoolean(false);
+        private volatile Integer lastCount;
+        private volatile long lastSentAt;
+        private ScheduledFuture<?> schedule;
+
+        private UserStream(Long userId) {
+            this.userId = userId;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.petsafeweb.service;
+
+/**
+ * Publicado quando uma alteração (ou uma mudança detectada na API) torna parte do snapshot do painel obsoleta
+ *
+ * @param accessToken Token do usuário afetado
+ * @param section     Parte do snapshot que deve ser recarregada
+ */
+public record DashboardChangedEvent(String accessToken, DashboardSection section) {
+}
@@ -0,0 +1,11 @@
+package com.example.petsafeweb.service;
+
+/**
+ * Partes do snapshot do painel ({@link DashboardService}), invalidadas separadamente
+ */
+public enum DashboardSection {
+    PETS,
+    DEVICES,
+    GEOFENCE,
+    ALERTS
+}
@@ -0,0 +1,266 @@
+package com.example.petsafeweb.service;
+
+import com.example.petsafeweb.dto.DashboardSnapshot;
+import com.example.petsafeweb.dto.DeviceResponse;
+import com.example.petsafeweb.dto.GeofenceResponse;
+import com.example.petsafeweb.dto.PetResponse;
+import com.example.petsafeweb.service.LastKnownGoodCache.Tracked;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Snapshot agregado por sessão (token) dos dados usados pelas páginas: pets, dispositivos, área segura e contagem
+ * de alertas não lidos. As partes que a página exige e faltam são buscadas juntas, em paralelo; as demais vêm do
+ * snapshot.
+ * Alterações feitas pelos services publicam {@link DashboardChangedEvent}, que invalida só a parte afetada.
+ */
+@Slf4j
+@Service
+public class DashboardService {
+
+    private final PetService petService;
+    private final DeviceService deviceService;
+    private final GeofenceService geofenceService;
+    private final AlertService alertService;
+    private final UpstreamCalls upstreamCalls;
+    private final Cache<String, Snapshot> snapshots;
+    private final Duration ttl;
+    private final Duration alertsTtl;
+    private final Duration devicesTtl;
+
+    public DashboardService(PetService petService, DeviceService deviceService, GeofenceService geofenceService,
+            AlertService alertService, UpstreamCalls upstreamCalls, MeterRegistry meterRegistry,
+            @Value("${petsafe.dashboard.ttl-seconds:300}") long ttlSeconds,
+            @Value("${petsafe.dashboard.alerts-ttl-seconds:15}") long alertsTtlSeconds,
+            @Value("${petsafe.dashboard.devices-ttl-seconds:15}") long devicesTtlSeconds,
+            @Value("${petsafe.dashboard.idle-expiration-seconds:1800}") long idleExpirationSeconds,
+            @Value("${petsafe.dashboard.max-size:10000}") long maxSize) {
+        this.petService = petService;
+        this.deviceService = deviceService;
+        this.geofenceService = geofenceService;
+        this.alertService = alertService;
+        this.upstreamCalls = upstreamCalls;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.alertsTtl = Duration.ofSeconds(alertsTtlSeconds);
+        this.devicesTtl = Duration.ofSeconds(devicesTtlSeconds);
+        this.snapshots = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofSeconds(idleExpirationSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, "dashboard");
+    }
+
+    /**
+     * Devolve o snapshot do usuário, carregando em paralelo as partes pedidas que estão ausentes, invalidadas ou
+     * vencidas
+     *
+     * @param accessToken Token do usuário (uma entrada por sessão)
+     * @param required    Partes usadas pela página (sem elas a página não pode ser exibida); se nenhuma for
+     *                    informada, todas
+     * @return Snapshot (partes não pedidas ficam com o último valor ou vazias), ou a falha da primeira parte
+     *         pedida que falhou, com a mesma classificação e mensagem do service
+     */
+    public UpstreamResult<DashboardSnapshot> getSnapshot(String accessToken, DashboardSection... required) {
+        Snapshot snapshot = snapshots.get(accessToken, token -> new Snapshot());
+        Instant now = Instant.now();
+
+        Set<DashboardSection> requested = required.length > 0
+                ? EnumSet.copyOf(List.of(required))
+                : EnumSet.allOf(DashboardSection.class);
+        Set<DashboardSection> missing = EnumSet.noneOf(DashboardSection.class);
+        Map<DashboardSection, Long> versions = new EnumMap<>(DashboardSection.class);
+        synchronized (snapshot) {
+            for (DashboardSection section : requested) {
+                if (!snapshot.isFresh(section, now, maxAge(section))) {
+                    missing.add(section);
+                    versions.put(section, snapshot.version(section));
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            UpstreamResult.Failure<DashboardSnapshot> failure =
+                    load(accessToken, snapshot, missing, versions);
+            if (failure != null) {
+                return failure;
+            }
+        }
+
+        synchronized (snapshot) {
+            return UpstreamResult.success(snapshot.toDashboard());
+        }
+    }
+
+    /**
+     * Carrega as partes em paralelo; cada uma registra se veio da última resposta válida (API fora do ar)
+     *
+     * @return A falha da primeira parte que não carregou, ou {@code null}
+     */
+    private UpstreamResult.Failure<DashboardSnapshot> load(String accessToken, Snapshot snapshot,
+            Set<DashboardSection> missing, Map<DashboardSection, Long> versions) {
+        Map<DashboardSection, UpstreamTaskScope.Subtask<? extends Tracked<? extends UpstreamResult<?>>>> tasks =
+                new EnumMap<>(DashboardSection.class);
+
+        try (UpstreamTaskScope scope = upstreamCalls.open()) {
+            for (DashboardSection section : missing) {
+                tasks.put(section, switch (section) {
+                    case PETS -> scope.fork(() -> LastKnownGoodCache.track(() -> petService.listPets(accessToken)));
+                    case DEVICES -> scope.fork(
+                            () -> LastKnownGoodCache.track(() -> deviceService.listDevices(accessToken)));
+                    // Geofence ainda sinaliza falhas com exceções
+                    case GEOFENCE -> scope.fork(() -> LastKnownGoodCache.track(
+                            () -> UpstreamResult.success(geofenceService.getGeofence(accessToken))));
+                    case ALERTS -> scope.fork(
+                            () -> LastKnownGoodCache.track(() -> alertService.unreadAlertsCount(accessToken)));
+                });
+            }
+            scope.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return UpstreamResult.fromException(e);
+        }
+
+        Instant loadedAt = Instant.now();
+        UpstreamResult.Failure<DashboardSnapshot> failure = null;
+
+        for (Map.Entry<DashboardSection, UpstreamTaskScope.Subtask<? extends Tracked<? extends UpstreamResult<?>>>> task
+                : tasks.entrySet()) {
+            DashboardSection section = task.getKey();
+            UpstreamResult<?> result;
+            boolean stale = false;
+            try {
+                Tracked<? extends UpstreamResult<?>> tracked = task.getValue().get();
+                result = tracked.value();
+                stale = tracked.stale();
+            } catch (Exception e) {
+                // Prazo do escopo esgotado ou exceção de um service ainda baseado em exceções
+                result = UpstreamResult.fromException(e);
+            }
+
+            if (!(result instanceof UpstreamResult.Success<?> success)) {
+                UpstreamResult.Failure<?> sectionFailure = (UpstreamResult.Failure<?>) result;
+                log.warn("Falha ao carregar {} do painel: {}", section, sectionFailure.message());
+                if (failure == null) {
+                    failure = sectionFailure.cast();
+                }
+                continue;
+            }
+            Object value = success.value();
+
+            synchronized (snapshot) {
+                // Se a parte foi invalidada durante a carga, o valor lido pode ser anterior à alteração
+                // Uma resposta da última versão conhecida serve a esta requisição, mas a parte continua vencida
+                if (snapshot.version(section) == versions.get(section)) {
+                    snapshot.put(section, value, stale ? null : loadedAt);
+                }
+            }
+        }
+
+        return failure;
+    }
+
+    private Duration maxAge(DashboardSection section) {
+        // Alertas e o estado dos dispositivos (status, posição, última comunicação) mudam na API sem passar pela
+        // aplicação, então vencem mais cedo
+        return switch (section) {
+            case ALERTS -> alertsTtl;
+            case DEVICES -> devicesTtl;
+            default -> ttl;
+        };
+    }
+
+    /**
+     * Invalida a parte alterada do snapshot do usuário; a próxima leitura recarrega só essa parte
+     */
+    @EventListener
+    public void onDashboardChanged(DashboardChangedEvent event) {
+        Snapshot snapshot = snapshots.getIfPresent(event.accessToken());
+        if (snapshot != null) {
+            synchronized (snapshot) {
+                snapshot.invalidate(event.section());
+            }
+        }
+    }
+
+    /**
+     * O snapshot é indexado pelo token: ao renovar o token, as partes já carregadas passam para a nova chave
+     */
+    @EventListener
+    public void onAccessTokenRefreshed(AccessTokenRefreshedEvent event) {
+        Snapshot snapshot = snapshots.asMap().remove(event.previousToken());
+        if (snapshot != null) {
+            snapshots.asMap().putIfAbsent(event.accessToken(), snapshot);
+        }
+    }
+
+    /**
+     * Partes carregadas de um usuário. Cada parte tem um número de versão incrementado a cada invalidação;
+     * acesso sempre sincronizado no próprio objeto.
+     */
+    private static final class Snapshot {
+
+        private final Map<DashboardSection, Optional<Object>> values = new EnumMap<>(DashboardSection.class);
+        private final Map<DashboardSection, Instant> loadedAt = new EnumMap<>(DashboardSection.class);
+        private final Map<DashboardSection, Long> versions = new EnumMap<>(DashboardSection.class);
+
+        boolean isFresh(DashboardSection section, Instant now, Duration maxAge) {
+            Instant loaded = loadedAt.get(section);
+            return loaded != null && loaded.plus(maxAge).isAfter(now);
+        }
+
+        long version(DashboardSection section) {
+            return versions.getOrDefault(section, 0L);
+        }
+
+        /**
+         * @param loaded Momento da carga, ou {@code null} para um valor que só vale para a requisição atual
+         */
+        void put(DashboardSection section, Object value, Instant loaded) {
+            values.put(section, Optional.ofNullable(value));
+            if (loaded != null) {
+                loadedAt.put(section, loaded);
+            } else {
+                loadedAt.remove(section);
+            }
+        }
+
+        void invalidate(DashboardSection section) {
+            loadedAt.remove(section);
+            versions.merge(section, 1L, Long::sum);
+        }
+
+        @SuppressWarnings("unchecked")
+        DashboardSnapshot toDashboard() {
+            Instant oldest = loadedAt.values().stream().min(Instant::compareTo).orElse(Instant.now());
+            return DashboardSnapshot.builder()
+                    .pets((List<PetResponse>) value(DashboardSection.PETS, List.of()))
+                    .devices((List<DeviceResponse>) value(DashboardSection.DEVICES, List.of()))
+                    .geofence((GeofenceResponse) value(DashboardSection.GEOFENCE, null))
+                    .unreadAlerts((Integer) value(DashboardSection.ALERTS, 0))
+                    .loadedAt(oldest)
+                    .build();
+        }
+
+        private Object value(DashboardSection section, Object fallback) {
+            Optional<Object> value = values.get(section);
+            return value != null ? value.orElse(fallback) : fallback;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.petsafeweb.service;
+
+import com.example.petsafeweb.dto.DeviceResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Monta o GeoJSON do mapa geral de dispositivos a partir da última posição de cada um
+ * Dispositivos próximos (mesma célula de uma grade em pixels no zoom pedido) viram um único ponto de cluster,
+ * então contas com muitos dispositivos recebem poucos marcadores; nenhuma chamada extra à API é feita.
+ */
+@Component
+public class DeviceClusterer {
+
+    // Tiles de 256px do Web Mercator (o mesmo do Leaflet)
+    private static final double TILE_SIZE = 256;
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    @Value("${petsafe.devices.map.cluster-cell-px:60}")
+    private int cellSizePx;
+
+    // A partir deste zoom os dispositivos são sempre exibidos individualmente
+    @Value("${petsafe.devices.map.cluster-max-zoom:17}")
+    private int clusterMaxZoom;
+
+    /**
+     * @param devices Dispositivos do usuário (os sem posição conhecida são apenas contados)
+     * @param zoom    Nível de zoom do mapa (0 a 22)
+     * @return FeatureCollection com um Point por dispositivo ou por cluster
+     */
+    public Map<String, Object> toGeoJson(List<DeviceResponse> devices, int zoom) {
+        double worldSize = TILE_SIZE * Math.pow(2, zoom);
+        boolean clustering = zoom < clusterMaxZoom;
+
+        Map<String, Cell> cells = new LinkedHashMap<>();
+        int withoutPosition = 0;
+        double minLat = Double.POSITIVE_INFINITY, minLng = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY, maxLng = Double.NEGATIVE_INFINITY;
+
+        for (DeviceResponse device : devices) {
+            Double lat = device.getLastLatitude();
+            Double lng = device.getLastLongitude();
+            if (lat == null || lng == null) {
+                withoutPosition++;
+                continue;
+            }
+
+            minLat = Math.min(minLat, lat);
+            maxLat = Math.max(maxLat, lat);
+            minLng = Math.min(minLng, lng);
+            maxLng = Math.max(maxLng, lng);
+
+            String key;
+            if (clustering) {
+                long column = (long) Math.floor(projectX(lng, worldSize) / cellSizePx);
+                long row = (long) Math.floor(projectY(lat, worldSize) / cellSizePx);
+                key = column + ":" + row;
+            } else {
+                key = "device:" + device.getId();
+            }
+            cells.computeIfAbsent(key, k -> new Cell()).add(device);
+        }
+
+        List<Map<String, Object>> features = new ArrayList<>(cells.size());
+        for (Cell cell : cells.values()) {
+            features.add(cell.devices.size() == 1 ? deviceFeature(cell.devices.get(0)) : cell.toFeature());
+        }
+
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("zoom", zoom);
+        properties.put("device_count", devices.size() - withoutPosition);
+        properties.put("without_position", withoutPosition);
+        if (withoutPosition < devices.size()) {
+            properties.put("bounds", List.of(minLng, minLat, maxLng, maxLat));
+        }
+
+        Map<String, Object> collection = new LinkedHashMap<>();
+        collection.put("type", "FeatureCollection");
+        collection.put("properties", properties);
+        collection.put("features", features);
+        return collection;
+    }
+
+    private static Map<String, Object> deviceFeature(DeviceResponse device) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("cluster", false);
+        properties.put("id", device.getId());
+        properties.put("serial_number", device.getSerialNumber());
+        properties.put("pet_id", device.getPetId());
+        properties.put("active", device.getActive());
+        properties.put("last_comm", device.getLastComm() != null ? device.getLastComm().toString() : null);
+        return feature(device.getLastLatitude(), device.getLastLongitude(), properties);
+    }
+
+    private static Map<String, Object> feature(double lat, double lng, Map<String, Object> properties) {
+        Map<String, Object> geometry = new LinkedHashMap<>();
+        geometry.put("type", "Point");
+        geometry.put("coordinates", List.of(lng, lat));
+
+        Map<String, Object> feature = new LinkedHashMap<>();
+        feature.put("type", "Feature");
+        feature.put("geometry", geometry);
+        feature.put("properties", properties);
+        return feature;
+    }
+
+    private static double projectX(double lng, double worldSize) {
+        return (lng + 180) / 360 * worldSize;
+    }
+
+    private static double projectY(double lat, double worldSize) {
+        double clamped = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, lat));
+        double sin = Math.sin(Math.toRadians(clamped));
+        return (0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI)) * worldSize;
+    }
+
+    /**
+     * Dispositivos de uma célula da grade; o cluster fica no centroide e leva os limites para o "zoom no clique"
+     */
+    private static final class Cell {
+
+        private final List<DeviceResponse> devices = new ArrayList<>();
+        private double sumLat;
+        private double sumLng;
+
+        void add(DeviceResponse device) {
+            devices.add(device);
+            sumLat += device.getLastLatitude();
+            sumLng += device.getLastLongitude();
+        }
+
+        Map<String, Object> toFeature() {
+            double minLat = Double.POSITIVE_INFINITY, minLng = Double.POSITIVE_INFINITY;
+            double maxLat = Double.NEGATIVE_INFINITY, maxLng = Double.NEGATIVE_INFINITY;
+            List<Long> ids = new ArrayList<>(devices.size());
+            for (DeviceResponse device : devices) {
+                minLat = Math.min(minLat, device.getLastLatitude());
+                maxLat = Math.max(maxLat, device.getLastLatitude());
+                minLng = Math.min(minLng, device.getLastLongitude());
+                maxLng = Math.max(maxLng, device.getLastLongitude());
+                ids.add(device.getId());
+            }
+
+            Map<String, Object> properties = new LinkedHashMap<>();
+            properties.put("cluster", true);
+            properties.put("count", devices.size());
+            properties.put("device_ids", ids);
+            properties.put("bounds", List.of(minLng, minLat, maxLng, maxLat));
+            return feature(sumLat / devices.size(), sumLng / devices.size(), properties);
+        }
+    }
+}
@@ -3,30 +3,44 @@ package com.example.petsafeweb.service;
 import com.example.petsafeweb.dto.DeviceRequest;
 import com.example.petsafeweb.dto.DeviceResponse;
 import com.example.petsafeweb.dto.DevicesListResponse;
-import com.example.petsafeweb.dto.ErrorResponse;
-import com.example.petsafeweb.dto.LocationResponse;
 import com.example.petsafeweb.dto.LocationListResponse;
+import com.example.petsafeweb.dto.LocationResponse;
+import com.example.petsafeweb.service.UpstreamResult.Reason;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.core.ParameterizedTypeReference;
-import java.util.Map;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service para gerenciamento de dispositivos via API
+ * Os métodos devolvem {@link UpstreamResult}: respostas de erro da API não viram exceções.
  */
 @Slf4j
 @Service
 public class DeviceService {
 
+    private static final String CONNECTION_ERROR = "Erro ao conectar com o servidor.";
+    private static final String SESSION_EXPIRED_MESSAGE = "Sessão expirada. Faça login novamente.";
+    private static final String NOT_FOUND_MESSAGE = "Dispositivo não encontrado.";
+
     private final RestTemplate restTemplate;
+    private final UpstreamClient upstreamClient;
     private final ObjectMapper objectMapper;
+    private final RequestCoalescer requestCoalescer;
+    private final LastKnownGoodCache lastKnownGood;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${petsafe.api.base-url}")
     private String apiBaseUrl;
@@ -34,197 +48,162 @@ public class DeviceService {
     @Value("${petsafe.api.endpoints.devices}")
     private String devicesEndpoint; // Deve ser /devices no application.properties
 
-    public DeviceService(RestTemplate restTemplate, ObjectMapper objectMapper) {
+    @Value("${petsafe.locations.export.page-size:1000}")
+    private int exportPageSize;
+
+    public DeviceService(RestTemplate restTemplate, UpstreamClient upstreamClient, ObjectMapper objectMapper,
+            RequestCoalescer requestCoalescer, LastKnownGoodCache lastKnownGood,
+            ApplicationEventPublisher eventPublisher) {
         this.restTemplate = restTemplate;
+        this.upstreamClient = upstreamClient;
         this.objectMapper = objectMapper;
+        this.requestCoalescer = requestCoalescer;
+        this.lastKnownGood = lastKnownGood;
+        this.eventPublisher = eventPublisher;
     }
 
-    private HttpHeaders createAuthHeaders(String accessToken) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(accessToken);
-        return headers;
+    /**
+     * Avisa o snapshot do painel que os dispositivos (e, se houve vínculo, os pets) do usuário mudaram
+     */
+    private void publishChange(String accessToken, boolean petsChanged) {
+        eventPublisher.publishEvent(new DashboardChangedEvent(accessToken, DashboardSection.DEVICES));
+        if (petsChanged) {
+            eventPublisher.publishEvent(new DashboardChangedEvent(accessToken, DashboardSection.PETS));
+        }
+    }
+
+    /**
+     * Falha com a classificação padrão do status e as mensagens usadas pelas telas de dispositivos
+     * (também usada pelo {@link ReactiveDeviceService}, para as duas versões responderem igual)
+     */
+    static <T> UpstreamResult.Failure<T> describe(UpstreamError error, String defaultMessage) {
+        Reason reason = Reason.of(error);
+        return UpstreamResult.failure(reason, error, switch (reason) {
+            case SESSION_EXPIRED -> SESSION_EXPIRED_MESSAGE;
+            case NOT_FOUND -> NOT_FOUND_MESSAGE;
+            case UNAVAILABLE -> CONNECTION_ERROR;
+            case REJECTED -> defaultMessage;
+        });
     }
 
     // --- CREATE DEVICE (func CreateDevice) ---
-    public DeviceResponse createDevice(DeviceRequest deviceRequest, String accessToken) throws Exception {
+    public UpstreamResult<DeviceResponse> createDevice(DeviceRequest deviceRequest, String accessToken) {
         String url = apiBaseUrl + devicesEndpoint;
 
-        try {
-            HttpHeaders headers = createAuthHeaders(accessToken);
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<DeviceRequest> request = new HttpEntity<>(deviceRequest, headers);
-
-            ResponseEntity<DeviceResponse> response = restTemplate.exchange(
-                    url, HttpMethod.POST, request, DeviceResponse.class);
-
-            return response.getBody();
-
-        } catch (HttpClientErrorException e) {
-            log.error("Erro ao criar dispositivo. Status: {}, Body: {}",
-                    e.getStatusCode(), e.getResponseBodyAsString());
-
-            // Tratamento de erro semelhante ao PetService
-            try {
-                ErrorResponse errorResponse = objectMapper.readValue(e.getResponseBodyAsString(), ErrorResponse.class);
-                throw new Exception(errorResponse.getMessage() != null
-                        ? errorResponse.getMessage()
-                        : "Erro ao criar dispositivo (serial duplicado?)");
-            } catch (Exception parseException) {
-                if (e.getStatusCode() == HttpStatus.BAD_REQUEST) {
-                    throw new Exception("Dados inválidos ou serial duplicado. Verifique as informações.");
-                } else {
-                    throw new Exception("Erro ao criar dispositivo. Tente novamente mais tarde.");
-                }
-            }
-        } catch (Exception e) {
-            log.error("Erro inesperado ao criar dispositivo", e);
-            throw new Exception("Erro ao conectar com o servidor.");
+        UpstreamResult<DeviceResponse> result = upstreamClient.exchange(
+                HttpMethod.POST, url, accessToken, deviceRequest, DeviceResponse.class);
+        if (result.isSuccess()) {
+            publishChange(accessToken, deviceRequest.getPetId() != null);
         }
+
+        return result.describeFailure(error -> {
+            log.error("Erro ao criar dispositivo: {}, Body: {}", error, error.getBody());
+            if (error.isUnavailable() || error.is(HttpStatus.UNAUTHORIZED)) {
+                return describe(error, null);
+            }
+            // Mensagem da API (ex.: serial duplicado), se houver
+            return UpstreamResult.failureWithApiMessage(Reason.of(error), error,
+                    error.is(HttpStatus.BAD_REQUEST)
+                            ? "Dados inválidos ou serial duplicado. Verifique as informações."
+                            : "Erro ao criar dispositivo. Tente novamente mais tarde.");
+        });
     }
 
     // --- LIST DEVICES (func ListDevices) ---
-    public List<DeviceResponse> listDevices(String accessToken) throws Exception {
+    public UpstreamResult<List<DeviceResponse>> listDevices(String accessToken) {
         String url = apiBaseUrl + devicesEndpoint;
-
-        try {
-            HttpHeaders headers = createAuthHeaders(accessToken);
-            HttpEntity<?> request = new HttpEntity<>(headers);
-
-            ResponseEntity<DevicesListResponse> response = restTemplate.exchange(
-                    url, HttpMethod.GET, request, DevicesListResponse.class);
-
-            DevicesListResponse listResponse = response.getBody();
-            return listResponse != null && listResponse.getData() != null ? listResponse.getData() : List.of();
-
-        } catch (HttpClientErrorException e) {
-            log.error("Erro ao listar dispositivos. Status: {}", e.getStatusCode());
-            if (e.getStatusCode() == HttpStatus.UNAUTHORIZED) {
-                throw new Exception("Sessão expirada. Faça login novamente.");
-            }
-            return List.of(); // Retorna vazio se não houver dispositivos
-        } catch (Exception e) {
-            log.error("Erro inesperado ao listar dispositivos", e);
-            throw new Exception("Erro ao conectar com o servidor.");
+        // Abas/usuários da mesma conta pedindo a lista ao mesmo tempo compartilham uma única chamada
+        UpstreamResult<List<DeviceResponse>> result = requestCoalescer.execute(url, accessToken,
+                () -> fetchDevices(url, accessToken));
+
+        if (result instanceof UpstreamResult.Failure<List<DeviceResponse>> failure
+                && failure.reason() == Reason.UNAVAILABLE) {
+            // API fora do ar: exibe a última lista conhecida (a página é marcada como desatualizada)
+            return lastKnownGood.<List<DeviceResponse>>recallIfPresent(url, accessToken, failure.message())
+                    .map(UpstreamResult::success)
+                    .orElse(result);
         }
+        return result.map(devices -> lastKnownGood.remember(url, accessToken, devices));
+    }
+
+    private UpstreamResult<List<DeviceResponse>> fetchDevices(String url, String accessToken) {
+        return upstreamClient.exchange(HttpMethod.GET, url, accessToken, null, DevicesListResponse.class)
+                .<List<DeviceResponse>>map(body -> body != null && body.getData() != null ? body.getData() : List.of())
+                .describeFailure(error -> {
+                    log.error("Erro ao listar dispositivos: {}", error);
+                    if (error.isUnavailable() || error.is(HttpStatus.UNAUTHORIZED)) {
+                        return describe(error, null);
+                    }
+                    return UpstreamResult.success(List.of()); // Retorna vazio se não houver dispositivos
+                });
     }
 
     // --- DEVICE STATUS (func DeviceStatus) ---
-    public DeviceResponse getDeviceStatus(Long deviceId, String accessToken) throws Exception {
+    public UpstreamResult<DeviceResponse> getDeviceStatus(Long deviceId, String accessToken) {
         String url = apiBaseUrl + devicesEndpoint + "/" + deviceId;
 
-        try {
-            HttpHeaders headers = createAuthHeaders(accessToken);
-            HttpEntity<?> request = new HttpEntity<>(headers);
-
-            ResponseEntity<DeviceResponse> response = restTemplate.exchange(
-                    url, HttpMethod.GET, request, DeviceResponse.class);
-
-            return response.getBody();
-
-        } catch (HttpClientErrorException e) {
-            log.error("Erro ao buscar status do dispositivo. Status: {}", e.getStatusCode());
-            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
-                throw new Exception("Dispositivo não encontrado.");
-            }
-            throw new Exception("Erro ao buscar status do dispositivo.");
-        } catch (Exception e) {
-            log.error("Erro inesperado ao buscar status do dispositivo", e);
-            throw new Exception("Erro ao conectar com o servidor.");
-        }
+        return upstreamClient.exchange(HttpMethod.GET, url, accessToken, null, DeviceResponse.class)
+                .describeFailure(error -> {
+                    log.error("Erro ao buscar status do dispositivo: {}", error);
+                    return describe(error, "Erro ao buscar status do dispositivo.");
+                });
     }
 
     // --- UPDATE DEVICE (func UpdateDevice) ---
-    public DeviceResponse updateDevice(Long deviceId, DeviceRequest deviceRequest, String accessToken)
-            throws Exception {
+    public UpstreamResult<DeviceResponse> updateDevice(Long deviceId, DeviceRequest deviceRequest,
+            String accessToken) {
         String url = apiBaseUrl + devicesEndpoint + "/" + deviceId;
 
-        try {
-            HttpHeaders headers = createAuthHeaders(accessToken);
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<DeviceRequest> request = new HttpEntity<>(deviceRequest, headers);
-
-            // PATCH é o método usado no Go para UpdateDevice
-            ResponseEntity<DeviceResponse> response = restTemplate.exchange(
-                    url, HttpMethod.PATCH, request, DeviceResponse.class);
-
-            return response.getBody();
-
-        } catch (HttpClientErrorException e) {
-            log.error("Erro ao atualizar dispositivo. Status: {}, Body: {}",
-                    e.getStatusCode(), e.getResponseBodyAsString());
-
-            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
-                throw new Exception("Dispositivo não encontrado.");
-            }
-            throw new Exception("Erro ao atualizar dispositivo. Tente novamente mais tarde.");
-        } catch (Exception e) {
-            log.error("Erro inesperado ao atualizar dispositivo", e);
-            throw new Exception("Erro ao conectar com o servidor.");
+        // PATCH é o método usado no Go para UpdateDevice
+        UpstreamResult<DeviceResponse> result = upstreamClient.exchange(
+                HttpMethod.PATCH, url, accessToken, deviceRequest, DeviceResponse.class);
+        if (result.isSuccess()) {
+            publishChange(accessToken, deviceRequest.getPetId() != null);
         }
+
+        return result.describeFailure(error -> {
+            log.error("Erro ao atualizar dispositivo: {}, Body: {}", error, error.getBody());
+            return describe(error, "Erro ao atualizar dispositivo. Tente novamente mais tarde.");
+        });
     }
 
     // --- DELETE DEVICE (func DeleteDevice) ---
-    public void deleteDevice(Long deviceId, String accessToken) throws Exception {
+    public UpstreamResult<Void> deleteDevice(Long deviceId, String accessToken) {
         String url = apiBaseUrl + devicesEndpoint + "/" + deviceId;
 
-        try {
-            HttpHeaders headers = createAuthHeaders(accessToken);
-            HttpEntity<?> request = new HttpEntity<>(headers);
-
-            restTemplate.exchange(url, HttpMethod.DELETE, request, Void.class);
-
-        } catch (HttpClientErrorException e) {
-            log.error("Erro ao excluir dispositivo. Status: {}", e.getStatusCode());
-            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
-                throw new Exception("Dispositivo não encontrado.");
-            }
-            throw new Exception("Erro ao excluir dispositivo. Tente novamente mais tarde.");
-        } catch (Exception e) {
-            log.error("Erro inesperado ao excluir dispositivo", e);
-            throw new Exception("Erro ao conectar com o servidor.");
+        UpstreamResult<Void> result = upstreamClient.exchange(HttpMethod.DELETE, url, accessToken, null, Void.class);
+        if (result.isSuccess()) {
+            // O pet vinculado ao dispositivo excluído também muda
+            publishChange(accessToken, true);
         }
+
+        return result.describeFailure(error -> {
+            log.error("Erro ao excluir dispositivo: {}", error);
+            return describe(error, "Erro ao excluir dispositivo. Tente novamente mais tarde.");
+        });
     }
 
     /**
      * Busca os detalhes/status de um dispositivo por ID.
      * Mapeia para o endpoint Go: GET /devices/{id}/status
      */
-    public DeviceResponse getDeviceDetails(Long deviceId, String accessToken) throws Exception {
+    public UpstreamResult<DeviceResponse> getDeviceDetails(Long deviceId, String accessToken) {
         // Rota corrigida para usar o endpoint /devices/{id}/status
         String url = apiBaseUrl + devicesEndpoint + "/" + deviceId + "/status";
 
-        try {
-            HttpHeaders headers = createAuthHeaders(accessToken);
-            HttpEntity<?> request = new HttpEntity<>(headers);
-
-            // O endpoint DeviceStatus no Go retorna a estrutura do Device:
-            // c.JSON(http.StatusOK, gin.H{"data": device})
-            ResponseEntity<Map<String, DeviceResponse>> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    request,
-                    new ParameterizedTypeReference<Map<String, DeviceResponse>>() {
-                    });
-
-            Map<String, DeviceResponse> body = response.getBody();
-            if (body == null || !body.containsKey("data")) {
-                throw new Exception("Resposta do servidor inválida ao buscar dispositivo.");
-            }
-
-            return body.get("data");
-
-        } catch (HttpClientErrorException e) {
-            log.error("Erro ao buscar detalhes do dispositivo. Status: {}", e.getStatusCode());
-            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
-                throw new Exception("Dispositivo não encontrado.");
-            }
-            throw new Exception("Erro ao buscar detalhes. Status: " + e.getStatusCode());
-        } catch (Exception e) {
-            log.error("Erro inesperado ao buscar detalhes do dispositivo", e);
-            throw new Exception("Erro ao conectar com o servidor.");
-        }
+        // O endpoint DeviceStatus no Go retorna a estrutura do Device:
+        // c.JSON(http.StatusOK, gin.H{"data": device})
+        return upstreamClient.exchange(HttpMethod.GET, url, accessToken, null,
+                        new ParameterizedTypeReference<Map<String, DeviceResponse>>() {
+                        })
+                .describeFailure(error -> {
+                    log.error("Erro ao buscar detalhes do dispositivo: {}", error);
+                    return describe(error, "Erro ao buscar detalhes. Status: " + error.getStatus());
+                })
+                .flatMap(body -> body != null && body.containsKey("data")
+                        ? UpstreamResult.success(body.get("data"))
+                        : UpstreamResult.failure(Reason.UNAVAILABLE, UpstreamError.unreachable(null),
+                                "Resposta do servidor inválida ao buscar dispositivo."));
     }
 
     // --- LIST DEVICE LOCATIONS (func ListDeviceLocations) ---
@@ -232,35 +211,99 @@ public class DeviceService {
      * Lista as localizações mais recentes de um dispositivo.
      * Mapeia para o endpoint Go: GET /devices/{id}/locations/{limit}
      */
-    public List<LocationResponse> listDeviceLocations(Long deviceId, int limit, String accessToken) throws Exception {
+    public UpstreamResult<List<LocationResponse>> listDeviceLocations(Long deviceId, int limit, String accessToken) {
         // Assume uma rota como /devices/{id}/locations/{limit} (Baseado no devices.go)
         String url = apiBaseUrl + devicesEndpoint + "/" + deviceId + "/locations/" + limit;
 
+        // Retorna a lista de localizações (campo 'data' do JSON) ou uma lista vazia
+        return upstreamClient.exchange(HttpMethod.GET, url, accessToken, null, LocationListResponse.class)
+                .<List<LocationResponse>>map(body -> body != null && body.getData() != null
+                        ? body.getData()
+                        : List.of())
+                .describeFailure(error -> {
+                    log.error("Erro ao listar localizações do dispositivo: {}", error);
+                    return describe(error, "Erro ao listar localizações. Tente novamente mais tarde.");
+                });
+    }
+
+    /**
+     * Abre o histórico de localizações para leitura incremental (exportação).
+     * Diferente de {@link #listDeviceLocations}, o corpo não é desserializado de uma vez: os pontos são lidos
+     * da conexão conforme o chamador os consome, e o histórico é pedido à API em páginas de
+     * {@code petsafe.locations.export.page-size} pontos, então a memória usada (aqui e na API) não depende do
+     * tamanho do histórico.
+     * Só a primeira página é pedida aqui, para que os erros da API virem a resposta HTTP; uma falha nas páginas
+     * seguintes interrompe o download.
+     *
+     * @return Stream que deve ser fechado pelo chamador (libera a conexão com a API), ou a falha
+     */
+    public UpstreamResult<LocationHistoryStream> openLocationHistory(Long deviceId, int limit, String accessToken) {
+        int firstPageLimit = Math.min(limit, exportPageSize);
+
+        ClientHttpResponse response;
         try {
-            HttpHeaders headers = createAuthHeaders(accessToken);
-            HttpEntity<?> request = new HttpEntity<>(headers);
-
-            // CORREÇÃO: Usando o novo DTO wrapper LocationListResponse
-            ResponseEntity<LocationListResponse> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    request,
-                    LocationListResponse.class // Usa o DTO wrapper
-            );
-
-            LocationListResponse listResponse = response.getBody();
-            // Retorna a lista de localizações (campo 'data' do JSON) ou uma lista vazia
-            return listResponse != null && listResponse.getData() != null ? listResponse.getData() : List.of();
-
-        } catch (HttpClientErrorException e) {
-            log.error("Erro ao listar localizações do dispositivo. Status: {}", e.getStatusCode());
-            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
-                throw new Exception("Dispositivo não encontrado.");
+            response = openLocationsPage(deviceId, firstPageLimit, null, accessToken);
+        } catch (IOException e) {
+            log.error("Erro inesperado ao exportar localizações", e);
+            return describe(UpstreamError.unreachable(e), null);
+        }
+
+        try {
+            HttpStatusCode status = response.getStatusCode();
+            if (!status.is2xxSuccessful()) {
+                byte[] errorBody = readAndClose(response);
+                log.error("Erro ao exportar localizações do dispositivo. Status: {}", status);
+                return describe(UpstreamError.response(status, errorBody, objectMapper),
+                        "Erro ao listar localizações. Tente novamente mais tarde.");
             }
-            throw new Exception("Erro ao listar localizações. Tente novamente mais tarde.");
-        } catch (Exception e) {
-            log.error("Erro inesperado ao listar localizações", e);
-            throw new Exception("Erro ao conectar com o servidor.");
+            return UpstreamResult.success(LocationHistoryStream.open(response, objectMapper, limit, exportPageSize,
+                    (beforeId, pageLimit) -> openNextLocationsPage(deviceId, pageLimit, beforeId, accessToken)));
+        } catch (IOException e) {
+            response.close();
+            log.error("Resposta inválida ao exportar localizações", e);
+            return UpstreamResult.failure(Reason.UNAVAILABLE, UpstreamError.unreachable(e),
+                    "Resposta do servidor inválida ao listar localizações.");
+        }
+    }
+
+    /**
+     * Página seguinte do histórico; um status de erro vira IOException (o download já começou)
+     */
+    private ClientHttpResponse openNextLocationsPage(Long deviceId, int pageLimit, long beforeId,
+            String accessToken) throws IOException {
+        ClientHttpResponse response = openLocationsPage(deviceId, pageLimit, beforeId, accessToken);
+        HttpStatusCode status = response.getStatusCode();
+        if (!status.is2xxSuccessful()) {
+            readAndClose(response);
+            throw new IOException("Erro ao exportar localizações do dispositivo " + deviceId
+                    + " (before_id=" + beforeId + "). Status: " + status);
+        }
+        return response;
+    }
+
+    /**
+     * GET /devices/{id}/locations/{limit}[?before_id=N], sem ler o corpo
+     */
+    private ClientHttpResponse openLocationsPage(Long deviceId, int pageLimit, Long beforeId, String accessToken)
+            throws IOException {
+        String url = apiBaseUrl + devicesEndpoint + "/" + deviceId + "/locations/" + pageLimit
+                + (beforeId != null ? "?before_id=" + beforeId : "");
+
+        // getRequestFactory() inclui os interceptors configurados no RestTemplate
+        ClientHttpRequest request = restTemplate.getRequestFactory().createRequest(URI.create(url), HttpMethod.GET);
+        request.getHeaders().setBearerAuth(accessToken);
+        request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+        return request.execute();
+    }
+
+    /**
+     * Lê o corpo de uma resposta de erro (pequeno) antes de fechá-la, para a conexão voltar ao pool
+     */
+    private static byte[] readAndClose(ClientHttpResponse response) {
+        try (response) {
+            return StreamUtils.copyToByteArray(response.getBody());
+        } catch (IOException e) {
+            return new byte[0];
         }
     }
-}
\ No newline at end of file
+}
@@ -5,13 +5,22 @@ import com.example.petsafeweb.dto.GeofenceDataResponse;
 import com.example.petsafeweb.dto.GeofenceRequest;
 import com.example.petsafeweb.dto.GeofenceResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.Optional;
+
 /**
  * Service para gerenciamento de geofences via API
  */
@@ -21,21 +30,132 @@ public class GeofenceService {
 
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final RequestCoalescer requestCoalescer;
+    private final LastKnownGoodCache lastKnownGood;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Geofence por token de acesso; Optional.empty() representa "usuário sem geofence"
+    private final Cache<String, Optional<GeofenceResponse>> geofenceCache;
+    // Versão do geofence de cada token, incrementada a cada escrita: uma leitura iniciada antes da escrita não
+    // sobrescreve o valor gravado por ela
+    private final Cache<String, Long> versions;
 
     @Value("${petsafe.api.base-url}")
     private String apiBaseUrl;
 
-    public GeofenceService(RestTemplate restTemplate, ObjectMapper objectMapper) {
+    public GeofenceService(RestTemplate restTemplate, ObjectMapper objectMapper, RequestCoalescer requestCoalescer,
+            LastKnownGoodCache lastKnownGood, ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+            @Value("${petsafe.cache.geofence.ttl-seconds:300}") long ttlSeconds,
+            @Value("${petsafe.cache.geofence.max-size:10000}") long maxSize) {
         this.restTemplate = restTemplate;
         this.objectMapper = objectMapper;
+        this.requestCoalescer = requestCoalescer;
+        this.lastKnownGood = lastKnownGood;
+        this.eventPublisher = eventPublisher;
+        this.geofenceCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofSeconds(ttlSeconds))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, geofenceCache, "geofence");
     }
 
     /**
      * Busca o geofence do usuário autenticado
+     * O resultado (inclusive a ausência de geofence) fica em cache até expirar ou ser alterado
      */
     public GeofenceResponse getGeofence(String accessToken) {
+        Optional<GeofenceResponse> cached = geofenceCache.getIfPresent(accessToken);
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+
+        // Misses simultâneos (várias abas) compartilham uma única chamada à API
+        String url = apiBaseUrl + "/api/v1/geofence";
+        try {
+            return requestCoalescer.execute(url, accessToken, () -> {
+                long version = version(accessToken);
+                GeofenceResponse geofence = fetchGeofence(url, accessToken);
+                cacheFetched(accessToken, version, Optional.ofNullable(geofence));
+                return geofence;
+            });
+        } catch (UpstreamUnavailableException e) {
+            // API fora do ar: usa o último geofence conhecido (a página é marcada como desatualizada)
+            Optional<GeofenceResponse> stale = lastKnownGood.recall(url, accessToken, e);
+            return stale.orElse(null);
+        }
+    }
+
+    private long version(String accessToken) {
+        return versions.asMap().getOrDefault(accessToken, 0L);
+    }
+
+    /**
+     * Guarda o geofence lido da API, a menos que uma escrita tenha acontecido desde o início da leitura
+     * (o valor lido pode ser anterior a ela)
+     */
+    private void cacheFetched(String accessToken, long readVersion, Optional<GeofenceResponse> geofence) {
+        geofenceCache.asMap().compute(accessToken, (token, current) -> {
+            if (version(token) != readVersion) {
+                return current;
+            }
+            lastKnownGood.remember(apiBaseUrl + "/api/v1/geofence", token, geofence);
+            return geofence;
+        });
+    }
+
+    /**
+     * Grava o resultado de uma escrita no cache de curta duração e na última resposta válida
+     */
+    private void cacheWritten(String accessToken, Optional<GeofenceResponse> geofence) {
+        geofenceCache.asMap().compute(accessToken, (token, current) -> {
+            versions.asMap().merge(token, 1L, Long::sum);
+            return geofence;
+        });
+        lastKnownGood.remember(apiBaseUrl + "/api/v1/geofence", accessToken, geofence);
+        publishChange(accessToken);
+    }
+
+    /**
+     * Escrita sem resposta de sucesso (4xx, 5xx, timeout, circuito aberto): o estado no servidor é incerto, a
+     * escrita pode ter sido aplicada, então força nova leitura
+     */
+    private void writeFailed(String accessToken) {
+        geofenceCache.asMap().compute(accessToken, (token, current) -> {
+            versions.asMap().merge(token, 1L, Long::sum);
+            return null;
+        });
+        publishChange(accessToken);
+    }
+
+    /**
+     * O cache é indexado pelo token: ao renovar o token, a geofence já carregada passa para a nova chave
+     */
+    @EventListener
+    public void onAccessTokenRefreshed(AccessTokenRefreshedEvent event) {
+        Long version = versions.asMap().remove(event.previousToken());
+        if (version != null) {
+            versions.asMap().merge(event.accessToken(), version, Math::max);
+        }
+        Optional<GeofenceResponse> geofence = geofenceCache.asMap().remove(event.previousToken());
+        if (geofence != null) {
+            geofenceCache.asMap().putIfAbsent(event.accessToken(), geofence);
+        }
+    }
+
+    /**
+     * Avisa o snapshot do painel que a área segura do usuário mudou
+     */
+    private void publishChange(String accessToken) {
+        eventPublisher.publishEvent(new DashboardChangedEvent(accessToken, DashboardSection.GEOFENCE));
+    }
+
+    private GeofenceResponse fetchGeofence(String url, String accessToken) {
         try {
-            String url = apiBaseUrl + "/api/v1/geofence";
 
             HttpHeaders headers = new HttpHeaders();
             headers.setBearerAuth(accessToken);
@@ -62,7 +182,7 @@ public class GeofenceService {
             throw new RuntimeException("Erro ao buscar geofence: " + e.getMessage());
         } catch (Exception e) {
             log.error("Erro inesperado ao buscar geofence", e);
-            throw new RuntimeException("Erro ao buscar geofence");
+            throw new UpstreamUnavailableException("Erro ao buscar geofence", e);
         }
     }
 
@@ -87,12 +207,15 @@ public class GeofenceService {
             );
 
             if (response.getBody() != null && response.getBody().getData() != null) {
-                return response.getBody().getData();
+                GeofenceResponse created = response.getBody().getData();
+                cacheWritten(accessToken, Optional.of(created));
+                return created;
             }
 
             throw new RuntimeException("Resposta vazia ao criar geofence");
         } catch (HttpClientErrorException e) {
             log.error("Erro ao criar geofence: {}", e.getResponseBodyAsString());
+            writeFailed(accessToken);
             try {
                 ErrorResponse error = objectMapper.readValue(e.getResponseBodyAsString(), ErrorResponse.class);
                 throw new RuntimeException(error.getError());
@@ -101,6 +224,7 @@ public class GeofenceService {
             }
         } catch (Exception e) {
             log.error("Erro inesperado ao criar geofence", e);
+            writeFailed(accessToken);
             throw new RuntimeException("Erro ao criar geofence");
         }
     }
@@ -126,12 +250,15 @@ public class GeofenceService {
             );
 
             if (response.getBody() != null && response.getBody().getData() != null) {
-                return response.getBody().getData();
+                GeofenceResponse updated = response.getBody().getData();
+                cacheWritten(accessToken, Optional.of(updated));
+                return updated;
             }
 
             throw new RuntimeException("Resposta vazia ao atualizar geofence");
         } catch (HttpClientErrorException e) {
             log.error("Erro ao atualizar geofence: {}", e.getResponseBodyAsString());
+            writeFailed(accessToken);
             try {
                 ErrorResponse error = objectMapper.readValue(e.getResponseBodyAsString(), ErrorResponse.class);
                 throw new RuntimeException(error.getError());
@@ -140,6 +267,7 @@ public class GeofenceService {
             }
         } catch (Exception e) {
             log.error("Erro inesperado ao atualizar geofence", e);
+            writeFailed(accessToken);
             throw new RuntimeException("Erro ao atualizar geofence");
         }
     }
@@ -163,11 +291,14 @@ public class GeofenceService {
                 Void.class
             );
 
+            cacheWritten(accessToken, Optional.empty());
         } catch (HttpClientErrorException e) {
             log.error("Erro ao deletar geofence: {}", e.getResponseBodyAsString());
+            writeFailed(accessToken);
             throw new RuntimeException("Erro ao deletar geofence: " + e.getMessage());
         } catch (Exception e) {
             log.error("Erro inesperado ao deletar geofence", e);
+            writeFailed(accessToken);
             throw new RuntimeException("Erro ao deletar geofence");
         }
     }
@@ -0,0 +1,154 @@
+package com.example.petsafeweb.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Última resposta válida de cada leitura da API (por URL e usuário)
+ * Quando a API está indisponível, as páginas são montadas com esses dados e a requisição é marcada como "stale"
+ */
+@Slf4j
+@Component
+public class LastKnownGoodCache {
+
+    private static final String STALE_ATTRIBUTE = LastKnownGoodCache.class.getName() + ".STALE";
+    // Marcação da chamada em andamento na thread (ver track), além da marcação da requisição
+    private static final ThreadLocal<AtomicBoolean> CURRENT_CALL = new ThreadLocal<>();
+
+    private final Cache<String, Object> entries;
+    private final Counter staleCounter;
+
+    public LastKnownGoodCache(MeterRegistry meterRegistry,
+            @Value("${petsafe.resilience.stale.max-age-seconds:86400}") long maxAgeSeconds,
+            @Value("${petsafe.resilience.stale.max-size:10000}") long maxSize) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(maxAgeSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "last-known-good");
+        this.staleCounter = Counter.builder("petsafe.upstream.stale")
+                .description("Respostas montadas com a última resposta válida porque a API estava indisponível")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Guarda uma resposta válida e a devolve
+     */
+    public <T> T remember(String url, String accessToken, T value) {
+        if (value != null) {
+            entries.put(key(url, accessToken), value);
+        }
+        return value;
+    }
+
+    /**
+     * Devolve a última resposta válida e marca a requisição atual como "stale"
+     *
+     * @throws UpstreamUnavailableException A própria causa, se não houver resposta guardada
+     */
+    public <T> T recall(String url, String accessToken, UpstreamUnavailableException cause) {
+        return this.<T>recallIfPresent(url, accessToken, cause.getMessage()).orElseThrow(() -> cause);
+    }
+
+    /**
+     * Versão sem exceção de {@link #recall}, para services que devolvem {@link UpstreamResult}
+     *
+     * @param reason Motivo da indisponibilidade (apenas para o log)
+     * @return A última resposta válida (e a requisição marcada como "stale"), ou vazio se não houver
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> recallIfPresent(String url, String accessToken, String reason) {
+        Object value = entries.getIfPresent(key(url, accessToken));
+        if (value == null) {
+            return Optional.empty();
+        }
+
+        log.warn("API indisponível ({}); usando a última resposta válida de {}", reason, url);
+        staleCounter.increment();
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(STALE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+        AtomicBoolean currentCall = CURRENT_CALL.get();
+        if (currentCall != null) {
+            currentCall.set(true);
+        }
+        return Optional.of((T) value);
+    }
+
+    /**
+     * Executa uma chamada e informa se a resposta dela veio da última resposta válida
+     * Diferente de {@link #isStale}, não é afetado pelas outras chamadas da mesma requisição (ex.: partes do
+     * painel carregadas em paralelo).
+     */
+    public static <T> Tracked<T> track(Callable<T> call) throws Exception {
+        AtomicBoolean previous = CURRENT_CALL.get();
+        AtomicBoolean stale = new AtomicBoolean();
+        CURRENT_CALL.set(stale);
+        try {
+            T value = call.call();
+            return new Tracked<>(value, stale.get());
+        } finally {
+            if (previous != null) {
+                previous.set(previous.get() || stale.get());
+                CURRENT_CALL.set(previous);
+            } else {
+                CURRENT_CALL.remove();
+            }
+        }
+    }
+
+    /**
+     * Resultado de {@link #track}
+     *
+     * @param stale Se a resposta veio da última resposta válida
+     */
+    public record Tracked<T>(T value, boolean stale) {
+    }
+
+    /**
+     * Indica se alguma resposta da requisição veio da última resposta válida
+     */
+    public static boolean isStale(HttpServletRequest request) {
+        return Boolean.TRUE.equals(request.getAttribute(STALE_ATTRIBUTE));
+    }
+
+    /**
+     * As respostas são indexadas pela URL e pelo token: ao renovar o token, as do usuário passam para a nova chave
+     */
+    @EventListener
+    public void onAccessTokenRefreshed(AccessTokenRefreshedEvent event) {
+        String suffix = key("", event.previousToken());
+        for (String key : List.copyOf(entries.asMap().keySet())) {
+            if (key.endsWith(suffix)) {
+                Object value = entries.asMap().remove(key);
+                if (value != null) {
+                    String url = key.substring(0, key.length() - suffix.length());
+                    entries.asMap().putIfAbsent(key(url, event.accessToken()), value);
+                }
+            }
+        }
+    }
+
+    private String key(String url, String accessToken) {
+        return url + "|" + accessToken;
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.petsafeweb.service;
+
+import com.example.petsafeweb.dto.LocationResponse;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Formatos de exportação do histórico de localizações
+ * Pontos sem coordenadas são ignorados em todos os formatos.
+ */
+public enum LocationExportFormat {
+
+    GEOJSON("geojson", MediaType.parseMediaType("application/geo+json")) {
+        @Override
+        public LocationExportWriter open(OutputStream out, Long deviceId, ObjectMapper objectMapper) throws IOException {
+            return new GeoJsonWriter(out, deviceId, objectMapper);
+        }
+    },
+    CSV("csv", MediaType.parseMediaType("text/csv;charset=UTF-8")) {
+        @Override
+        public LocationExportWriter open(OutputStream out, Long deviceId, ObjectMapper objectMapper) throws IOException {
+            return new CsvWriter(out);
+        }
+    },
+    GPX("gpx", MediaType.parseMediaType("application/gpx+xml")) {
+        @Override
+        public LocationExportWriter open(OutputStream out, Long deviceId, ObjectMapper objectMapper) throws IOException {
+            return new GpxWriter(out, deviceId);
+        }
+    };
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    LocationExportFormat(String extension, MediaType mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Inicia o documento no stream de saída
+     *
+     * @param out          Stream da resposta (não é fechado pelo writer)
+     * @param deviceId     ID do dispositivo exportado
+     * @param objectMapper ObjectMapper configurado da aplicação
+     * @return Writer que recebe os pontos
+     */
+    public abstract LocationExportWriter open(OutputStream out, Long deviceId, ObjectMapper objectMapper)
+            throws IOException;
+
+    /**
+     * @param value Nome do formato (geojson, csv ou gpx, sem diferenciar maiúsculas)
+     * @throws IllegalArgumentException Se o formato não for suportado
+     */
+    public static LocationExportFormat fromParameter(String value) {
+        for (LocationExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Formato de exportação inválido: " + value + " (use geojson, csv ou gpx)");
+    }
+
+    private static boolean hasCoordinates(LocationResponse location) {
+        return location.getLatitude() != null && location.getLongitude() != null;
+    }
+
+    // Coordenadas sem notação científica (1.0E-4 não é aceito em CSV/GPX)
+    private static String plain(Number value) {
+        return value == null ? "" : new BigDecimal(value.toString()).toPlainString();
+    }
+
+    /**
+     * FeatureCollection com um Point por localização, gerada pelo JsonGenerator do Jackson
+     */
+    private static final class GeoJsonWriter implements LocationExportWriter {
+
+        private final JsonGenerator generator;
+
+        GeoJsonWriter(OutputStream out, Long deviceId, ObjectMapper objectMapper) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeStringField("type", "FeatureCollection");
+            generator.writeObjectFieldStart("properties");
+            generator.writeNumberField("device_id", deviceId);
+            generator.writeEndObject();
+            generator.writeArrayFieldStart("features");
+        }
+
+        @Override
+        public void write(LocationResponse location) throws IOException {
+            if (!hasCoordinates(location)) {
+                return;
+            }
+            generator.writeStartObject();
+            generator.writeStringField("type", "Feature");
+
+            // GeoJSON usa a ordem [longitude, latitude]
+            generator.writeObjectFieldStart("geometry");
+            generator.writeStringField("type", "Point");
+            generator.writeArrayFieldStart("coordinates");
+            generator.writeNumber(location.getLongitude());
+            generator.writeNumber(location.getLatitude());
+            generator.writeEndArray();
+            generator.writeEndObject();
+
+            generator.writeObjectFieldStart("properties");
+            writeNumberField("id", location.getId());
+            writeNumberField("accuracy", location.getAccuracy());
+            writeNumberField("speed", location.getSpeed());
+            writeNumberField("heading", location.getHeading());
+            writeNumberField("updated_at", location.getUpdatedAt());
+            if (location.getReceivedAt() != null) {
+                generator.writeStringField("received_at", location.getReceivedAt().toString());
+            }
+            generator.writeEndObject();
+
+            generator.writeEndObject();
+        }
+
+        private void writeNumberField(String name, Number value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            generator.writeFieldName(name);
+            if (value instanceof Long longValue) {
+                generator.writeNumber(longValue);
+            } else if (value instanceof Float floatValue) {
+                generator.writeNumber(floatValue);
+            } else {
+                generator.writeNumber(value.doubleValue());
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.close();
+        }
+    }
+
+    /**
+     * Uma linha por localização, com cabeçalho
+     */
+    private static final class CsvWriter implements LocationExportWriter {
+
+        private final Writer writer;
+
+        CsvWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("id,device_id,latitude,longitude,accuracy,speed,heading,updated_at,received_at\n");
+        }
+
+        @Override
+        public void write(LocationResponse location) throws IOException {
+            if (!hasCoordinates(location)) {
+                return;
+            }
+            writer.write(String.join(",",
+                    plain(location.getId()),
+                    plain(location.getDeviceId()),
+                    plain(location.getLatitude()),
+                    plain(location.getLongitude()),
+                    plain(location.getAccuracy()),
+                    plain(location.getSpeed()),
+                    plain(location.getHeading()),
+                    plain(location.getUpdatedAt()),
+                    location.getReceivedAt() != null ? location.getReceivedAt().toString() : ""));
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    /**
+     * GPX 1.1 com uma trilha ({@code trk}) de um único segmento
+     * Os pontos seguem a ordem da API (mais recente primeiro); o {@code time} de cada um permite reordenar.
+     */
+    private static final class GpxWriter implements LocationExportWriter {
+
+        private static final String GPX_NAMESPACE = "http://www.topografix.com/GPX/1/1";
+
+        private final XMLStreamWriter xml;
+
+        GpxWriter(OutputStream out, Long deviceId) throws IOException {
+            try {
+                this.xml = XMLOutputFactory.newFactory().createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+                xml.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+                xml.writeStartElement("gpx");
+                xml.writeDefaultNamespace(GPX_NAMESPACE);
+                xml.writeAttribute("version", "1.1");
+                xml.writeAttribute("creator", "PetSafe");
+                xml.writeStartElement("trk");
+                xml.writeStartElement("name");
+                xml.writeCharacters(String.format(Locale.ROOT, "Dispositivo %d", deviceId));
+                xml.writeEndElement();
+                xml.writeStartElement("trkseg");
+            } catch (XMLStreamException e) {
+                throw new IOException("Erro ao gerar GPX", e);
+            }
+        }
+
+        @Override
+        public void write(LocationResponse location) throws IOException {
+            if (!hasCoordinates(location)) {
+                return;
+            }
+            try {
+                xml.writeStartElement("trkpt");
+                xml.writeAttribute("lat", plain(location.getLatitude()));
+                xml.writeAttribute("lon", plain(location.getLongitude()));
+                if (location.getReceivedAt() != null) {
+                    xml.writeStartElement("time");
+                    xml.writeCharacters(location.getReceivedAt().toString());
+                    xml.writeEndElement();
+                }
+                xml.writeEndElement();
+            } catch (XMLStreamException e) {
+                throw new IOException("Erro ao gerar GPX", e);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            try {
+                xml.writeEndElement(); // trkseg
+                xml.writeEndElement(); // trk
+                xml.writeEndElement(); // gpx
+                xml.writeEndDocument();
+                xml.flush();
+            } catch (XMLStreamException e) {
+                throw new IOException("Erro ao gerar GPX", e);
+            }
+        }
+    }
+}
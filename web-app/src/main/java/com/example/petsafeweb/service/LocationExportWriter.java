@@ -0,0 +1,20 @@
+package com.example.petsafeweb.service;
+
+import com.example.petsafeweb.dto.LocationResponse;
+
+import java.io.IOException;
+
+/**
+ * Escreve pontos de localização, um a um, em um formato de exportação ({@link LocationExportFormat})
+ * Nenhum ponto é guardado: cada chamada a {@link #write} vai direto para o stream de saída.
+ */
+public interface LocationExportWriter {
+
+    void write(LocationResponse location) throws IOException;
+
+    /**
+     * Fecha a estrutura do documento (array, elementos XML) e descarrega o buffer.
+     * Não é chamado se a exportação falhar no meio, para que o arquivo truncado não pareça completo.
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,274 @@
+package com.example.petsafeweb.service;
+
+import com.example.petsafeweb.dto.LocationResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Service que entrega localizações incrementais ("desde o cursor") para o mapa ao vivo
+ * Mantém um pequeno buffer circular por dispositivo, de modo que polls repetidos
+ * dentro da janela de atualização não precisam consultar a API
+ */
+@Service
+public class LocationFeedService {
+
+    private final DeviceService deviceService;
+    private final ObjectProvider<ReactiveDeviceService> reactiveDeviceService;
+    private final Scheduler upstreamScheduler;
+
+    // Buffer por sessão (token) e dispositivo
+    private final Cache<String, LocationRingBuffer> buffers;
+
+    @Value("${petsafe.locations.feed.buffer-size:100}")
+    private int bufferSize;
+
+    @Value("${petsafe.locations.feed.min-refresh-ms:60000}")
+    private long minRefreshMs;
+
+    public LocationFeedService(DeviceService deviceService,
+            ObjectProvider<ReactiveDeviceService> reactiveDeviceService,
+            Scheduler upstreamScheduler,
+            @Value("${petsafe.locations.feed.idle-expiration-seconds:600}") long idleExpirationSeconds) {
+        this.deviceService = deviceService;
+        this.reactiveDeviceService = reactiveDeviceService;
+        this.upstreamScheduler = upstreamScheduler;
+        this.buffers = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterAccess(Duration.ofSeconds(idleExpirationSeconds))
+                .build();
+    }
+
+    /**
+     * Lista as localizações mais recentes de um dispositivo
+     *
+     * @param deviceId    ID do dispositivo
+     * @param limit       Quantidade máxima de pontos retornados
+     * @param since       Cursor opcional: ID da última localização conhecida ou received_at (ISO-8601)
+     * @param accessToken Token de acesso do usuário
+     * @return Localizações mais novas que o cursor (ou as últimas {@code limit}, sem cursor), da mais recente
+     *         para a mais antiga
+     * @throws IllegalArgumentException Se o cursor não for um ID nem uma data válida
+     * @throws UpstreamFailureException Se a API devolver um erro ou não responder
+     */
+    public List<LocationResponse> listLocations(Long deviceId, int limit, String since, String accessToken)
+            throws Exception {
+        LocationRingBuffer buffer = buffers.get(accessToken + ":" + deviceId,
+                key -> new LocationRingBuffer(bufferSize));
+
+        if (since == null || since.isBlank()) {
+            // Sem cursor: lista completa, aproveitada para alimentar o buffer
+            List<LocationResponse> locations = deviceService.listDeviceLocations(deviceId, limit, accessToken)
+                    .orElseThrow();
+            buffer.merge(locations);
+            return locations;
+        }
+
+        Cursor cursor = Cursor.parse(since);
+        buffer.refreshIfStale(() -> deviceService.listDeviceLocations(
+                deviceId, Math.min(limit, bufferSize), accessToken).orElseThrow(), minRefreshMs);
+        return buffer.newerThan(cursor, limit);
+    }
+
+    /**
+     * Versão não bloqueante de {@link #listLocations}
+     * Com petsafe.api.client=webclient usa o ReactiveDeviceService; caso contrário executa a versão
+     * bloqueante em uma virtual thread, liberando a thread do Tomcat durante a chamada à API
+     *
+     * @return Mono com as localizações; erro IllegalArgumentException se o cursor for inválido
+     */
+    public Mono<List<LocationResponse>> listLocationsAsync(Long deviceId, int limit, String since,
+            String accessToken) {
+        ReactiveDeviceService reactive = reactiveDeviceService.getIfAvailable();
+        if (reactive == null) {
+            return Mono.fromCallable(() -> listLocations(deviceId, limit, since, accessToken))
+                    .subscribeOn(upstreamScheduler);
+        }
+
+        return Mono.defer(() -> {
+            LocationRingBuffer buffer = buffers.get(accessToken + ":" + deviceId,
+                    key -> new LocationRingBuffer(bufferSize));
+
+            if (since == null || since.isBlank()) {
+                return reactive.listDeviceLocations(deviceId, limit, accessToken)
+                        .doOnNext(buffer::merge);
+            }
+
+            Cursor cursor = Cursor.parse(since);
+            return buffer.refreshIfStaleAsync(() -> reactive.listDeviceLocations(
+                            deviceId, Math.min(limit, bufferSize), accessToken), minRefreshMs)
+                    .then(Mono.fromSupplier(() -> buffer.newerThan(cursor, limit)));
+        });
+    }
+
+    /**
+     * Os buffers são indexados pelo token: ao renovar o token, os do usuário passam para a nova chave
+     */
+    @EventListener
+    public void onAccessTokenRefreshed(AccessTokenRefreshedEvent event) {
+        String prefix = event.previousToken() + ":";
+        for (String key : List.copyOf(buffers.asMap().keySet())) {
+            if (key.startsWith(prefix)) {
+                LocationRingBuffer buffer = buffers.asMap().remove(key);
+                if (buffer != null) {
+                    buffers.asMap().putIfAbsent(event.accessToken() + ":" + key.substring(prefix.length()), buffer);
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface LocationFetcher {
+        List<LocationResponse> fetch() throws Exception;
+    }
+
+    /**
+     * Cursor do feed: ID da localização ou instante de recebimento
+     */
+    private record Cursor(Long id, Instant receivedAt) {
+
+        static Cursor parse(String value) {
+            String trimmed = value.trim();
+            try {
+                return new Cursor(Long.parseLong(trimmed), null);
+            } catch (NumberFormatException e) {
+                try {
+                    return new Cursor(null, Instant.parse(trimmed));
+                } catch (DateTimeParseException ex) {
+                    throw new IllegalArgumentException("Cursor inválido: " + value);
+                }
+            }
+        }
+
+        boolean isBefore(LocationResponse location) {
+            if (id != null) {
+                return location.getId() != null && location.getId() > id;
+            }
+            return location.getReceivedAt() != null && location.getReceivedAt().isAfter(receivedAt);
+        }
+    }
+
+    /**
+     * Buffer circular das últimas localizações de um dispositivo, da mais recente para a mais antiga
+     * Usa ReentrantLock (e não synchronized) para não fixar virtual threads durante a chamada à API
+     */
+    private static final class LocationRingBuffer {
+
+        private final int capacity;
+        private final Deque<LocationResponse> locations = new ArrayDeque<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private long fetchedAt;
+        private Mono<Void> refreshing;
+
+        private LocationRingBuffer(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void refreshIfStale(LocationFetcher fetcher, long minRefreshMs) throws Exception {
+            lock.lock();
+            try {
+                // Quem esperou pelo lock encontra o buffer já atualizado e não repete a chamada
+                if (System.currentTimeMillis() - fetchedAt >= minRefreshMs) {
+                    mergeLocked(fetcher.fetch());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Versão reativa: o lock protege apenas o estado, nunca a chamada à API
+         * Polls que chegam durante uma atualização em andamento aguardam a mesma atualização
+         */
+        Mono<Void> refreshIfStaleAsync(Supplier<Mono<List<LocationResponse>>> fetcher, long minRefreshMs) {
+            lock.lock();
+            try {
+                if (refreshing != null) {
+                    return refreshing;
+                }
+                if (System.currentTimeMillis() - fetchedAt < minRefreshMs) {
+                    return Mono.empty();
+                }
+                refreshing = fetcher.get()
+                        .doOnNext(this::merge)
+                        .doFinally(signal -> clearRefreshing())
+                        .then()
+                        .cache();
+                return refreshing;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void clearRefreshing() {
+            lock.lock();
+            try {
+                refreshing = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void merge(List<LocationResponse> newest) {
+            lock.lock();
+            try {
+                mergeLocked(newest);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<LocationResponse> newerThan(Cursor cursor, int limit) {
+            lock.lock();
+            try {
+                List<LocationResponse> result = new ArrayList<>();
+                for (LocationResponse location : locations) {
+                    if (result.size() >= limit || !cursor.isBefore(location)) {
+                        break;
+                    }
+                    result.add(location);
+                }
+                return result;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void mergeLocked(List<LocationResponse> newest) {
+            fetchedAt = System.currentTimeMillis();
+            if (newest == null || newest.isEmpty()) {
+                return;
+            }
+
+            LocationResponse head = locations.peekFirst();
+            long headId = head != null && head.getId() != null ? head.getId() : Long.MIN_VALUE;
+
+            // A API devolve os pontos do mais recente para o mais antigo; insere apenas os inéditos
+            for (int i = newest.size() - 1; i >= 0; i--) {
+                LocationResponse location = newest.get(i);
+                if (location.getId() != null && location.getId() > headId) {
+                    locations.addFirst(location);
+                }
+            }
+
+            while (locations.size() > capacity) {
+                locations.removeLast();
+            }
+        }
+    }
+}
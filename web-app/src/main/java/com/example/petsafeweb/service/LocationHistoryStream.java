@@ -0,0 +1,158 @@
+package com.example.petsafeweb.service;
+
+import com.example.petsafeweb.dto.LocationResponse;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Leitura incremental do histórico de localizações devolvido pela API ({@code {"data": [...]}})
+ * Cada chamada a {@link #next()} desserializa um único ponto direto do corpo da resposta, sem montar a lista inteira
+ * em memória. Como o corpo só é lido conforme os pontos são consumidos, quem escreve devagar (ex.: um download lento)
+ * também lê devagar, e o controle de fluxo do TCP segura a API.
+ * O histórico é pedido em páginas ({@code before_id} = último ID lido): nem a API nem o web-app carregam mais que
+ * uma página por vez, e a próxima só é pedida quando a anterior termina.
+ */
+public class LocationHistoryStream implements Closeable {
+
+    /**
+     * Abre a próxima página do histórico na API
+     */
+    @FunctionalInterface
+    public interface PageOpener {
+
+        /**
+         * @param beforeId  Só pontos com ID menor que este (o último ponto lido)
+         * @param pageLimit Máximo de pontos da página
+         * @return Resposta 2xx da API, a ser fechada pelo stream
+         * @throws IOException Se a API falhar ou responder com erro (o download é interrompido)
+         */
+        ClientHttpResponse open(long beforeId, int pageLimit) throws IOException;
+    }
+
+    private final ObjectMapper objectMapper;
+    private final PageOpener pageOpener;
+    private final int pageSize;
+    private int remaining;
+
+    private ClientHttpResponse response;
+    private JsonParser parser;
+    private int pageLimit;
+    private int readInPage;
+    private Long lastId;
+    private boolean finished;
+
+    private LocationHistoryStream(ObjectMapper objectMapper, PageOpener pageOpener, int pageSize, int limit) {
+        this.objectMapper = objectMapper;
+        this.pageOpener = pageOpener;
+        this.pageSize = pageSize;
+        this.remaining = limit;
+    }
+
+    /**
+     * Posiciona o parser no início do array {@code data} da primeira página
+     *
+     * @param firstPage    Resposta da primeira página, pedida com {@code min(limit, pageSize)} pontos (fechada junto
+     *                     com o stream, ou aqui mesmo se o corpo for inválido)
+     * @param objectMapper ObjectMapper configurado da aplicação
+     * @param limit        Total de pontos a ler
+     * @param pageSize     Pontos por página
+     * @param pageOpener   Abre as páginas seguintes
+     * @return Stream pronto para leitura
+     * @throws IOException Se o corpo não tiver o formato esperado ou a conexão falhar
+     */
+    static LocationHistoryStream open(ClientHttpResponse firstPage, ObjectMapper objectMapper, int limit, int pageSize,
+            PageOpener pageOpener) throws IOException {
+        LocationHistoryStream stream = new LocationHistoryStream(objectMapper, pageOpener, pageSize, limit);
+        stream.openPage(firstPage, Math.min(limit, pageSize));
+        return stream;
+    }
+
+    /**
+     * @return O próximo ponto (na ordem da API, mais recente primeiro) ou {@code null} ao final do histórico
+     * @throws IOException Se a conexão com a API cair no meio da leitura
+     */
+    public LocationResponse next() throws IOException {
+        while (!finished) {
+            if (parser != null && remaining > 0 && parser.nextToken() == JsonToken.START_OBJECT) {
+                LocationResponse location = objectMapper.readValue(parser, LocationResponse.class);
+                readInPage++;
+                remaining--;
+                if (location.getId() != null) {
+                    lastId = location.getId();
+                }
+                return location;
+            }
+
+            // Página encerrada: uma página incompleta é a última do histórico
+            closePage();
+            if (remaining <= 0 || readInPage < pageLimit || lastId == null) {
+                finished = true;
+            } else {
+                int nextLimit = Math.min(remaining, pageSize);
+                openPage(pageOpener.open(lastId, nextLimit), nextLimit);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        closePage();
+    }
+
+    private void openPage(ClientHttpResponse page, int limit) throws IOException {
+        response = page;
+        pageLimit = limit;
+        readInPage = 0;
+        try {
+            parser = objectMapper.getFactory().createParser(page.getBody());
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Resposta do servidor inválida ao listar localizações.");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("data".equals(field)) {
+                    if (value == JsonToken.START_ARRAY) {
+                        return;
+                    }
+                    if (value == JsonToken.VALUE_NULL) {
+                        closePage();
+                        return;
+                    }
+                    throw new IOException("Resposta do servidor inválida ao listar localizações.");
+                }
+                parser.skipChildren();
+            }
+
+            // Sem o campo data: nenhum ponto
+            closePage();
+        } catch (IOException | RuntimeException e) {
+            closePage();
+            throw e;
+        }
+    }
+
+    private void closePage() throws IOException {
+        JsonParser currentParser = parser;
+        ClientHttpResponse currentResponse = response;
+        parser = null;
+        response = null;
+        try {
+            if (currentParser != null) {
+                currentParser.close();
+            }
+        } finally {
+            if (currentResponse != null) {
+                currentResponse.close();
+            }
+        }
+    }
+}
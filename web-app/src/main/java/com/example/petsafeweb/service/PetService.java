@@ -1,28 +1,33 @@
 package com.example.petsafeweb.service;
 
-import com.example.petsafeweb.dto.ErrorResponse;
 import com.example.petsafeweb.dto.PetRequest;
 import com.example.petsafeweb.dto.PetResponse;
 import com.example.petsafeweb.dto.PetsListResponse;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.petsafeweb.service.UpstreamResult.Reason;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.List;
 
 /**
  * Service para gerenciamento de pets via API
+ * Os métodos devolvem {@link UpstreamResult}: respostas de erro da API não viram exceções.
  */
 @Slf4j
 @Service
 public class PetService {
 
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    private static final String CONNECTION_ERROR = "Erro ao conectar com o servidor. Tente novamente mais tarde.";
+    private static final String SESSION_EXPIRED_MESSAGE = "Sessão expirada. Faça login novamente.";
+
+    private final UpstreamClient upstreamClient;
+    private final RequestCoalescer requestCoalescer;
+    private final LastKnownGoodCache lastKnownGood;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${petsafe.api.base-url}")
     private String apiBaseUrl;
@@ -30,56 +35,51 @@ public class PetService {
     @Value("${petsafe.api.endpoints.pets}")
     private String petsEndpoint;
 
-    public PetService(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
-        this.objectMapper = new ObjectMapper();
+    public PetService(UpstreamClient upstreamClient, RequestCoalescer requestCoalescer,
+                      LastKnownGoodCache lastKnownGood, ApplicationEventPublisher eventPublisher) {
+        this.upstreamClient = upstreamClient;
+        this.requestCoalescer = requestCoalescer;
+        this.lastKnownGood = lastKnownGood;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * Lista todos os pets do usuário autenticado
+     * Com a API fora do ar, devolve a última lista conhecida (a página é marcada como desatualizada)
      *
      * @param accessToken Token de acesso do usuário
-     * @return Lista de pets
-     * @throws Exception Se houver erro na comunicação com a API
+     * @return Lista de pets ou a falha
      */
-    public List<PetResponse> listPets(String accessToken) throws Exception {
+    public UpstreamResult<List<PetResponse>> listPets(String accessToken) {
         String url = apiBaseUrl + petsEndpoint;
-
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(accessToken);
-
-            HttpEntity<?> request = new HttpEntity<>(headers);
-
-            ResponseEntity<PetsListResponse> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    request,
-                    PetsListResponse.class);
-
-            PetsListResponse petsListResponse = response.getBody();
-
-            if (petsListResponse == null || petsListResponse.getData() == null) {
-                return List.of();
-            }
-
-            return petsListResponse.getData();
-
-        } catch (HttpClientErrorException e) {
-            log.error("Erro ao listar pets. Status: {}, Body: {}",
-                    e.getStatusCode(), e.getResponseBodyAsString());
-
-            if (e.getStatusCode() == HttpStatus.UNAUTHORIZED) {
-                throw new Exception("Sessão expirada. Faça login novamente.");
-            } else if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
-                // Não é erro, apenas não tem pets ainda
-                return List.of();
-            }
-            throw new Exception("Erro ao listar pets. Tente novamente mais tarde.");
-        } catch (Exception e) {
-            log.error("Erro inesperado ao listar pets", e);
-            throw new Exception("Erro ao conectar com o servidor. Tente novamente mais tarde.");
+        // Chamadas simultâneas idênticas compartilham uma única requisição à API
+        UpstreamResult<List<PetResponse>> result = requestCoalescer.execute(url, accessToken,
+                () -> fetchPets(url, accessToken));
+
+        if (result instanceof UpstreamResult.Failure<List<PetResponse>> failure
+                && failure.reason() == Reason.UNAVAILABLE) {
+            return lastKnownGood.<List<PetResponse>>recallIfPresent(url, accessToken, failure.message())
+                    .map(UpstreamResult::success)
+                    .orElse(result);
         }
+        return result.map(pets -> lastKnownGood.remember(url, accessToken, pets));
+    }
+
+    private UpstreamResult<List<PetResponse>> fetchPets(String url, String accessToken) {
+        return upstreamClient.exchange(HttpMethod.GET, url, accessToken, null, PetsListResponse.class)
+                .<List<PetResponse>>map(body -> body != null && body.getData() != null ? body.getData() : List.of())
+                .describeFailure(error -> {
+                    log.error("Erro ao listar pets: {}", error);
+                    if (error.is(HttpStatus.NOT_FOUND)) {
+                        // Não é erro, apenas não tem pets ainda
+                        return UpstreamResult.success(List.of());
+                    }
+                    return UpstreamResult.failure(Reason.of(error), error, switch (Reason.of(error)) {
+                        case SESSION_EXPIRED -> SESSION_EXPIRED_MESSAGE;
+                        case UNAVAILABLE -> CONNECTION_ERROR;
+                        default -> "Erro ao listar pets. Tente novamente mais tarde.";
+                    });
+                });
     }
 
     /**
@@ -87,36 +87,21 @@ public class PetService {
      *
      * @param petId       ID do pet
      * @param accessToken Token de acesso do usuário
-     * @return Dados do pet
-     * @throws Exception Se houver erro na comunicação com a API
+     * @return Dados do pet ou a falha
      */
-    public PetResponse getPet(Long petId, String accessToken) throws Exception {
+    public UpstreamResult<PetResponse> getPet(Long petId, String accessToken) {
         String url = apiBaseUrl + petsEndpoint + "/" + petId;
 
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(accessToken);
-
-            HttpEntity<?> request = new HttpEntity<>(headers);
-
-            ResponseEntity<PetResponse> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    request,
-                    PetResponse.class);
-
-            return response.getBody();
-
-        } catch (HttpClientErrorException e) {
-            log.error("Erro ao buscar pet. Status: {}", e.getStatusCode());
-            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
-                throw new Exception("Pet não encontrado.");
-            }
-            throw new Exception("Erro ao buscar pet. Tente novamente mais tarde.");
-        } catch (Exception e) {
-            log.error("Erro inesperado ao buscar pet", e);
-            throw new Exception("Erro ao conectar com o servidor. Tente novamente mais tarde.");
-        }
+        return upstreamClient.exchange(HttpMethod.GET, url, accessToken, null, PetResponse.class)
+                .describeFailure(error -> {
+                    log.error("Erro ao buscar pet: {}", error);
+                    return UpstreamResult.failure(Reason.of(error), error, switch (Reason.of(error)) {
+                        case SESSION_EXPIRED -> SESSION_EXPIRED_MESSAGE;
+                        case NOT_FOUND -> "Pet não encontrado.";
+                        case UNAVAILABLE -> CONNECTION_ERROR;
+                        default -> "Erro ao buscar pet. Tente novamente mais tarde.";
+                    });
+                });
     }
 
     /**
@@ -124,50 +109,27 @@ public class PetService {
      *
      * @param petRequest  Dados do pet a ser criado
      * @param accessToken Token de acesso do usuário
-     * @return Pet criado
-     * @throws Exception Se houver erro na comunicação com a API
+     * @return Pet criado ou a falha (com a mensagem de validação da API, se houver)
      */
-    public PetResponse createPet(PetRequest petRequest, String accessToken) throws Exception {
+    public UpstreamResult<PetResponse> createPet(PetRequest petRequest, String accessToken) {
         String url = apiBaseUrl + petsEndpoint;
 
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(accessToken);
-
-            HttpEntity<PetRequest> request = new HttpEntity<>(petRequest, headers);
-
-            ResponseEntity<PetResponse> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.POST,
-                    request,
-                    PetResponse.class);
-
-            return response.getBody();
-
-        } catch (HttpClientErrorException e) {
-            log.error("Erro ao criar pet. Status: {}, Body: {}",
-                    e.getStatusCode(), e.getResponseBodyAsString());
-
-            try {
-                ErrorResponse errorResponse = objectMapper.readValue(
-                        e.getResponseBodyAsString(),
-                        ErrorResponse.class);
-                throw new Exception(errorResponse.getMessage() != null
-                        ? errorResponse.getMessage()
-                        : "Erro ao criar pet");
-            } catch (Exception parseException) {
-                if (e.getStatusCode() == HttpStatus.BAD_REQUEST) {
-                    throw new Exception("Dados inválidos. Verifique as informações e tente novamente.");
-                } else {
-                    throw new Exception("Erro ao criar pet. Tente novamente mais tarde.");
-                }
-            }
-
-        } catch (Exception e) {
-            log.error("Erro inesperado ao criar pet", e);
-            throw new Exception("Erro ao conectar com o servidor. Tente novamente mais tarde.");
+        UpstreamResult<PetResponse> result = upstreamClient.exchange(
+                HttpMethod.POST, url, accessToken, petRequest, PetResponse.class);
+        if (result.isSuccess()) {
+            eventPublisher.publishEvent(new DashboardChangedEvent(accessToken, DashboardSection.PETS));
         }
+
+        return result.describeFailure(error -> {
+            log.error("Erro ao criar pet: {}", error);
+            return UpstreamResult.failureWithApiMessage(Reason.of(error), error, switch (Reason.of(error)) {
+                case SESSION_EXPIRED -> SESSION_EXPIRED_MESSAGE;
+                case UNAVAILABLE -> CONNECTION_ERROR;
+                default -> error.is(HttpStatus.BAD_REQUEST)
+                        ? "Dados inválidos. Verifique as informações e tente novamente."
+                        : "Erro ao criar pet. Tente novamente mais tarde.";
+            });
+        });
     }
 
     /**
@@ -176,53 +138,28 @@ public class PetService {
      * @param petId       ID do pet a ser atualizado
      * @param petRequest  Novos dados do pet
      * @param accessToken Token de acesso do usuário
-     * @return Pet atualizado
-     * @throws Exception Se houver erro na comunicação com a API
+     * @return Pet atualizado ou a falha (com a mensagem de validação da API, se houver)
      */
-    public PetResponse updatePet(Long petId, PetRequest petRequest, String accessToken) throws Exception {
+    public UpstreamResult<PetResponse> updatePet(Long petId, PetRequest petRequest, String accessToken) {
         String url = apiBaseUrl + petsEndpoint + "/" + petId;
 
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(accessToken);
-
-            HttpEntity<PetRequest> request = new HttpEntity<>(petRequest, headers);
-
-            ResponseEntity<PetResponse> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.PATCH,
-                    request,
-                    PetResponse.class);
-
-            return response.getBody();
-
-        } catch (HttpClientErrorException e) {
-            log.error("Erro ao atualizar pet. Status: {}, Body: {}",
-                    e.getStatusCode(), e.getResponseBodyAsString());
-
-            try {
-                ErrorResponse errorResponse = objectMapper.readValue(
-                        e.getResponseBodyAsString(),
-                        ErrorResponse.class);
-                throw new Exception(errorResponse.getMessage() != null
-                        ? errorResponse.getMessage()
-                        : "Erro ao atualizar pet");
-            } catch (Exception parseException) {
-                if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
-                    throw new Exception("Pet não encontrado.");
-                } else if (e.getStatusCode() == HttpStatus.BAD_REQUEST) {
-                    String errorBody = e.getResponseBodyAsString();
-                    throw new Exception("Dados inválidos. Detalhes: " + errorBody);
-                } else {
-                    throw new Exception("Erro ao atualizar pet. Tente novamente mais tarde.");
-                }
-            }
-
-        } catch (Exception e) {
-            log.error("Erro inesperado ao atualizar pet", e);
-            throw new Exception("Erro ao conectar com o servidor. Tente novamente mais tarde.");
+        UpstreamResult<PetResponse> result = upstreamClient.exchange(
+                HttpMethod.PATCH, url, accessToken, petRequest, PetResponse.class);
+        if (result.isSuccess()) {
+            eventPublisher.publishEvent(new DashboardChangedEvent(accessToken, DashboardSection.PETS));
         }
+
+        return result.describeFailure(error -> {
+            log.error("Erro ao atualizar pet: {}, Body: {}", error, error.getBody());
+            return UpstreamResult.failureWithApiMessage(Reason.of(error), error, switch (Reason.of(error)) {
+                case SESSION_EXPIRED -> SESSION_EXPIRED_MESSAGE;
+                case NOT_FOUND -> "Pet não encontrado.";
+                case UNAVAILABLE -> CONNECTION_ERROR;
+                default -> error.is(HttpStatus.BAD_REQUEST)
+                        ? "Dados inválidos. Detalhes: " + error.getBody()
+                        : "Erro ao atualizar pet. Tente novamente mais tarde.";
+            });
+        });
     }
 
     /**
@@ -230,32 +167,26 @@ public class PetService {
      *
      * @param petId       ID do pet a ser excluído
      * @param accessToken Token de acesso do usuário
-     * @throws Exception Se houver erro na comunicação com a API
+     * @return Sucesso sem valor ou a falha
      */
-    public void deletePet(Long petId, String accessToken) throws Exception {
+    public UpstreamResult<Void> deletePet(Long petId, String accessToken) {
         String url = apiBaseUrl + petsEndpoint + "/" + petId;
 
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(accessToken);
-
-            HttpEntity<?> request = new HttpEntity<>(headers);
-
-            restTemplate.exchange(
-                    url,
-                    HttpMethod.DELETE,
-                    request,
-                    Void.class);
-
-        } catch (HttpClientErrorException e) {
-            log.error("Erro ao excluir pet. Status: {}", e.getStatusCode());
-            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
-                throw new Exception("Pet não encontrado.");
-            }
-            throw new Exception("Erro ao excluir pet. Tente novamente mais tarde.");
-        } catch (Exception e) {
-            log.error("Erro inesperado ao excluir pet", e);
-            throw new Exception("Erro ao conectar com o servidor. Tente novamente mais tarde.");
+        UpstreamResult<Void> result = upstreamClient.exchange(HttpMethod.DELETE, url, accessToken, null, Void.class);
+        if (result.isSuccess()) {
+            // Dispositivos vinculados ao pet também mudam
+            eventPublisher.publishEvent(new DashboardChangedEvent(accessToken, DashboardSection.PETS));
+            eventPublisher.publishEvent(new DashboardChangedEvent(accessToken, DashboardSection.DEVICES));
         }
+
+        return result.describeFailure(error -> {
+            log.error("Erro ao excluir pet: {}", error);
+            return UpstreamResult.failure(Reason.of(error), error, switch (Reason.of(error)) {
+                case SESSION_EXPIRED -> SESSION_EXPIRED_MESSAGE;
+                case NOT_FOUND -> "Pet não encontrado.";
+                case UNAVAILABLE -> CONNECTION_ERROR;
+                default -> "Erro ao excluir pet. Tente novamente mais tarde.";
+            });
+        });
     }
 }
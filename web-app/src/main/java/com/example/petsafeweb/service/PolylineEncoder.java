@@ -0,0 +1,91 @@
+package com.example.petsafeweb.service;
+
+import com.example.petsafeweb.dto.EncodedLocationsResponse;
+import com.example.petsafeweb.dto.LocationResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codifica listas de localizações no formato compacto {@link EncodedLocationsResponse}
+ * Coordenadas seguem o Google Encoded Polyline (precisão 1e5); IDs, horários e acurácia usam o mesmo esquema de
+ * diferenças com sinal em base64 (caracteres 63 a 126), então um ponto novo costuma custar poucos bytes por série.
+ * O decodificador correspondente fica em device_details.html.
+ */
+public final class PolylineEncoder {
+
+    public static final String ENCODING = "polyline5";
+
+    private static final double COORDINATE_FACTOR = 1e5;
+
+    private PolylineEncoder() {
+    }
+
+    /**
+     * @param locations Localizações na ordem em que devem ser devolvidas (pontos sem coordenadas são ignorados)
+     * @return Séries codificadas
+     */
+    public static EncodedLocationsResponse encode(List<LocationResponse> locations) {
+        List<LocationResponse> valid = new ArrayList<>(locations.size());
+        for (LocationResponse location : locations) {
+            if (location.getLatitude() != null && location.getLongitude() != null) {
+                valid.add(location);
+            }
+        }
+
+        StringBuilder polyline = new StringBuilder(valid.size() * 8);
+        StringBuilder ids = new StringBuilder(valid.size() * 2);
+        StringBuilder receivedAt = new StringBuilder(valid.size() * 2);
+        StringBuilder accuracy = new StringBuilder(valid.size());
+
+        long lastLat = 0;
+        long lastLng = 0;
+        long lastId = 0;
+        long lastReceivedAt = 0;
+        long lastAccuracy = 0;
+
+        for (LocationResponse location : valid) {
+            // Diferenças entre valores já arredondados, para o erro não se acumular ao longo da linha
+            long lat = Math.round(location.getLatitude() * COORDINATE_FACTOR);
+            long lng = Math.round(location.getLongitude() * COORDINATE_FACTOR);
+            encodeSigned(lat - lastLat, polyline);
+            encodeSigned(lng - lastLng, polyline);
+            lastLat = lat;
+            lastLng = lng;
+
+            long id = location.getId() != null ? location.getId() : 0;
+            encodeSigned(id - lastId, ids);
+            lastId = id;
+
+            long received = location.getReceivedAt() != null ? location.getReceivedAt().getEpochSecond() : 0;
+            encodeSigned(received - lastReceivedAt, receivedAt);
+            lastReceivedAt = received;
+
+            long meters = location.getAccuracy() != null ? Math.round(location.getAccuracy()) : -1;
+            encodeSigned(meters - lastAccuracy, accuracy);
+            lastAccuracy = meters;
+        }
+
+        return EncodedLocationsResponse.builder()
+                .encoding(ENCODING)
+                .count(valid.size())
+                .polyline(polyline.toString())
+                .ids(ids.toString())
+                .receivedAt(receivedAt.toString())
+                .accuracy(accuracy.toString())
+                .build();
+    }
+
+    /**
+     * Valor com sinal: desloca 1 bit (invertendo os negativos) e escreve em blocos de 5 bits,
+     * do menos significativo para o mais, com o bit 0x20 indicando que há mais blocos
+     */
+    static void encodeSigned(long value, StringBuilder out) {
+        long v = value < 0 ? ~(value << 1) : value << 1;
+        while (v >= 0x20) {
+            out.append((char) ((0x20 | (v & 0x1f)) + 63));
+            v >>>= 5;
+        }
+        out.append((char) (v + 63));
+    }
+}
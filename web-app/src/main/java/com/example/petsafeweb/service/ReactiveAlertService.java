@@ -0,0 +1,43 @@
+package com.example.petsafeweb.service;
+
+import com.example.petsafeweb.dto.AlertCountResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Versão não bloqueante (WebClient) da contagem de alertas não lidos
+ * Ativa apenas com petsafe.api.client=webclient; assim como o AlertService, devolve 0 em caso de erro
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "petsafe.api.client", havingValue = "webclient")
+public class ReactiveAlertService {
+
+    private static final String COUNT_PATH = "/api/v1/alerts/count";
+
+    private final WebClient webClient;
+    private final RequestCoalescer requestCoalescer;
+
+    public ReactiveAlertService(WebClient upstreamWebClient, RequestCoalescer requestCoalescer) {
+        this.webClient = upstreamWebClient;
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    public Mono<Integer> getUnreadAlertsCount(String accessToken) {
+        // Polls simultâneos da mesma conta compartilham uma única chamada à API
+        return requestCoalescer.executeReactive(COUNT_PATH, accessToken, () -> webClient.get()
+                .uri(COUNT_PATH)
+                .headers(headers -> headers.setBearerAuth(accessToken))
+                .retrieve()
+                .bodyToMono(AlertCountResponse.class)
+                .mapNotNull(AlertCountResponse::getCount)
+                .defaultIfEmpty(0)
+                .onErrorResume(e -> {
+                    log.error("Erro ao buscar contagem de alertas", e);
+                    return Mono.just(0);
+                }));
+    }
+}
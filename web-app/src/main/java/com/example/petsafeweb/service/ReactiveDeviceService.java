@@ -0,0 +1,114 @@
+package com.example.petsafeweb.service;
+
+import com.example.petsafeweb.config.UpstreamRejectedException;
+import com.example.petsafeweb.dto.DeviceResponse;
+import com.example.petsafeweb.dto.LocationListResponse;
+import com.example.petsafeweb.dto.LocationResponse;
+import com.example.petsafeweb.service.UpstreamResult.Reason;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.codec.CodecException;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versão não bloqueante (WebClient) das consultas de dispositivo usadas pelo mapa ao vivo
+ * Ativa apenas com petsafe.api.client=webclient; as falhas chegam como {@link UpstreamFailureException} com a
+ * mesma classificação e as mesmas mensagens do DeviceService
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "petsafe.api.client", havingValue = "webclient")
+public class ReactiveDeviceService {
+
+    private final WebClient webClient;
+    private final RequestCoalescer requestCoalescer;
+    private final ObjectMapper objectMapper;
+
+    @Value("${petsafe.api.endpoints.devices}")
+    private String devicesEndpoint;
+
+    public ReactiveDeviceService(WebClient upstreamWebClient, RequestCoalescer requestCoalescer,
+            ObjectMapper objectMapper) {
+        this.webClient = upstreamWebClient;
+        this.requestCoalescer = requestCoalescer;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Busca os detalhes/status de um dispositivo por ID (GET /devices/{id}/status)
+     */
+    public Mono<DeviceResponse> getDeviceDetails(Long deviceId, String accessToken) {
+        String path = devicesEndpoint + "/" + deviceId + "/status";
+
+        return webClient.get()
+                .uri(path)
+                .headers(headers -> headers.setBearerAuth(accessToken))
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, response -> {
+                    log.error("Erro ao buscar detalhes do dispositivo. Status: {}", response.statusCode());
+                    return failure(response, "Erro ao buscar detalhes. Status: " + response.statusCode());
+                })
+                .bodyToMono(new ParameterizedTypeReference<Map<String, DeviceResponse>>() {
+                })
+                .flatMap(body -> body.containsKey("data")
+                        ? Mono.justOrEmpty(body.get("data"))
+                        : Mono.empty())
+                .switchIfEmpty(Mono.error(() -> new UpstreamFailureException(UpstreamResult.failure(
+                        Reason.UNAVAILABLE, UpstreamError.unreachable(null),
+                        "Resposta do servidor inválida ao buscar dispositivo."))))
+                .onErrorMap(this::isConnectionFailure, this::connectionFailure);
+    }
+
+    /**
+     * Lista as localizações mais recentes de um dispositivo (GET /devices/{id}/locations/{limit})
+     * Polls simultâneos do mesmo dispositivo e usuário compartilham uma única chamada
+     */
+    public Mono<List<LocationResponse>> listDeviceLocations(Long deviceId, int limit, String accessToken) {
+        String path = devicesEndpoint + "/" + deviceId + "/locations/" + limit;
+
+        return requestCoalescer.executeReactive(path, accessToken, () -> webClient.get()
+                .uri(path)
+                .headers(headers -> headers.setBearerAuth(accessToken))
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, response -> {
+                    log.error("Erro ao listar localizações do dispositivo. Status: {}", response.statusCode());
+                    return failure(response, "Erro ao listar localizações. Tente novamente mais tarde.");
+                })
+                .bodyToMono(LocationListResponse.class)
+                .<List<LocationResponse>>map(body -> body.getData() != null ? body.getData() : List.of())
+                .defaultIfEmpty(List.of())
+                .onErrorMap(this::isConnectionFailure, this::connectionFailure));
+    }
+
+    /**
+     * Lê o corpo do erro e classifica a falha como o DeviceService (401 sessão expirada, 404 não encontrado...)
+     */
+    private Mono<UpstreamFailureException> failure(ClientResponse response, String defaultMessage) {
+        return response.bodyToMono(byte[].class)
+                .defaultIfEmpty(new byte[0])
+                .map(body -> new UpstreamFailureException(DeviceService.describe(
+                        UpstreamError.response(response.statusCode(), body, objectMapper), defaultMessage)));
+    }
+
+    private boolean isConnectionFailure(Throwable e) {
+        return e instanceof WebClientRequestException || e instanceof CodecException
+                || e instanceof UpstreamRejectedException;
+    }
+
+    private Throwable connectionFailure(Throwable e) {
+        log.error("Erro inesperado na chamada à API", e);
+        return new UpstreamFailureException(DeviceService.describe(
+                UpstreamError.unreachable(e instanceof Exception cause ? cause : new Exception(e)), null));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.petsafeweb.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa chamadas idênticas à API (mesma URL e mesmo usuário) que acontecem ao mesmo tempo
+ * A primeira chamada vai até a API; as demais aguardam e recebem o mesmo resultado (ou o mesmo erro)
+ */
+@Component
+public class RequestCoalescer {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Mono<Object>> inFlightReactive = new ConcurrentHashMap<>();
+    private final Counter coalescedCounter;
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.coalescedCounter = Counter.builder("petsafe.upstream.coalesced")
+                .description("Chamadas à API atendidas por outra chamada idêntica em andamento")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Chamada à API que pode lançar uma exceção do tipo {@code E}
+     */
+    @FunctionalInterface
+    public interface UpstreamCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * Executa a chamada ou, se uma idêntica já estiver em andamento, aguarda o resultado dela
+     *
+     * @param url         URL da API (identifica a requisição)
+     * @param accessToken Token do usuário (identifica o principal)
+     * @param call        Chamada real à API
+     * @return Resultado compartilhado
+     * @throws E O mesmo erro recebido pela chamada original
+     */
+    public <T, E extends Exception> T execute(String url, String accessToken, UpstreamCall<T, E> call) throws E {
+        String key = url + "|" + accessToken;
+        CompletableFuture<Object> leader = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, leader);
+
+        if (existing != null) {
+            coalescedCounter.increment();
+            return await(existing);
+        }
+
+        try {
+            T result = call.call();
+            leader.complete(result);
+            return result;
+        } catch (Throwable t) {
+            // Também Errors (OutOfMemoryError, AssertionError): quem aguarda não pode ficar bloqueado para sempre
+            leader.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, leader);
+        }
+    }
+
+    /**
+     * Versão reativa de {@link #execute}: assinantes simultâneos compartilham o mesmo Mono em andamento
+     *
+     * @param url         URL da API (identifica a requisição)
+     * @param accessToken Token do usuário (identifica o principal)
+     * @param call        Fábrica da chamada real à API
+     * @return Mono com o resultado compartilhado
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> executeReactive(String url, String accessToken, Supplier<Mono<T>> call) {
+        String key = url + "|" + accessToken;
+        return Mono.defer(() -> {
+            Mono<Object>[] leader = new Mono[1];
+            Mono<Object> shared = inFlightReactive.computeIfAbsent(key, k -> {
+                leader[0] = ((Mono<Object>) call.get())
+                        .doFinally(signal -> inFlightReactive.remove(k, leader[0]))
+                        .cache();
+                return leader[0];
+            });
+
+            if (shared != leader[0]) {
+                coalescedCounter.increment();
+            }
+            return (Mono<T>) shared;
+        });
+    }
+
+    /**
+     * As chamadas em andamento são indexadas pela URL e pelo token: ao renovar o token, chamadas com o token novo
+     * passam a aguardar as que ainda estão em andamento com o antigo. O atalho sai do mapa quando a chamada termina.
+     */
+    @EventListener
+    public void onAccessTokenRefreshed(AccessTokenRefreshedEvent event) {
+        String suffix = "|" + event.previousToken();
+        for (Map.Entry<String, CompletableFuture<Object>> entry : List.copyOf(inFlight.entrySet())) {
+            if (entry.getKey().endsWith(suffix)) {
+                String alias = renamed(entry.getKey(), suffix, event.accessToken());
+                CompletableFuture<Object> future = entry.getValue();
+                if (inFlight.putIfAbsent(alias, future) == null) {
+                    future.whenComplete((result, error) -> inFlight.remove(alias, future));
+                }
+            }
+        }
+        for (Map.Entry<String, Mono<Object>> entry : List.copyOf(inFlightReactive.entrySet())) {
+            if (entry.getKey().endsWith(suffix)) {
+                String alias = renamed(entry.getKey(), suffix, event.accessToken());
+                Mono<Object> shared = entry.getValue();
+                if (inFlightReactive.putIfAbsent(alias, shared) == null) {
+                    // Mono em cache: assinar não repete a chamada, só avisa quando ela termina
+                    shared.doFinally(signal -> inFlightReactive.remove(alias, shared))
+                            .subscribe(value -> {
+                            }, error -> {
+                            });
+                }
+            }
+        }
+    }
+
+    private static String renamed(String key, String suffix, String accessToken) {
+        return key.substring(0, key.length() - suffix.length()) + "|" + accessToken;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T, E extends Exception> T await(CompletableFuture<Object> future) throws E {
+        try {
+            return (T) future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            // Mesma URL implica o mesmo código chamador, então a exceção é do tipo E
+            throw (E) cause;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.petsafeweb.service;
+
+import com.example.petsafeweb.dto.LoginResponse;
+import com.example.petsafeweb.dto.RefreshTokenRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tokens de acesso das sessões web: acompanha a expiração (claim {@code exp} do JWT) e renova o token com o
+ * refresh token antes que ele vença, para que as chamadas à API não comecem a falhar com 401.
+ * A renovação é única por sessão: requisições simultâneas esperam a mesma chamada ao /auth/refresh (a API revoga
+ * o refresh token usado, então duas renovações em paralelo derrubariam a sessão).
+ * Os atributos accessToken/refreshToken da sessão continuam sendo a fonte lida pelos controllers.
+ */
+@Slf4j
+@Component
+public class TokenManager {
+
+    public static final String ACCESS_TOKEN = "accessToken";
+    public static final String REFRESH_TOKEN = "refreshToken";
+
+    private static final String STATE_ATTRIBUTE = TokenManager.class.getName() + ".STATE";
+
+    private final UpstreamClient upstreamClient;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration refreshAhead;
+    private final Duration retryDelay;
+    private final Counter refreshCounter;
+    private final Counter refreshFailureCounter;
+
+    // Token (atual ou recém-substituído) -> estado da sessão dona dele; usado pelo retry de 401 fora da requisição
+    private final Cache<String, SessionTokens> sessionsByToken;
+    // ID da sessão -> estado adotado dos atributos; garante um único estado por sessão sem um lock global
+    private final Cache<String, SessionTokens> sessionsById;
+
+    @Value("${petsafe.api.base-url}")
+    private String apiBaseUrl;
+
+    @Value("${petsafe.api.endpoints.refresh}")
+    private String refreshEndpoint;
+
+    public TokenManager(UpstreamClient upstreamClient, ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+            @Value("${petsafe.auth.refresh-ahead-seconds:60}") long refreshAheadSeconds,
+            @Value("${petsafe.auth.refresh-retry-seconds:5}") long retrySeconds,
+            @Value("${server.servlet.session.timeout:30m}") Duration sessionTimeout) {
+        this.upstreamClient = upstreamClient;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.refreshAhead = Duration.ofSeconds(refreshAheadSeconds);
+        this.retryDelay = Duration.ofSeconds(retrySeconds);
+        this.sessionsByToken = Caffeine.newBuilder()
+                .expireAfterAccess(sessionTimeout)
+                .build();
+        this.sessionsById = Caffeine.newBuilder()
+                .expireAfterAccess(sessionTimeout)
+                .build();
+        this.refreshCounter = Counter.builder("petsafe.auth.refresh")
+                .description("Tokens de acesso renovados com o refresh token")
+                .register(meterRegistry);
+        this.refreshFailureCounter = Counter.builder("petsafe.auth.refresh.failures")
+                .description("Renovações de token recusadas pela API ou sem resposta")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Guarda os tokens do login na sessão e passa a acompanhar a expiração
+     */
+    public void startSession(HttpSession session, LoginResponse login) {
+        session.setAttribute(ACCESS_TOKEN, login.getAccessToken());
+        session.setAttribute(REFRESH_TOKEN, login.getRefreshToken());
+        SessionTokens tokens = new SessionTokens(session, login.getAccessToken(), login.getRefreshToken(),
+                expirationOf(login.getAccessToken()));
+        session.setAttribute(STATE_ATTRIBUTE, tokens);
+        sessionsByToken.put(login.getAccessToken(), tokens);
+    }
+
+    /**
+     * Para de acompanhar a sessão (logout)
+     */
+    public void endSession(HttpSession session) {
+        if (session.getAttribute(STATE_ATTRIBUTE) instanceof SessionTokens tokens) {
+            sessionsByToken.invalidate(tokens.accessToken);
+        }
+        sessionsById.invalidate(session.getId());
+    }
+
+    /**
+     * Token de acesso atual da sessão, renovado antes se estiver a menos de refresh-ahead-seconds de vencer
+     *
+     * @return O token (o mesmo de antes se a renovação falhar), ou {@code null} se a sessão não tiver token
+     *         ou já tiver sido invalidada
+     */
+    public String currentToken(HttpSession session) {
+        SessionTokens tokens;
+        try {
+            tokens = stateOf(session);
+        } catch (IllegalStateException e) {
+            return null; // Sessão invalidada (ex.: poller de uma aba após o logout)
+        }
+        if (tokens == null) {
+            return null;
+        }
+
+        String token = tokens.accessToken;
+        if (tokens.expiresAt != null && isExpiring(tokens)) {
+            refresh(tokens, token);
+        }
+        return tokens.accessToken;
+    }
+
+    /**
+     * Token a menos de refresh-ahead-seconds de vencer; sem claim exp não há como saber, então é tratado como
+     * vencendo
+     */
+    private boolean isExpiring(SessionTokens tokens) {
+        Instant expiresAt = tokens.expiresAt;
+        return expiresAt == null || Instant.now().plus(refreshAhead).isAfter(expiresAt);
+    }
+
+    /**
+     * Renova o token depois que a API o recusou com 401
+     * Se outra requisição já renovou o token da mesma sessão, apenas devolve o novo, sem chamar a API de novo.
+     * Um token que, pelo claim exp, ainda não está vencendo não é renovado: o 401 tem outro motivo (ex.: acesso
+     * revogado) e um token novo não mudaria a resposta.
+     *
+     * @param rejectedToken Token enviado na chamada recusada
+     * @return Token para repetir a chamada, ou {@code null} se o token não é de uma sessão conhecida, não está
+     *         vencendo ou a renovação falhou
+     */
+    public String refreshAfterUnauthorized(String rejectedToken) {
+        SessionTokens tokens = sessionsByToken.getIfPresent(rejectedToken);
+        if (tokens == null) {
+            return null;
+        }
+        if (tokens.accessToken.equals(rejectedToken) && !isExpiring(tokens)) {
+            return null;
+        }
+        refresh(tokens, rejectedToken);
+        String current = tokens.accessToken;
+        return current.equals(rejectedToken) ? null : current;
+    }
+
+    /**
+     * Estado da sessão; sessões criadas antes deste gerenciador (ou restauradas) são adotadas a partir dos atributos
+     * A adoção é atômica por ID de sessão: requisições simultâneas da mesma sessão recebem o mesmo estado, e as de
+     * outras sessões não esperam por ela
+     */
+    private SessionTokens stateOf(HttpSession session) {
+        if (session.getAttribute(STATE_ATTRIBUTE) instanceof SessionTokens tokens) {
+            return tokens;
+        }
+        String accessToken = (String) session.getAttribute(ACCESS_TOKEN);
+        if (accessToken == null || accessToken.isEmpty()) {
+            return null;
+        }
+        SessionTokens tokens = sessionsById.get(session.getId(), id -> new SessionTokens(session, accessToken,
+                (String) session.getAttribute(REFRESH_TOKEN), expirationOf(accessToken)));
+        session.setAttribute(STATE_ATTRIBUTE, tokens);
+        sessionsByToken.asMap().putIfAbsent(tokens.accessToken, tokens);
+        return tokens;
+    }
+
+    /**
+     * Renova os tokens da sessão, a menos que {@code staleToken} já tenha sido substituído
+     * Quem chega durante uma renovação espera o lock e encontra o token novo.
+     */
+    private void refresh(SessionTokens tokens, String staleToken) {
+        tokens.lock.lock();
+        try {
+            if (!tokens.accessToken.equals(staleToken) || !tokens.canRefresh(Instant.now())) {
+                return;
+            }
+
+            UpstreamResult<LoginResponse> result = upstreamClient.exchange(HttpMethod.POST,
+                    apiBaseUrl + refreshEndpoint, null, new RefreshTokenRequest(tokens.refreshToken),
+                    LoginResponse.class);
+
+            switch (result) {
+                case UpstreamResult.Success<LoginResponse> success
+                        when success.value() != null && success.value().getAccessToken() != null -> {
+                    LoginResponse refreshed = success.value();
+                    tokens.update(refreshed.getAccessToken(), refreshed.getRefreshToken() != null
+                            ? refreshed.getRefreshToken()
+                            : tokens.refreshToken, expirationOf(refreshed.getAccessToken()));
+                    sessionsByToken.put(refreshed.getAccessToken(), tokens);
+                    refreshCounter.increment();
+                    log.debug("Token de acesso renovado (expira em {})", tokens.expiresAt);
+                    eventPublisher.publishEvent(new AccessTokenRefreshedEvent(staleToken, refreshed.getAccessToken()));
+                }
+                case UpstreamResult.Failure<LoginResponse> failure when failure.reason()
+                        == UpstreamResult.Reason.UNAVAILABLE -> {
+                    // API fora do ar: tenta de novo daqui a pouco, sem segurar as requisições seguintes
+                    refreshFailureCounter.increment();
+                    tokens.retryAfter = Instant.now().plus(retryDelay);
+                    log.warn("Não foi possível renovar o token de acesso: {}", failure.error());
+                }
+                default -> {
+                    // Refresh token inválido ou revogado: a sessão termina no próximo 401 (login de novo)
+                    refreshFailureCounter.increment();
+                    tokens.rejected = true;
+                    log.info("Renovação do token de acesso recusada pela API");
+                }
+            }
+        } finally {
+            tokens.lock.unlock();
+        }
+    }
+
+    /**
+     * Lê o claim {@code exp} do JWT (sem validar a assinatura, que é papel da API)
+     *
+     * @return Momento de expiração, ou {@code null} se o token não for um JWT com exp
+     */
+    private Instant expirationOf(String accessToken) {
+        String[] parts = accessToken != null ? accessToken.split("\\.") : new String[0];
+        if (parts.length < 2) {
+            return null;
+        }
+        try {
+            JsonNode claims = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1]));
+            JsonNode exp = claims.get("exp");
+            return exp != null && exp.canConvertToLong() ? Instant.ofEpochSecond(exp.asLong()) : null;
+        } catch (Exception e) {
+            log.debug("Token de acesso sem claim exp legível");
+            return null;
+        }
+    }
+
+    /**
+     * Tokens de uma sessão; campos alterados só com o lock, lidos sem ele (volatile)
+     */
+    private static final class SessionTokens {
+
+        private final HttpSession session;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile String accessToken;
+        private volatile String refreshToken;
+        private volatile Instant expiresAt;
+        private volatile Instant retryAfter;
+        private volatile boolean rejected;
+
+        private SessionTokens(HttpSession session, String accessToken, String refreshToken, Instant expiresAt) {
+            this.session = session;
+            this.accessToken = accessToken;
+            this.refreshToken = refreshToken;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean canRefresh(Instant now) {
+            return refreshToken != null && !rejected && (retryAfter == null || now.isAfter(retryAfter));
+        }
+
+        void update(String accessToken, String refreshToken, Instant expiresAt) {
+            this.accessToken = accessToken;
+            this.refreshToken = refreshToken;
+            this.expiresAt = expiresAt;
+            this.retryAfter = null;
+            try {
+                // Mantém os atributos lidos pelos controllers em sincronia
+                session.setAttribute(ACCESS_TOKEN, accessToken);
+                session.setAttribute(REFRESH_TOKEN, refreshToken);
+            } catch (IllegalStateException e) {
+                // Sessão invalidada durante a renovação
+            }
+        }
+    }
+}
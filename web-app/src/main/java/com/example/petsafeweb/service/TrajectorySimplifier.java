@@ -0,0 +1,118 @@
+package com.example.petsafeweb.service;
+
+import com.example.petsafeweb.dto.LocationResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Simplifica trajetórias (Douglas–Peucker) antes de enviá-las ao mapa
+ * A tolerância depende do zoom do Leaflet: pontos que ficariam a menos de ~1 pixel da linha simplificada são
+ * descartados, então milhares de pontos históricos viram algumas centenas de vértices sem mudança visível
+ */
+@Component
+public class TrajectorySimplifier {
+
+    // Raio equatorial da Terra (Web Mercator) e metros por pixel no zoom 0, em tiles de 256px
+    private static final double EARTH_RADIUS_M = 6_378_137.0;
+    private static final double METERS_PER_PIXEL_ZOOM_0 = 2 * Math.PI * EARTH_RADIUS_M / 256;
+
+    public static final int MIN_ZOOM = 0;
+    public static final int MAX_ZOOM = 22;
+
+    @Value("${petsafe.locations.simplify.pixel-tolerance:1.5}")
+    private double pixelTolerance;
+
+    /**
+     * @param points Pontos na ordem recebida (o primeiro e o último são sempre mantidos)
+     * @param zoom   Nível de zoom do mapa (0 a 22)
+     * @return Subconjunto dos pontos, na mesma ordem
+     */
+    public List<LocationResponse> simplify(List<LocationResponse> points, int zoom) {
+        List<LocationResponse> valid = new ArrayList<>(points.size());
+        for (LocationResponse point : points) {
+            if (point.getLatitude() != null && point.getLongitude() != null) {
+                valid.add(point);
+            }
+        }
+
+        int n = valid.size();
+        if (n <= 2) {
+            return valid;
+        }
+
+        // Projeção equiretangular local (em metros), suficiente para a escala de uma trajetória
+        double referenceLat = Math.toRadians(valid.get(0).getLatitude());
+        double cosLat = Math.cos(referenceLat);
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = EARTH_RADIUS_M * Math.toRadians(valid.get(i).getLongitude()) * cosLat;
+            y[i] = EARTH_RADIUS_M * Math.toRadians(valid.get(i).getLatitude());
+        }
+
+        double tolerance = metersPerPixel(zoom, cosLat) * pixelTolerance;
+        double toleranceSquared = tolerance * tolerance;
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+
+        // Versão iterativa (pilha) para não estourar a stack com trajetórias longas
+        Deque<int[]> ranges = new ArrayDeque<>();
+        ranges.push(new int[]{0, n - 1});
+        while (!ranges.isEmpty()) {
+            int[] range = ranges.pop();
+            int first = range[0];
+            int last = range[1];
+
+            double maxDistance = -1;
+            int farthest = -1;
+            for (int i = first + 1; i < last; i++) {
+                double distance = segmentDistanceSquared(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+
+            if (farthest != -1 && maxDistance > toleranceSquared) {
+                keep[farthest] = true;
+                ranges.push(new int[]{first, farthest});
+                ranges.push(new int[]{farthest, last});
+            }
+        }
+
+        List<LocationResponse> simplified = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                simplified.add(valid.get(i));
+            }
+        }
+        return simplified;
+    }
+
+    private static double metersPerPixel(int zoom, double cosLat) {
+        return METERS_PER_PIXEL_ZOOM_0 * cosLat / Math.pow(2, zoom);
+    }
+
+    /**
+     * Distância ao quadrado do ponto (px, py) ao segmento (ax, ay)-(bx, by)
+     */
+    private static double segmentDistanceSquared(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.petsafeweb.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Abre escopos de chamadas paralelas à API ({@link UpstreamTaskScope}) com o prazo configurado
+ */
+@Component
+public class UpstreamCalls {
+
+    private final ExecutorService upstreamExecutor;
+
+    // Prazo máximo do conjunto de chamadas feitas em paralelo por uma requisição
+    @Value("${petsafe.api.call-timeout-ms:4000}")
+    private long callTimeoutMs;
+
+    public UpstreamCalls(ExecutorService upstreamExecutor) {
+        this.upstreamExecutor = upstreamExecutor;
+    }
+
+    public UpstreamTaskScope open() {
+        return new UpstreamTaskScope(upstreamExecutor, callTimeoutMs);
+    }
+}
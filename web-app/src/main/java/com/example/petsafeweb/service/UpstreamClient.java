@@ -0,0 +1,108 @@
+package com.example.petsafeweb.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpMessageConverterExtractor;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Chamadas à API que devolvem {@link UpstreamResult} em vez de lançar exceções
+ * Usa o mesmo pool, interceptors (circuit breaker, métricas) e conversores do RestTemplate principal, mas sem
+ * ResponseErrorHandler: um status de erro vira uma {@link UpstreamResult.Failure} com o corpo ainda não lido,
+ * sem HttpClientErrorException nem stack trace.
+ */
+@Slf4j
+@Component
+public class UpstreamClient {
+
+    private static final ResponseErrorHandler NO_ERROR_HANDLER = new ResponseErrorHandler() {
+        @Override
+        public boolean hasError(ClientHttpResponse response) {
+            return false;
+        }
+
+        @Override
+        public void handleError(ClientHttpResponse response) {
+        }
+    };
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+
+    public UpstreamClient(RestTemplate restTemplate, ObjectMapper objectMapper) {
+        // getRequestFactory() já inclui os interceptors do RestTemplate principal
+        this.restTemplate = new RestTemplate(restTemplate.getRequestFactory());
+        this.restTemplate.setMessageConverters(restTemplate.getMessageConverters());
+        this.restTemplate.setUriTemplateHandler(restTemplate.getUriTemplateHandler());
+        this.restTemplate.setErrorHandler(NO_ERROR_HANDLER);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param url         URL completa da API
+     * @param accessToken Token do usuário, ou {@code null} para endpoints públicos (login, registro)
+     * @param body        Corpo JSON, ou {@code null}
+     * @param type        Tipo da resposta ({@code Void.class} para ignorar o corpo)
+     * @return O corpo convertido ou a falha (status de erro, sem resposta ou resposta ilegível)
+     */
+    public <T> UpstreamResult<T> exchange(HttpMethod method, String url, String accessToken, Object body,
+            Class<T> type) {
+        return execute(method, url, accessToken, body, type);
+    }
+
+    public <T> UpstreamResult<T> exchange(HttpMethod method, String url, String accessToken, Object body,
+            ParameterizedTypeReference<T> type) {
+        return execute(method, url, accessToken, body, type.getType());
+    }
+
+    private <T> UpstreamResult<T> execute(HttpMethod method, String url, String accessToken, Object body,
+            Type type) {
+        HttpHeaders headers = new HttpHeaders();
+        if (accessToken != null) {
+            headers.setBearerAuth(accessToken);
+        }
+        if (body != null) {
+            headers.setContentType(MediaType.APPLICATION_JSON);
+        }
+        RequestCallback requestCallback = restTemplate.httpEntityCallback(new HttpEntity<>(body, headers), type);
+
+        try {
+            return restTemplate.execute(url, method, requestCallback, response -> read(response, type));
+        } catch (RestClientException e) {
+            // Sem conexão, timeout, circuito aberto ou corpo 2xx que não pôde ser convertido
+            log.warn("Falha na chamada {} {}: {}", method, url, e.getMessage());
+            return UpstreamResult.failure(UpstreamResult.Reason.UNAVAILABLE, UpstreamError.unreachable(e),
+                    "Erro ao conectar com o servidor. Tente novamente mais tarde.");
+        }
+    }
+
+    private <T> UpstreamResult<T> read(ClientHttpResponse response, Type type) throws IOException {
+        HttpStatusCode status = response.getStatusCode();
+        if (!status.is2xxSuccessful()) {
+            // O corpo é copiado (a conexão volta ao pool), mas só é interpretado se a mensagem for usada
+            UpstreamError error = UpstreamError.response(status, response.getBody().readAllBytes(), objectMapper);
+            return UpstreamResult.failure(UpstreamResult.Reason.of(error), error,
+                    "Erro ao conectar com o servidor. Tente novamente mais tarde.");
+        }
+        if (type == Void.class) {
+            return UpstreamResult.success(null);
+        }
+        T value = new HttpMessageConverterExtractor<T>(type, restTemplate.getMessageConverters())
+                .extractData(response);
+        return UpstreamResult.success(value);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.petsafeweb.service;
+
+import com.example.petsafeweb.dto.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Resposta de erro da API (status fora de 2xx) ou falha ao alcançá-la
+ * O corpo fica guardado como veio da API e só é convertido em {@link ErrorResponse} quando alguém pede a mensagem;
+ * erros esperados (401, 404, validação) não criam exceções nem stack traces.
+ */
+@Slf4j
+public final class UpstreamError {
+
+    private final HttpStatusCode status;
+    private final byte[] body;
+    private final Exception cause;
+    private final ObjectMapper objectMapper;
+
+    private boolean parsed;
+    private String apiMessage;
+
+    private UpstreamError(HttpStatusCode status, byte[] body, Exception cause, ObjectMapper objectMapper) {
+        this.status = status;
+        this.body = body;
+        this.cause = cause;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * A API respondeu com um status de erro
+     */
+    public static UpstreamError response(HttpStatusCode status, byte[] body, ObjectMapper objectMapper) {
+        return new UpstreamError(status, body, null, objectMapper);
+    }
+
+    /**
+     * A API não respondeu (falha de conexão, timeout, circuito aberto ou resposta ilegível)
+     */
+    public static UpstreamError unreachable(Exception cause) {
+        return new UpstreamError(null, new byte[0], cause, null);
+    }
+
+    /**
+     * @return Status devolvido pela API, ou {@code null} se ela não respondeu
+     */
+    public HttpStatusCode getStatus() {
+        return status;
+    }
+
+    public boolean is(HttpStatus expected) {
+        return status != null && status.value() == expected.value();
+    }
+
+    /**
+     * API fora do ar ou com erro interno: situação em que vale recorrer à última resposta válida
+     */
+    public boolean isUnavailable() {
+        return status == null || status.is5xxServerError();
+    }
+
+    public Exception getCause() {
+        return cause;
+    }
+
+    public String getBody() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Mensagem enviada pela API no corpo do erro ({@code {"message": ...}}), lida na primeira chamada
+     *
+     * @return A mensagem, ou {@code null} se o corpo não tiver uma
+     */
+    public synchronized String getApiMessage() {
+        if (!parsed) {
+            parsed = true;
+            if (objectMapper != null && body.length > 0) {
+                try {
+                    String message = objectMapper.readValue(body, ErrorResponse.class).getMessage();
+                    apiMessage = message != null && !message.trim().isEmpty() ? message : null;
+                } catch (Exception e) {
+                    log.debug("Não foi possível parsear a resposta de erro");
+                }
+            }
+        }
+        return apiMessage;
+    }
+
+    @Override
+    public String toString() {
+        return status != null
+                ? "status " + status.value()
+                : "sem resposta (" + (cause != null ? cause.getMessage() : "?") + ")";
+    }
+}
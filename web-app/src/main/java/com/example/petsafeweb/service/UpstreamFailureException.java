@@ -0,0 +1,19 @@
+package com.example.petsafeweb.service;
+
+/**
+ * {@link UpstreamResult.Failure} levada por código que ainda trabalha com exceções (Mono, buffers do feed)
+ * Não preenche stack trace: representa uma resposta esperada da API, não um erro de programação.
+ */
+public class UpstreamFailureException extends RuntimeException {
+
+    private final transient UpstreamResult.Failure<?> failure;
+
+    public UpstreamFailureException(UpstreamResult.Failure<?> failure) {
+        super(failure.message(), null, false, false);
+        this.failure = failure;
+    }
+
+    public UpstreamResult.Failure<?> getFailure() {
+        return failure;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.petsafeweb.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Proxy de passagem direta para a API
+ * Copia o corpo e os cabeçalhos relevantes da resposta da API direto para o navegador,
+ * sem desserializar o JSON (e sem descompactar quando a resposta vem com gzip)
+ * Em GETs de polling ({@link #forwardConditional}), responde 304 quando o conteúdo não mudou
+ */
+@Component
+public class UpstreamProxy {
+
+    // Cabeçalhos da resposta da API repassados ao navegador
+    private static final List<String> FORWARDED_RESPONSE_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.CONTENT_ENCODING,
+            HttpHeaders.CONTENT_LENGTH,
+            HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.ETAG,
+            HttpHeaders.LAST_MODIFIED,
+            HttpHeaders.VARY);
+
+    private final ClientHttpRequestFactory requestFactory;
+
+    public UpstreamProxy(@Qualifier("passthroughRequestFactory") ClientHttpRequestFactory requestFactory) {
+        this.requestFactory = requestFactory;
+    }
+
+    /**
+     * Executa a requisição na API e escreve a resposta (status, cabeçalhos e corpo) no response do servlet
+     *
+     * @param method      Método HTTP
+     * @param url         URL completa da API
+     * @param accessToken Token de acesso do usuário
+     * @param request     Requisição do navegador (de onde vem o Accept-Encoding)
+     * @param response    Resposta do navegador
+     * @return Status HTTP devolvido pela API
+     * @throws IOException Se houver falha de comunicação com a API ou com o navegador
+     */
+    public int forward(HttpMethod method, String url, String accessToken,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        return forward(method, url, accessToken, request, response, false);
+    }
+
+    /**
+     * GET com validação condicional: o If-None-Match do navegador é repassado à API. Se a API não devolver ETag,
+     * o corpo (pequeno, já que a listagem é limitada pela API) é lido inteiro e o ETag forte é calculado sobre os
+     * bytes recebidos; quando bate com o If-None-Match, a resposta é 304 sem corpo.
+     *
+     * @return Status HTTP devolvido ao navegador
+     */
+    public int forwardConditional(String url, String accessToken,
+                                  HttpServletRequest request, HttpServletResponse response) throws IOException {
+        return forward(HttpMethod.GET, url, accessToken, request, response, true);
+    }
+
+    private int forward(HttpMethod method, String url, String accessToken,
+                        HttpServletRequest request, HttpServletResponse response,
+                        boolean conditional) throws IOException {
+        // Fábrica própria do proxy (sem descompactação automática), com os interceptors do RestTemplate
+        ClientHttpRequest upstreamRequest = requestFactory.createRequest(URI.create(url), method);
+        HttpHeaders upstreamHeaders = upstreamRequest.getHeaders();
+        upstreamHeaders.setBearerAuth(accessToken);
+        upstreamHeaders.setAccept(List.of(MediaType.APPLICATION_JSON));
+
+        // Repassa o Accept-Encoding do navegador para receber (e devolver) o corpo ainda compactado
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null) {
+            upstreamHeaders.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+
+        List<String> ifNoneMatch = conditional
+                ? Collections.list(request.getHeaders(HttpHeaders.IF_NONE_MATCH))
+                : List.of();
+        if (!ifNoneMatch.isEmpty()) {
+            upstreamHeaders.put(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+
+        try (ClientHttpResponse upstreamResponse = upstreamRequest.execute()) {
+            int status = upstreamResponse.getStatusCode().value();
+            HttpHeaders headers = upstreamResponse.getHeaders();
+
+            if (conditional) {
+                // O navegador deve revalidar a cada polling, mas pode reaproveitar o corpo em cache com um 304
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+                if (status == HttpStatus.OK.value() && headers.getETag() == null) {
+                    return writeWithComputedEtag(upstreamResponse, ifNoneMatch, response);
+                }
+            }
+
+            response.setStatus(status);
+            copyHeaders(headers, response);
+
+            try (InputStream body = upstreamResponse.getBody()) {
+                StreamUtils.copy(body, response.getOutputStream());
+            }
+            response.flushBuffer();
+
+            return status;
+        }
+    }
+
+    private int writeWithComputedEtag(ClientHttpResponse upstreamResponse, List<String> ifNoneMatch,
+                                      HttpServletResponse response) throws IOException {
+        byte[] body;
+        try (InputStream in = upstreamResponse.getBody()) {
+            body = StreamUtils.copyToByteArray(in);
+        }
+
+        // Calculado sobre os bytes transferidos: a versão gzip e a sem compressão têm ETags diferentes
+        String etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        String encoding = upstreamResponse.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (encoding != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        if (matches(ifNoneMatch, etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            response.flushBuffer();
+            return HttpStatus.NOT_MODIFIED.value();
+        }
+
+        response.setStatus(HttpStatus.OK.value());
+        copyHeaders(upstreamResponse.getHeaders(), response);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        response.flushBuffer();
+        return HttpStatus.OK.value();
+    }
+
+    private static boolean matches(List<String> ifNoneMatch, String etag) {
+        for (String header : ifNoneMatch) {
+            for (String candidate : header.split(",")) {
+                String value = candidate.trim();
+                if (value.equals("*") || value.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void copyHeaders(HttpHeaders headers, HttpServletResponse response) {
+        for (String name : FORWARDED_RESPONSE_HEADERS) {
+            String value = headers.getFirst(name);
+            if (value != null) {
+                response.setHeader(name, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.petsafeweb.service;
+
+import org.springframework.http.HttpStatus;
+
+import java.util.function.Function;
+
+/**
+ * Resultado de uma chamada à API feita pelos services: o valor ou o motivo da falha
+ * Os controllers decidem o que fazer pelo {@link Reason} em vez de procurar textos na mensagem de uma exceção.
+ *
+ * @param <T> Tipo do valor em caso de sucesso
+ */
+public sealed interface UpstreamResult<T> permits UpstreamResult.Success, UpstreamResult.Failure {
+
+    /**
+     * Classificação da falha, usada pelos controllers para escolher a resposta (login, 404, mensagem...)
+     */
+    enum Reason {
+        SESSION_EXPIRED,
+        NOT_FOUND,
+        REJECTED,
+        UNAVAILABLE;
+
+        /**
+         * Classificação padrão pelo status: 401 sessão expirada, 404 não encontrado, outros 4xx recusa,
+         * 5xx ou sem resposta indisponível
+         */
+        public static Reason of(UpstreamError error) {
+            if (error.isUnavailable()) {
+                return UNAVAILABLE;
+            }
+            if (error.is(HttpStatus.UNAUTHORIZED)) {
+                return SESSION_EXPIRED;
+            }
+            return error.is(HttpStatus.NOT_FOUND) ? NOT_FOUND : REJECTED;
+        }
+    }
+
+    record Success<T>(T value) implements UpstreamResult<T> {
+    }
+
+    /**
+     * @param reason           Classificação da falha
+     * @param error            Resposta de erro da API (o corpo só é lido se a mensagem for pedida)
+     * @param fallbackMessage  Mensagem exibida ao usuário quando a API não enviou uma
+     * @param preferApiMessage Se a mensagem do corpo de um erro 4xx da API, quando existir, substitui a
+     *                         {@code fallbackMessage}
+     */
+    record Failure<T>(Reason reason, UpstreamError error, String fallbackMessage, boolean preferApiMessage)
+            implements UpstreamResult<T> {
+
+        /**
+         * Mensagem para o usuário
+         */
+        public String message() {
+            String apiMessage = preferApiMessage && !error.isUnavailable() ? error.getApiMessage() : null;
+            return apiMessage != null ? apiMessage : fallbackMessage;
+        }
+
+        public boolean isSessionExpired() {
+            return reason == Reason.SESSION_EXPIRED;
+        }
+
+        public boolean isNotFound() {
+            return reason == Reason.NOT_FOUND;
+        }
+
+        /**
+         * A mesma falha para um resultado de outro tipo
+         */
+        @SuppressWarnings("unchecked")
+        public <U> Failure<U> cast() {
+            return (Failure<U>) this;
+        }
+    }
+
+    static <T> UpstreamResult<T> success(T value) {
+        return new Success<>(value);
+    }
+
+    /**
+     * Falha com mensagem fixa (o corpo do erro da API é ignorado)
+     */
+    static <T> Failure<T> failure(Reason reason, UpstreamError error, String message) {
+        return new Failure<>(reason, error, message, false);
+    }
+
+    /**
+     * Falha que exibe a mensagem da API, se houver, ou {@code fallbackMessage}
+     */
+    static <T> Failure<T> failureWithApiMessage(Reason reason, UpstreamError error, String fallbackMessage) {
+        return new Failure<>(reason, error, fallbackMessage, true);
+    }
+
+    /**
+     * Converte uma exceção de código ainda baseado em exceções (escopo paralelo, services de geofence e alertas)
+     */
+    static <T> Failure<T> fromException(Exception e) {
+        if (e instanceof UpstreamFailureException failure) {
+            return failure.getFailure().cast();
+        }
+        return failure(Reason.UNAVAILABLE, UpstreamError.unreachable(e), e.getMessage());
+    }
+
+    default boolean isSuccess() {
+        return this instanceof Success;
+    }
+
+    /**
+     * Troca a falha genérica do {@link UpstreamClient} pela descrição da operação (classificação e mensagem)
+     */
+    default UpstreamResult<T> describeFailure(Function<UpstreamError, UpstreamResult<T>> describer) {
+        return this instanceof Failure<T> failure ? describer.apply(failure.error()) : this;
+    }
+
+    default <U> UpstreamResult<U> map(Function<? super T, ? extends U> mapper) {
+        return switch (this) {
+            case Success<T> success -> success(mapper.apply(success.value()));
+            case Failure<T> failure -> failure.cast();
+        };
+    }
+
+    default <U> UpstreamResult<U> flatMap(Function<? super T, UpstreamResult<U>> mapper) {
+        return switch (this) {
+            case Success<T> success -> mapper.apply(success.value());
+            case Failure<T> failure -> failure.cast();
+        };
+    }
+
+    default T orElse(T other) {
+        return this instanceof Success<T> success ? success.value() : other;
+    }
+
+    /**
+     * Para código baseado em exceções (ex.: Mono): o valor ou uma {@link UpstreamFailureException} sem stack trace
+     */
+    default T orElseThrow() {
+        return switch (this) {
+            case Success<T> success -> success.value();
+            case Failure<T> failure -> throw new UpstreamFailureException(failure);
+        };
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.petsafeweb.service;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Escopo de chamadas paralelas à API com prazo único (no estilo do StructuredTaskScope, que ainda é preview no Java 21)
+ * Cada fork roda em uma virtual thread; join() aguarda todos até o prazo e cancela os que não terminaram
+ *
+ * Chamadas reativas (Mono) são realmente canceladas. Chamadas bloqueantes não são interrompidas: interromper uma
+ * thread durante o carregamento de classes fecha o jar aninhado no loader do Spring Boot 3.2.0, e o HttpClient
+ * repete a requisição após o SocketException; elas terminam em segundo plano, limitadas pelo socket-timeout
+ *
+ * <pre>
+ * try (UpstreamTaskScope scope = upstreamCalls.open()) {
+ *     Subtask&lt;A&gt; a = scope.fork(() -> ...);
+ *     Subtask&lt;B&gt; b = scope.fork(() -> ...);
+ *     scope.join();
+ *     a.get(); // resultado, ou a exceção original / TimeoutException
+ * }
+ * </pre>
+ */
+public final class UpstreamTaskScope implements AutoCloseable {
+
+    private static final String TIMEOUT_MESSAGE = "Tempo de resposta do servidor esgotado.";
+
+    private final ExecutorService executor;
+    private final long deadlineNanos;
+    private final List<Subtask<?>> subtasks = new ArrayList<>();
+    private boolean joined;
+
+    UpstreamTaskScope(ExecutorService executor, long timeoutMs) {
+        this.executor = executor;
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+
+    /**
+     * Inicia uma chamada bloqueante em uma nova virtual thread
+     * A chamada enxerga os atributos da requisição que a criou (ex.: marcação de dados desatualizados)
+     */
+    public <T> Subtask<T> fork(Callable<T> call) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        return register(executor.submit(() -> {
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            try {
+                return call.call();
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+        }));
+    }
+
+    /**
+     * Inicia uma chamada do cliente reativo; o cancelamento no prazo cancela a assinatura
+     */
+    public <T> Subtask<T> fork(Mono<T> call) {
+        return register(call.toFuture());
+    }
+
+    private <T> Subtask<T> register(Future<T> future) {
+        if (joined) {
+            throw new IllegalStateException("Escopo já finalizado");
+        }
+        Subtask<T> subtask = new Subtask<>(future);
+        subtasks.add(subtask);
+        return subtask;
+    }
+
+    /**
+     * Aguarda todas as chamadas até o prazo do escopo e cancela as que não terminaram
+     *
+     * @throws InterruptedException Se a thread da requisição for interrompida durante a espera
+     */
+    public void join() throws InterruptedException {
+        try {
+            for (Subtask<?> subtask : subtasks) {
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                try {
+                    subtask.future.get(remaining, TimeUnit.NANOSECONDS);
+                } catch (ExecutionException | CancellationException e) {
+                    // A falha fica registrada no próprio subtask
+                } catch (TimeoutException e) {
+                    break;
+                }
+            }
+        } finally {
+            joined = true;
+            cancelUnfinished();
+        }
+    }
+
+    @Override
+    public void close() {
+        joined = true;
+        cancelUnfinished();
+    }
+
+    private void cancelUnfinished() {
+        for (Subtask<?> subtask : subtasks) {
+            subtask.future.cancel(false);
+        }
+    }
+
+    /**
+     * Resultado de uma chamada iniciada no escopo
+     */
+    public final class Subtask<T> {
+
+        private final Future<T> future;
+
+        private Subtask(Future<T> future) {
+            this.future = future;
+        }
+
+        /**
+         * @return O resultado da chamada
+         * @throws TimeoutException Se a chamada não terminou dentro do prazo do escopo
+         * @throws Exception        A exceção original lançada pela chamada
+         */
+        public T get() throws Exception {
+            if (!joined) {
+                throw new IllegalStateException("join() ainda não foi chamado");
+            }
+            if (future.isCancelled()) {
+                throw new TimeoutException(TIMEOUT_MESSAGE);
+            }
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception exception) {
+                    throw exception;
+                }
+                throw e;
+            }
+        }
+    }
+}
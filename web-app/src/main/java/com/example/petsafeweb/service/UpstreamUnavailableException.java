@@ -0,0 +1,12 @@
+package com.example.petsafeweb.service;
+
+/**
+ * A API não respondeu (falha de conexão, timeout, erro 5xx ou circuito aberto)
+ * Mantém a mesma mensagem exibida ao usuário; permite que o chamador recorra à última resposta válida
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+    public UpstreamUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
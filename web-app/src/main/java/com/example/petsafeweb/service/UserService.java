@@ -1,35 +1,39 @@
 package com.example.petsafeweb.service;
 
 import com.example.petsafeweb.dto.ApiDataResponse;
-import com.example.petsafeweb.dto.ErrorResponse;
 import com.example.petsafeweb.dto.UpdatePasswordRequest;
 import com.example.petsafeweb.dto.UpdateProfileRequest;
 import com.example.petsafeweb.dto.UserProfileResponse;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.petsafeweb.service.UpstreamResult.Reason;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.*;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 
 /**
  * Service para operações relacionadas ao usuário
+ * Os métodos devolvem {@link UpstreamResult}: respostas de erro da API não viram exceções.
  */
 @Slf4j
 @Service
 public class UserService {
 
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    private static final String CONNECTION_ERROR = "Erro ao conectar com o servidor. Tente novamente mais tarde.";
+    private static final String SESSION_EXPIRED_MESSAGE = "Sessão expirada. Faça login novamente.";
+
+    private static final ParameterizedTypeReference<ApiDataResponse<UserProfileResponse>> PROFILE_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final UpstreamClient upstreamClient;
 
     @Value("${petsafe.api.base-url}")
     private String apiBaseUrl;
 
-    public UserService(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
-        this.objectMapper = new ObjectMapper();
+    public UserService(UpstreamClient upstreamClient) {
+        this.upstreamClient = upstreamClient;
     }
 
     /**
@@ -37,70 +41,24 @@ public class UserService {
      *
      * @param userId ID do usuário (não utilizado, mantido por compatibilidade)
      * @param accessToken Token de acesso
-     * @return UserProfileResponse com dados do perfil
-     * @throws Exception Se houver erro na comunicação com a API
+     * @return UserProfileResponse com dados do perfil, ou a falha
      */
-    public UserProfileResponse getUserProfile(Long userId, String accessToken) throws Exception {
+    public UpstreamResult<UserProfileResponse> getUserProfile(Long userId, String accessToken) {
         String url = apiBaseUrl + "/api/v1/me";
 
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(accessToken);
-
-            HttpEntity<Void> request = new HttpEntity<>(headers);
-
-            // Usar ParameterizedTypeReference para deserializar o wrapper ApiDataResponse
-            ResponseEntity<ApiDataResponse<UserProfileResponse>> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                request,
-                new ParameterizedTypeReference<ApiDataResponse<UserProfileResponse>>() {}
-            );
-
-            ApiDataResponse<UserProfileResponse> apiResponse = response.getBody();
-            UserProfileResponse profile = apiResponse != null ? apiResponse.getData() : null;
-
-            return profile;
-
-        } catch (HttpClientErrorException e) {
-            log.error("Erro ao buscar perfil do usuário. Status: {}, Body: {}",
-                e.getStatusCode(), e.getResponseBodyAsString());
-
-            String errorMessage = null;
-            try {
-                ErrorResponse errorResponse = objectMapper.readValue(
-                    e.getResponseBodyAsString(),
-                    ErrorResponse.class
-                );
-                errorMessage = errorResponse.getMessage();
-            } catch (Exception parseException) {
-                log.debug("Não foi possível parsear a resposta de erro");
-            }
-
-            if (errorMessage != null && !errorMessage.trim().isEmpty()) {
-                throw new Exception(errorMessage);
-            }
-
-            if (e.getStatusCode() == HttpStatus.UNAUTHORIZED) {
-                throw new Exception("Sessão expirada. Faça login novamente.");
-            } else if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
-                throw new Exception("Usuário não encontrado.");
-            } else {
-                throw new Exception("Erro ao carregar perfil. Tente novamente mais tarde.");
-            }
-
-        } catch (Exception e) {
-            if (e.getMessage() != null &&
-                (e.getMessage().contains("Sessão expirada") ||
-                 e.getMessage().contains("Usuário não encontrado") ||
-                 e.getMessage().contains("Erro ao carregar perfil"))) {
-                throw e;
-            }
-
-            log.error("Erro inesperado ao buscar perfil do usuário", e);
-            throw new Exception("Erro ao conectar com o servidor. Tente novamente mais tarde.");
-        }
+        // O perfil vem dentro do wrapper ApiDataResponse
+        return upstreamClient.exchange(HttpMethod.GET, url, accessToken, null, PROFILE_TYPE)
+                .map(body -> body != null ? body.getData() : null)
+                .describeFailure(error -> {
+                    log.error("Erro ao buscar perfil do usuário. {}, Body: {}", error, error.getBody());
+                    Reason reason = Reason.of(error);
+                    return UpstreamResult.failureWithApiMessage(reason, error, switch (reason) {
+                        case SESSION_EXPIRED -> SESSION_EXPIRED_MESSAGE;
+                        case NOT_FOUND -> "Usuário não encontrado.";
+                        case UNAVAILABLE -> CONNECTION_ERROR;
+                        case REJECTED -> "Erro ao carregar perfil. Tente novamente mais tarde.";
+                    });
+                });
     }
 
     /**
@@ -108,138 +66,54 @@ public class UserService {
      *
      * @param updateRequest Dados a serem atualizados
      * @param accessToken Token de acesso
-     * @return UserProfileResponse com dados atualizados
-     * @throws Exception Se houver erro na comunicação com a API
+     * @return UserProfileResponse com dados atualizados, ou a falha
      */
-    public UserProfileResponse updateUserProfile(UpdateProfileRequest updateRequest, String accessToken) throws Exception {
+    public UpstreamResult<UserProfileResponse> updateUserProfile(UpdateProfileRequest updateRequest,
+                                                                 String accessToken) {
         String url = apiBaseUrl + "/api/v1/me";
 
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(accessToken);
-
-            HttpEntity<UpdateProfileRequest> request = new HttpEntity<>(updateRequest, headers);
-
-            ResponseEntity<ApiDataResponse<UserProfileResponse>> response = restTemplate.exchange(
-                url,
-                HttpMethod.PATCH,
-                request,
-                new ParameterizedTypeReference<ApiDataResponse<UserProfileResponse>>() {}
-            );
-
-            ApiDataResponse<UserProfileResponse> apiResponse = response.getBody();
-            return apiResponse != null ? apiResponse.getData() : null;
-
-        } catch (HttpClientErrorException e) {
-            log.error("Erro ao atualizar perfil do usuário. Status: {}, Body: {}",
-                e.getStatusCode(), e.getResponseBodyAsString());
-
-            String errorMessage = null;
-            try {
-                ErrorResponse errorResponse = objectMapper.readValue(
-                    e.getResponseBodyAsString(),
-                    ErrorResponse.class
-                );
-                errorMessage = errorResponse.getMessage();
-            } catch (Exception parseException) {
-                log.debug("Não foi possível parsear a resposta de erro");
-            }
-
-            if (errorMessage != null && !errorMessage.trim().isEmpty()) {
-                throw new Exception(errorMessage);
-            }
-
-            if (e.getStatusCode() == HttpStatus.UNAUTHORIZED) {
-                throw new Exception("Sessão expirada. Faça login novamente.");
-            } else if (e.getStatusCode() == HttpStatus.BAD_REQUEST) {
-                throw new Exception("Dados inválidos. Verifique as informações e tente novamente.");
-            } else {
-                throw new Exception("Erro ao atualizar perfil. Tente novamente mais tarde.");
-            }
-
-        } catch (Exception e) {
-            if (e.getMessage() != null &&
-                (e.getMessage().contains("Sessão expirada") ||
-                 e.getMessage().contains("Dados inválidos") ||
-                 e.getMessage().contains("Erro ao atualizar perfil"))) {
-                throw e;
-            }
-
-            log.error("Erro inesperado ao atualizar perfil do usuário", e);
-            throw new Exception("Erro ao conectar com o servidor. Tente novamente mais tarde.");
-        }
+        return upstreamClient.exchange(HttpMethod.PATCH, url, accessToken, updateRequest, PROFILE_TYPE)
+                .map(body -> body != null ? body.getData() : null)
+                .describeFailure(error -> {
+                    log.error("Erro ao atualizar perfil do usuário. {}, Body: {}", error, error.getBody());
+                    Reason reason = Reason.of(error);
+                    return UpstreamResult.failureWithApiMessage(reason, error, switch (reason) {
+                        case SESSION_EXPIRED -> SESSION_EXPIRED_MESSAGE;
+                        case UNAVAILABLE -> CONNECTION_ERROR;
+                        default -> error.is(HttpStatus.BAD_REQUEST)
+                                ? "Dados inválidos. Verifique as informações e tente novamente."
+                                : "Erro ao atualizar perfil. Tente novamente mais tarde.";
+                    });
+                });
     }
 
     /**
      * Atualiza a senha do usuário usando PATCH /me/password
+     * Aqui 401 significa senha atual incorreta ({@link Reason#REJECTED}); a sessão expirada vem como 403.
      *
      * @param passwordRequest Dados da senha (atual e nova)
      * @param accessToken Token de acesso
-     * @throws Exception Se houver erro na comunicação com a API
+     * @return Sucesso sem valor, ou a falha
      */
-    public void updateUserPassword(UpdatePasswordRequest passwordRequest, String accessToken) throws Exception {
+    public UpstreamResult<Void> updateUserPassword(UpdatePasswordRequest passwordRequest, String accessToken) {
         String url = apiBaseUrl + "/api/v1/me/password";
 
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(accessToken);
-
-            HttpEntity<UpdatePasswordRequest> request = new HttpEntity<>(passwordRequest, headers);
-
-            restTemplate.exchange(
-                url,
-                HttpMethod.PATCH,
-                request,
-                Void.class
-            );
-
-        } catch (HttpClientErrorException e) {
-            log.error("Erro ao atualizar senha do usuário. Status: {}, Body: {}",
-                e.getStatusCode(), e.getResponseBodyAsString());
-
-            String errorMessage = null;
-            try {
-                ErrorResponse errorResponse = objectMapper.readValue(
-                    e.getResponseBodyAsString(),
-                    ErrorResponse.class
-                );
-                errorMessage = errorResponse.getMessage();
-            } catch (Exception parseException) {
-                log.debug("Não foi possível parsear a resposta de erro");
-            }
-
-            // Se a API retornou uma mensagem de erro específica, usar ela
-            if (errorMessage != null && !errorMessage.trim().isEmpty()) {
-                throw new Exception(errorMessage);
-            }
-
-            // Se não conseguiu parsear a mensagem, usar mensagens padrão baseadas no status
-            if (e.getStatusCode() == HttpStatus.UNAUTHORIZED) {
-                // UNAUTHORIZED pode ser senha incorreta ou token inválido
-                // Como estamos validando senha, assumir que é senha incorreta
-                throw new Exception("Senha atual incorreta.");
-            } else if (e.getStatusCode() == HttpStatus.BAD_REQUEST) {
-                throw new Exception("Senha atual incorreta.");
-            } else if (e.getStatusCode() == HttpStatus.CONFLICT) {
-                throw new Exception("Senha atual incorreta.");
-            } else if (e.getStatusCode() == HttpStatus.FORBIDDEN) {
-                throw new Exception("Sessão expirada. Faça login novamente.");
-            } else {
-                throw new Exception("Erro ao atualizar senha. Tente novamente mais tarde.");
-            }
-
-        } catch (Exception e) {
-            if (e.getMessage() != null &&
-                (e.getMessage().contains("Sessão expirada") ||
-                 e.getMessage().contains("Senha atual incorreta") ||
-                 e.getMessage().contains("Erro ao atualizar senha"))) {
-                throw e;
-            }
-
-            log.error("Erro inesperado ao atualizar senha do usuário", e);
-            throw new Exception("Erro ao conectar com o servidor. Tente novamente mais tarde.");
-        }
+        return upstreamClient.exchange(HttpMethod.PATCH, url, accessToken, passwordRequest, Void.class)
+                .describeFailure(error -> {
+                    log.error("Erro ao atualizar senha do usuário. {}, Body: {}", error, error.getBody());
+                    if (error.isUnavailable()) {
+                        return UpstreamResult.failure(Reason.UNAVAILABLE, error, CONNECTION_ERROR);
+                    }
+                    if (error.is(HttpStatus.FORBIDDEN)) {
+                        return UpstreamResult.failureWithApiMessage(Reason.SESSION_EXPIRED, error,
+                                SESSION_EXPIRED_MESSAGE);
+                    }
+                    if (error.is(HttpStatus.UNAUTHORIZED) || error.is(HttpStatus.BAD_REQUEST)
+                            || error.is(HttpStatus.CONFLICT)) {
+                        return UpstreamResult.failureWithApiMessage(Reason.REJECTED, error, "Senha atual incorreta.");
+                    }
+                    return UpstreamResult.failureWithApiMessage(Reason.of(error), error,
+                            "Erro ao atualizar senha. Tente novamente mais tarde.");
+                });
     }
 }
@@ -0,0 +1,16 @@
+package com.example.petsafeweb;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Sobe o contexto completo (sem API): com o perfil Maven {@code pinning}, roda no perfil virtual-threads e o
+ * -Djdk.tracePinnedThreads=full mostra qualquer pinning na inicialização dos beans
+ */
+@SpringBootTest
+class PetSafeWebTests {
+
+    @Test
+    void contextLoads() {
+    }
+}
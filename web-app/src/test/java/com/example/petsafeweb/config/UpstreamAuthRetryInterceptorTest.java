@@ -0,0 +1,79 @@
+package com.example.petsafeweb.config;
+
+import com.example.petsafeweb.service.TokenManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class UpstreamAuthRetryInterceptorTest {
+
+    private final TokenManager tokenManager = mock(TokenManager.class);
+    private final UpstreamAuthRetryInterceptor interceptor = new UpstreamAuthRetryInterceptor(provider(tokenManager));
+    private final List<String> sentTokens = new ArrayList<>();
+
+    @Test
+    void unauthorizedReadIsRepeatedWithTheRenewedToken() throws Exception {
+        when(tokenManager.refreshAfterUnauthorized("antigo")).thenReturn("novo");
+
+        ClientHttpResponse response = interceptor.intercept(request(HttpMethod.GET, "/api/v1/devices"), new byte[0],
+                execution(HttpStatus.UNAUTHORIZED, HttpStatus.OK));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(sentTokens).containsExactly("Bearer antigo", "Bearer novo");
+    }
+
+    @Test
+    void unauthorizedWriteIsNotRepeated() throws Exception {
+        ClientHttpResponse response = interceptor.intercept(request(HttpMethod.POST, "/api/v1/devices"), new byte[0],
+                execution(HttpStatus.UNAUTHORIZED, HttpStatus.OK));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(sentTokens).hasSize(1);
+        verifyNoInteractions(tokenManager);
+    }
+
+    @Test
+    void credentialEndpointsAreNeverRepeated() {
+        assertThat(UpstreamAuthRetryInterceptor.isRetryable(HttpMethod.PATCH,
+                URI.create("http://api/api/v1/me/password"))).isFalse();
+        assertThat(UpstreamAuthRetryInterceptor.isRetryable(HttpMethod.GET,
+                URI.create("http://api/api/v1/me/password"))).isFalse();
+        assertThat(UpstreamAuthRetryInterceptor.isRetryable(HttpMethod.GET,
+                URI.create("http://api/api/v1/me"))).isTrue();
+    }
+
+    private static HttpRequest request(HttpMethod method, String path) {
+        MockClientHttpRequest request = new MockClientHttpRequest(method, URI.create("http://api" + path));
+        request.getHeaders().setBearerAuth("antigo");
+        return request;
+    }
+
+    private ClientHttpRequestExecution execution(HttpStatus... statuses) {
+        return (request, body) -> {
+            sentTokens.add(request.getHeaders().getFirst("Authorization"));
+            return new MockClientHttpResponse(new byte[0], statuses[sentTokens.size() - 1]);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<TokenManager> provider(TokenManager tokenManager) {
+        ObjectProvider<TokenManager> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(tokenManager);
+        return provider;
+    }
+}
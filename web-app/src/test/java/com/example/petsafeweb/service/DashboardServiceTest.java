@@ -0,0 +1,105 @@
+package com.example.petsafeweb.service;
+
+import com.example.petsafeweb.dto.DashboardSnapshot;
+import com.example.petsafeweb.dto.DeviceResponse;
+import com.example.petsafeweb.dto.PetResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class DashboardServiceTest {
+
+    private static final String TOKEN = "token";
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final PetService petService = mock(PetService.class);
+    private final DeviceService deviceService = mock(DeviceService.class);
+    private final GeofenceService geofenceService = mock(GeofenceService.class);
+    private final AlertService alertService = mock(AlertService.class);
+    private final LastKnownGoodCache lastKnownGood = new LastKnownGoodCache(new SimpleMeterRegistry(), 60, 100);
+    private DashboardService dashboardService;
+
+    @BeforeEach
+    void setUp() {
+        UpstreamCalls upstreamCalls = mock(UpstreamCalls.class);
+        when(upstreamCalls.open()).thenAnswer(invocation -> new UpstreamTaskScope(executor, 5_000));
+        dashboardService = new DashboardService(petService, deviceService, geofenceService, alertService,
+                upstreamCalls, new SimpleMeterRegistry(), 300, 15, 15, 1800, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void loadsOnlyTheRequiredSections() {
+        when(petService.listPets(anyString())).thenReturn(UpstreamResult.success(List.of(new PetResponse())));
+        when(deviceService.listDevices(anyString())).thenReturn(UpstreamResult.success(List.of()));
+
+        UpstreamResult<DashboardSnapshot> result =
+                dashboardService.getSnapshot(TOKEN, DashboardSection.PETS, DashboardSection.DEVICES);
+
+        assertThat(result.orElseThrow().getPets()).hasSize(1);
+        verifyNoInteractions(geofenceService, alertService);
+    }
+
+    @Test
+    void staleSectionIsReloadedWhileFreshSectionStaysCached() {
+        lastKnownGood.remember("pets", TOKEN, List.of(new PetResponse()));
+        // Pets vêm da última resposta válida (API fora do ar); dispositivos respondem normalmente
+        when(petService.listPets(anyString())).thenAnswer(invocation -> UpstreamResult.success(
+                lastKnownGood.<List<PetResponse>>recallIfPresent("pets", TOKEN, "indisponível").orElseThrow()));
+        when(deviceService.listDevices(anyString()))
+                .thenReturn(UpstreamResult.success(List.of(new DeviceResponse())));
+
+        dashboardService.getSnapshot(TOKEN, DashboardSection.PETS, DashboardSection.DEVICES);
+        UpstreamResult<DashboardSnapshot> second =
+                dashboardService.getSnapshot(TOKEN, DashboardSection.PETS, DashboardSection.DEVICES);
+
+        assertThat(second.orElseThrow().getDevices()).hasSize(1);
+        verify(petService, times(2)).listPets(TOKEN);
+        verify(deviceService, times(1)).listDevices(TOKEN);
+    }
+
+    @Test
+    void devicesExpireOnTheirOwnShorterTtl() {
+        UpstreamCalls upstreamCalls = mock(UpstreamCalls.class);
+        when(upstreamCalls.open()).thenAnswer(invocation -> new UpstreamTaskScope(executor, 5_000));
+        DashboardService service = new DashboardService(petService, deviceService, geofenceService, alertService,
+                upstreamCalls, new SimpleMeterRegistry(), 300, 15, 0, 1800, 100);
+        when(petService.listPets(anyString())).thenReturn(UpstreamResult.success(List.of(new PetResponse())));
+        when(deviceService.listDevices(anyString())).thenReturn(UpstreamResult.success(List.of()));
+
+        service.getSnapshot(TOKEN, DashboardSection.PETS, DashboardSection.DEVICES);
+        service.getSnapshot(TOKEN, DashboardSection.PETS, DashboardSection.DEVICES);
+
+        verify(petService, times(1)).listPets(TOKEN);
+        verify(deviceService, times(2)).listDevices(TOKEN);
+    }
+
+    @Test
+    void trackReportsOnlyTheCallThatUsedTheLastKnownGoodValue() throws Exception {
+        lastKnownGood.remember("url", TOKEN, "valor");
+
+        LastKnownGoodCache.Tracked<String> recalled = LastKnownGoodCache.track(
+                () -> lastKnownGood.<String>recallIfPresent("url", TOKEN, "indisponível").orElseThrow());
+        LastKnownGoodCache.Tracked<String> live = LastKnownGoodCache.track(() -> "novo");
+
+        assertThat(recalled.stale()).isTrue();
+        assertThat(live.stale()).isFalse();
+    }
+}
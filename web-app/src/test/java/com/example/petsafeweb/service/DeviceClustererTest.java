@@ -0,0 +1,111 @@
+package com.example.petsafeweb.service;
+
+import com.example.petsafeweb.dto.DeviceResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceClustererTest {
+
+    private final DeviceClusterer clusterer = new DeviceClusterer();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(clusterer, "cellSizePx", 60);
+        ReflectionTestUtils.setField(clusterer, "clusterMaxZoom", 17);
+    }
+
+    @Test
+    void nearbyDevicesBecomeOneClusterWhenZoomedOut() {
+        List<DeviceResponse> devices = List.of(
+                device(1, -23.5500, -46.6300),
+                device(2, -23.5502, -46.6302));
+
+        List<Map<String, Object>> features = features(clusterer.toGeoJson(devices, 10));
+
+        assertThat(features).hasSize(1);
+        Map<String, Object> properties = properties(features.get(0));
+        assertThat(properties)
+                .containsEntry("cluster", true)
+                .containsEntry("count", 2)
+                .containsEntry("device_ids", List.of(1L, 2L))
+                .containsEntry("bounds", List.of(-46.6302, -23.5502, -46.6300, -23.5500));
+        assertThat(coordinates(features.get(0))).containsExactly(-46.6301, -23.5501);
+    }
+
+    @Test
+    void devicesAreShownIndividuallyFromTheClusterMaxZoom() {
+        List<DeviceResponse> devices = List.of(
+                device(1, -23.5500, -46.6300),
+                device(2, -23.5500, -46.6300));
+
+        List<Map<String, Object>> features = features(clusterer.toGeoJson(devices, 17));
+
+        assertThat(features).hasSize(2);
+        assertThat(features).allSatisfy(feature -> assertThat(properties(feature)).containsEntry("cluster", false));
+    }
+
+    @Test
+    void distantDevicesStaySeparate() {
+        List<DeviceResponse> devices = List.of(
+                device(1, -23.55, -46.63),
+                device(2, -22.90, -43.17));
+
+        List<Map<String, Object>> features = features(clusterer.toGeoJson(devices, 10));
+
+        assertThat(features).extracting(feature -> properties(feature).get("id")).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void devicesWithoutPositionAreOnlyCounted() {
+        List<DeviceResponse> devices = List.of(
+                device(1, -23.55, -46.63),
+                DeviceResponse.builder().id(2L).build());
+
+        Map<String, Object> geoJson = clusterer.toGeoJson(devices, 10);
+
+        assertThat(features(geoJson)).hasSize(1);
+        assertThat(collectionProperties(geoJson))
+                .containsEntry("device_count", 1)
+                .containsEntry("without_position", 1)
+                .containsEntry("bounds", List.of(-46.63, -23.55, -46.63, -23.55));
+    }
+
+    @Test
+    void noBoundsWhenNoDeviceHasAPosition() {
+        Map<String, Object> geoJson = clusterer.toGeoJson(List.of(DeviceResponse.builder().id(1L).build()), 10);
+
+        assertThat(features(geoJson)).isEmpty();
+        assertThat(collectionProperties(geoJson)).doesNotContainKey("bounds");
+    }
+
+    private static DeviceResponse device(long id, double latitude, double longitude) {
+        return DeviceResponse.builder().id(id).serialNumber("SN" + id)
+                .lastLatitude(latitude).lastLongitude(longitude).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> features(Map<String, Object> geoJson) {
+        return (List<Map<String, Object>>) geoJson.get("features");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> collectionProperties(Map<String, Object> geoJson) {
+        return (Map<String, Object>) geoJson.get("properties");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> properties(Map<String, Object> feature) {
+        return (Map<String, Object>) feature.get("properties");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Double> coordinates(Map<String, Object> feature) {
+        return (List<Double>) ((Map<String, Object>) feature.get("geometry")).get("coordinates");
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.petsafeweb.service;
+
+import com.example.petsafeweb.dto.GeofenceDataResponse;
+import com.example.petsafeweb.dto.GeofenceRequest;
+import com.example.petsafeweb.dto.GeofenceResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GeofenceServiceTest {
+
+    private static final String TOKEN = "token";
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private GeofenceService geofenceService;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        geofenceService = new GeofenceService(restTemplate, new ObjectMapper(), new RequestCoalescer(meterRegistry),
+                new LastKnownGoodCache(meterRegistry, 60, 100), mock(ApplicationEventPublisher.class),
+                meterRegistry, 300, 100);
+        ReflectionTestUtils.setField(geofenceService, "apiBaseUrl", "http://api");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void failedWriteWithoutClientErrorForcesReread() {
+        when(exchange(HttpMethod.GET)).thenReturn(ok(geofence("Casa")));
+        when(exchange(HttpMethod.PATCH)).thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+
+        geofenceService.getGeofence(TOKEN);
+        assertThatThrownBy(() -> geofenceService.updateGeofence(new GeofenceRequest(), TOKEN))
+                .isInstanceOf(RuntimeException.class);
+        geofenceService.getGeofence(TOKEN);
+
+        verify(restTemplate, times(2)).exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class),
+                eq(GeofenceDataResponse.class));
+    }
+
+    @Test
+    void readStartedBeforeAWriteDoesNotOverwriteIt() throws Exception {
+        CountDownLatch readStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(exchange(HttpMethod.GET)).thenAnswer(invocation -> {
+            readStarted.countDown();
+            release.await();
+            return ok(geofence("Antiga"));
+        });
+        when(exchange(HttpMethod.PATCH)).thenReturn(ok(geofence("Nova")));
+
+        Future<GeofenceResponse> read = executor.submit(() -> geofenceService.getGeofence(TOKEN));
+        assertThat(readStarted.await(2, TimeUnit.SECONDS)).isTrue();
+        geofenceService.updateGeofence(new GeofenceRequest(), TOKEN);
+        release.countDown();
+        read.get(2, TimeUnit.SECONDS);
+
+        assertThat(geofenceService.getGeofence(TOKEN).getName()).isEqualTo("Nova");
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class),
+                eq(GeofenceDataResponse.class));
+    }
+
+    private ResponseEntity<GeofenceDataResponse> exchange(HttpMethod method) {
+        return restTemplate.exchange(anyString(), eq(method), any(HttpEntity.class), eq(GeofenceDataResponse.class));
+    }
+
+    private static ResponseEntity<GeofenceDataResponse> ok(GeofenceResponse geofence) {
+        return ResponseEntity.ok(new GeofenceDataResponse(geofence));
+    }
+
+    private static GeofenceResponse geofence(String name) {
+        GeofenceResponse geofence = new GeofenceResponse();
+        geofence.setName(name);
+        return geofence;
+    }
+}
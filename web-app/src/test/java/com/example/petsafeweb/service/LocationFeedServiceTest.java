@@ -0,0 +1,53 @@
+package com.example.petsafeweb.service;
+
+import com.example.petsafeweb.dto.LocationResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LocationFeedServiceTest {
+
+    private static final String TOKEN = "token";
+
+    private final DeviceService deviceService = mock(DeviceService.class);
+    private LocationFeedService locationFeedService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        locationFeedService = new LocationFeedService(deviceService, mock(ObjectProvider.class),
+                Schedulers.immediate(), 600);
+        ReflectionTestUtils.setField(locationFeedService, "bufferSize", 100);
+        ReflectionTestUtils.setField(locationFeedService, "minRefreshMs", 60_000L);
+    }
+
+    @Test
+    void consecutiveCursorPollsShareOneUpstreamCall() throws Exception {
+        when(deviceService.listDeviceLocations(anyLong(), anyInt(), anyString()))
+                .thenReturn(UpstreamResult.success(List.of(location(3), location(2), location(1))));
+
+        List<LocationResponse> first = locationFeedService.listLocations(7L, 50, "1", TOKEN);
+        List<LocationResponse> second = locationFeedService.listLocations(7L, 50, "3", TOKEN);
+
+        assertThat(first).extracting(LocationResponse::getId).containsExactly(3L, 2L);
+        assertThat(second).isEmpty();
+        verify(deviceService, times(1)).listDeviceLocations(7L, 50, TOKEN);
+    }
+
+    private static LocationResponse location(long id) {
+        return LocationResponse.builder().id(id).build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.petsafeweb.service;
+
+import com.example.petsafeweb.dto.EncodedLocationsResponse;
+import com.example.petsafeweb.dto.LocationResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PolylineEncoderTest {
+
+    @Test
+    void coordinatesMatchTheGoogleReferenceExample() {
+        // Exemplo da documentação do Encoded Polyline Algorithm Format
+        EncodedLocationsResponse encoded = PolylineEncoder.encode(List.of(
+                point(1, 38.5, -120.2),
+                point(2, 40.7, -120.95),
+                point(3, 43.252, -126.453)));
+
+        assertThat(encoded.getEncoding()).isEqualTo(PolylineEncoder.ENCODING);
+        assertThat(encoded.getCount()).isEqualTo(3);
+        assertThat(encoded.getPolyline()).isEqualTo("_p~iF~ps|U_ulLnnqC_mqNvxq`@");
+    }
+
+    @Test
+    void signedValuesUseFiveBitChunks() {
+        StringBuilder out = new StringBuilder();
+        PolylineEncoder.encodeSigned(-17998321, out);
+        assertThat(out).hasToString("`~oia@");
+
+        out.setLength(0);
+        PolylineEncoder.encodeSigned(0, out);
+        assertThat(out).hasToString("?");
+    }
+
+    @Test
+    void idsTimesAndAccuracyAreDeltaEncoded() {
+        Instant base = Instant.ofEpochSecond(1_700_000_000L);
+        LocationResponse first = point(100, -23.55, -46.63);
+        first.setReceivedAt(base);
+        first.setAccuracy(5f);
+        LocationResponse second = point(101, -23.55, -46.63);
+        second.setReceivedAt(base.plusSeconds(30));
+        second.setAccuracy(5f);
+
+        EncodedLocationsResponse encoded = PolylineEncoder.encode(List.of(first, second));
+
+        assertThat(encoded.getIds()).isEqualTo(encodeAll(100, 1));
+        assertThat(encoded.getReceivedAt()).isEqualTo(encodeAll(1_700_000_000L, 30));
+        assertThat(encoded.getAccuracy()).isEqualTo(encodeAll(5, 0));
+        // Mesma posição: o segundo ponto custa um caractere por coordenada
+        assertThat(encoded.getPolyline()).endsWith("??");
+    }
+
+    @Test
+    void pointsWithoutCoordinatesAreSkipped() {
+        EncodedLocationsResponse encoded = PolylineEncoder.encode(List.of(
+                point(1, 38.5, -120.2),
+                LocationResponse.builder().id(2L).build()));
+
+        assertThat(encoded.getCount()).isEqualTo(1);
+        assertThat(encoded.getPolyline()).isEqualTo("_p~iF~ps|U");
+    }
+
+    private static String encodeAll(long... deltas) {
+        StringBuilder out = new StringBuilder();
+        for (long delta : deltas) {
+            PolylineEncoder.encodeSigned(delta, out);
+        }
+        return out.toString();
+    }
+
+    private static LocationResponse point(long id, double latitude, double longitude) {
+        return LocationResponse.builder().id(id).latitude(latitude).longitude(longitude).build();
+    }
+}
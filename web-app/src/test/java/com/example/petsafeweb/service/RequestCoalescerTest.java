@@ -0,0 +1,177 @@
+package com.example.petsafeweb.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestCoalescerTest {
+
+    private static final String URL = "http://api/api/v1/devices";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCoalescer coalescer = new RequestCoalescer(meterRegistry);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentIdenticalCallsShareASingleUpstreamCall() throws Exception {
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> coalescer.execute(URL, "token", this::blockingCall)));
+        awaitUpstreamCalls(1);
+        for (int i = 0; i < 5; i++) {
+            results.add(executor.submit(() -> coalescer.execute(URL, "token", this::blockingCall)));
+        }
+        awaitCoalesced(5);
+
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(2, TimeUnit.SECONDS)).isEqualTo("resposta 1");
+        }
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    void callsFromDifferentUsersAreNotCoalesced() throws Exception {
+        Future<String> first = executor.submit(() -> coalescer.execute(URL, "token-a", this::blockingCall));
+        awaitUpstreamCalls(1);
+
+        String second = coalescer.execute(URL, "token-b", () -> "resposta " + upstreamCalls.incrementAndGet());
+
+        assertThat(second).isEqualTo("resposta 2");
+        release.countDown();
+        assertThat(first.get(2, TimeUnit.SECONDS)).isEqualTo("resposta 1");
+    }
+
+    @Test
+    void followersReceiveTheLeadersFailure() throws Exception {
+        IOException failure = new IOException("API fora do ar");
+        Future<String> leader = executor.submit(() -> coalescer.execute(URL, "token", () -> {
+            upstreamCalls.incrementAndGet();
+            release.await();
+            throw failure;
+        }));
+        awaitUpstreamCalls(1);
+        Future<String> follower = executor.submit(() -> coalescer.execute(URL, "token", this::blockingCall));
+        awaitCoalesced(1);
+
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(2, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .cause().isSameAs(failure);
+        assertThatThrownBy(() -> follower.get(2, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .cause().isSameAs(failure);
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    void followersAreReleasedWhenTheLeaderThrowsAnError() throws Exception {
+        AssertionError failure = new AssertionError("falha inesperada");
+        Future<String> leader = executor.submit(() -> coalescer.execute(URL, "token", () -> {
+            upstreamCalls.incrementAndGet();
+            release.await();
+            throw failure;
+        }));
+        awaitUpstreamCalls(1);
+        Future<String> follower = executor.submit(() -> coalescer.execute(URL, "token", this::blockingCall));
+        awaitCoalesced(1);
+
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(2, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .cause().isSameAs(failure);
+        assertThatThrownBy(() -> follower.get(2, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .cause().isSameAs(failure);
+    }
+
+    @Test
+    void finishedCallIsNotReused() throws Exception {
+        release.countDown();
+
+        assertThat(coalescer.execute(URL, "token", this::blockingCall)).isEqualTo("resposta 1");
+        assertThat(coalescer.execute(URL, "token", this::blockingCall)).isEqualTo("resposta 2");
+    }
+
+    @Test
+    void concurrentReactiveSubscriptionsShareASingleUpstreamCall() throws InterruptedException {
+        Mono<String> call = coalescer.executeReactive(URL, "token",
+                () -> Mono.delay(Duration.ofMillis(100)).map(tick -> "resposta " + upstreamCalls.incrementAndGet()));
+
+        List<String> results = Mono.zip(call, call, call).map(tuple -> List.of(tuple.getT1(), tuple.getT2(),
+                tuple.getT3())).block(Duration.ofSeconds(2));
+
+        assertThat(results).containsOnly("resposta 1");
+        assertThat(upstreamCalls).hasValue(1);
+        // A chamada concluída sai do mapa logo depois de entregar o resultado; a próxima vai à API de novo
+        awaitCondition(() -> "resposta 2".equals(call.block(Duration.ofSeconds(2))));
+    }
+
+    @Test
+    void callInFlightWithThePreviousTokenServesTheRenewedToken() throws Exception {
+        Future<String> leader = executor.submit(() -> coalescer.execute(URL, "token-antigo", this::blockingCall));
+        awaitUpstreamCalls(1);
+
+        coalescer.onAccessTokenRefreshed(new AccessTokenRefreshedEvent("token-antigo", "token-novo"));
+        Future<String> follower = executor.submit(() -> coalescer.execute(URL, "token-novo", this::blockingCall));
+        awaitCoalesced(1);
+
+        release.countDown();
+
+        assertThat(leader.get(2, TimeUnit.SECONDS)).isEqualTo("resposta 1");
+        assertThat(follower.get(2, TimeUnit.SECONDS)).isEqualTo("resposta 1");
+        // O atalho sai do mapa junto com a chamada original
+        awaitCondition(() -> {
+            try {
+                return "resposta 2".equals(coalescer.execute(URL, "token-novo", this::blockingCall));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private String blockingCall() throws InterruptedException {
+        int call = upstreamCalls.incrementAndGet();
+        release.await();
+        return "resposta " + call;
+    }
+
+    private void awaitUpstreamCalls(int expected) throws InterruptedException {
+        awaitCondition(() -> upstreamCalls.get() >= expected);
+    }
+
+    private void awaitCoalesced(int expected) throws InterruptedException {
+        awaitCondition(() -> meterRegistry.counter("petsafe.upstream.coalesced").count() >= expected);
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condição não atingida a tempo").isLessThan(deadline);
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+}
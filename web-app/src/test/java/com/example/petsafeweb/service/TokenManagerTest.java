@@ -0,0 +1,58 @@
+package com.example.petsafeweb.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockHttpSession;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TokenManagerTest {
+
+    private static final String STATE_ATTRIBUTE = TokenManager.class.getName() + ".STATE";
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final TokenManager tokenManager = new TokenManager(mock(UpstreamClient.class), new ObjectMapper(),
+            mock(ApplicationEventPublisher.class), new SimpleMeterRegistry(), 60, 5, Duration.ofMinutes(30));
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentRequestsAdoptTheSessionOnce() throws Exception {
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute(TokenManager.ACCESS_TOKEN, "token");
+        session.setAttribute(TokenManager.REFRESH_TOKEN, "refresh");
+
+        List<Future<Object>> states = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            states.add(executor.submit(() -> {
+                assertThat(tokenManager.currentToken(session)).isEqualTo("token");
+                return session.getAttribute(STATE_ATTRIBUTE);
+            }));
+        }
+
+        List<Object> adopted = new ArrayList<>();
+        for (Future<Object> state : states) {
+            adopted.add(state.get(2, TimeUnit.SECONDS));
+        }
+
+        // Uma segunda adoção criaria outro estado e substituiria o atributo
+        Object state = session.getAttribute(STATE_ATTRIBUTE);
+        assertThat(state).isNotNull();
+        assertThat(adopted).allSatisfy(each -> assertThat(each).isSameAs(state));
+    }
+}
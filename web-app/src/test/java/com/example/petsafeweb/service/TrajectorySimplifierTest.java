@@ -0,0 +1,76 @@
+package com.example.petsafeweb.service;
+
+import com.example.petsafeweb.dto.LocationResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrajectorySimplifierTest {
+
+    // ~1 m em graus de latitude
+    private static final double METER = 1.0 / 111_320;
+
+    private final TrajectorySimplifier simplifier = new TrajectorySimplifier();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(simplifier, "pixelTolerance", 1.5);
+    }
+
+    @Test
+    void straightLineKeepsOnlyItsEndpoints() {
+        List<LocationResponse> line = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            line.add(point(i, -23.55 + i * 10 * METER, -46.63));
+        }
+
+        List<LocationResponse> simplified = simplifier.simplify(line, 18);
+
+        assertThat(simplified).extracting(LocationResponse::getId).containsExactly(0L, 499L);
+    }
+
+    @Test
+    void cornerIsKept() {
+        List<LocationResponse> path = List.of(
+                point(1, -23.55, -46.63),
+                point(2, -23.55 + 500 * METER, -46.63),
+                point(3, -23.55 + 1000 * METER, -46.63),
+                point(4, -23.55 + 1000 * METER, -46.63 + 1000 * METER),
+                point(5, -23.55 + 1000 * METER, -46.63 + 2000 * METER));
+
+        List<LocationResponse> simplified = simplifier.simplify(path, 15);
+
+        assertThat(simplified).extracting(LocationResponse::getId).containsExactly(1L, 3L, 5L);
+    }
+
+    @Test
+    void smallWigglesAreDroppedZoomedOutAndKeptZoomedIn() {
+        // Zigue-zague de 5 m: abaixo de 1 pixel no zoom 10 (~140 m/px), vários pixels no zoom 20 (~0,14 m/px)
+        List<LocationResponse> zigzag = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            zigzag.add(point(i, -23.55 + i * 20 * METER, -46.63 + (i % 2) * 5 * METER));
+        }
+
+        assertThat(simplifier.simplify(zigzag, 10)).hasSize(2);
+        assertThat(simplifier.simplify(zigzag, 20)).hasSize(50);
+    }
+
+    @Test
+    void pointsWithoutCoordinatesAreIgnoredAndOrderIsPreserved() {
+        List<LocationResponse> points = List.of(
+                point(1, -23.55, -46.63),
+                LocationResponse.builder().id(2L).build(),
+                point(3, -23.56, -46.64));
+
+        assertThat(simplifier.simplify(points, 12)).extracting(LocationResponse::getId).containsExactly(1L, 3L);
+    }
+
+    private static LocationResponse point(long id, double latitude, double longitude) {
+        return LocationResponse.builder().id(id).latitude(latitude).longitude(longitude).build();
+    }
+}
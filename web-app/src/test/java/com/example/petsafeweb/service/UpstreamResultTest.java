@@ -0,0 +1,90 @@
+package com.example.petsafeweb.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UpstreamResultTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void reasonIsClassifiedByStatus() {
+        assertThat(UpstreamResult.Reason.of(error(HttpStatus.UNAUTHORIZED, "")))
+                .isEqualTo(UpstreamResult.Reason.SESSION_EXPIRED);
+        assertThat(UpstreamResult.Reason.of(error(HttpStatus.NOT_FOUND, "")))
+                .isEqualTo(UpstreamResult.Reason.NOT_FOUND);
+        assertThat(UpstreamResult.Reason.of(error(HttpStatus.BAD_REQUEST, "")))
+                .isEqualTo(UpstreamResult.Reason.REJECTED);
+        assertThat(UpstreamResult.Reason.of(error(HttpStatus.SERVICE_UNAVAILABLE, "")))
+                .isEqualTo(UpstreamResult.Reason.UNAVAILABLE);
+        assertThat(UpstreamResult.Reason.of(UpstreamError.unreachable(new IOException("connection refused"))))
+                .isEqualTo(UpstreamResult.Reason.UNAVAILABLE);
+    }
+
+    @Test
+    void apiMessageReplacesTheFallbackOnlyWhenRequested() {
+        UpstreamError error = error(HttpStatus.BAD_REQUEST, "{\"message\":\"Nome obrigatório\"}");
+
+        assertThat(UpstreamResult.failureWithApiMessage(UpstreamResult.Reason.REJECTED, error, "Erro ao criar pet")
+                .message()).isEqualTo("Nome obrigatório");
+        assertThat(UpstreamResult.failure(UpstreamResult.Reason.REJECTED, error, "Erro ao criar pet")
+                .message()).isEqualTo("Erro ao criar pet");
+    }
+
+    @Test
+    void fallbackMessageIsUsedWhenTheApiSentNone() {
+        UpstreamError unavailable = error(HttpStatus.INTERNAL_SERVER_ERROR, "{\"message\":\"stack trace\"}");
+        UpstreamError emptyBody = error(HttpStatus.BAD_REQUEST, "");
+
+        assertThat(UpstreamResult.failureWithApiMessage(UpstreamResult.Reason.UNAVAILABLE, unavailable, "Tente de novo")
+                .message()).isEqualTo("Tente de novo");
+        assertThat(UpstreamResult.failureWithApiMessage(UpstreamResult.Reason.REJECTED, emptyBody, "Dados inválidos")
+                .message()).isEqualTo("Dados inválidos");
+    }
+
+    @Test
+    void failuresPassThroughMapAndFlatMap() {
+        UpstreamResult.Failure<String> failure = UpstreamResult.failure(UpstreamResult.Reason.NOT_FOUND,
+                error(HttpStatus.NOT_FOUND, ""), "Dispositivo não encontrado");
+
+        UpstreamResult<Integer> mapped = failure.map(String::length);
+        UpstreamResult<Integer> flatMapped = failure.flatMap(value -> UpstreamResult.success(value.length()));
+
+        assertThat(mapped).isSameAs(failure);
+        assertThat(flatMapped).isSameAs(failure);
+        assertThat(mapped.orElse(-1)).isEqualTo(-1);
+        assertThat(UpstreamResult.success("abc").map(String::length).orElse(-1)).isEqualTo(3);
+    }
+
+    @Test
+    void orElseThrowCarriesTheFailureAndFromExceptionRecoversIt() {
+        UpstreamResult.Failure<String> failure = UpstreamResult.failure(UpstreamResult.Reason.SESSION_EXPIRED,
+                error(HttpStatus.UNAUTHORIZED, ""), "Sessão expirada");
+
+        assertThatThrownBy(failure::orElseThrow)
+                .isInstanceOfSatisfying(UpstreamFailureException.class, e -> {
+                    assertThat(e.getFailure()).isSameAs(failure);
+                    assertThat(e.getStackTrace()).isEmpty();
+                    assertThat(UpstreamResult.fromException(e)).isSameAs(failure);
+                });
+    }
+
+    @Test
+    void otherExceptionsBecomeUnavailable() {
+        UpstreamResult.Failure<Object> failure = UpstreamResult.fromException(new IOException("timeout"));
+
+        assertThat(failure.reason()).isEqualTo(UpstreamResult.Reason.UNAVAILABLE);
+        assertThat(failure.message()).isEqualTo("timeout");
+    }
+
+    private UpstreamError error(HttpStatus status, String body) {
+        return UpstreamError.response(status, body.getBytes(StandardCharsets.UTF_8), objectMapper);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.petsafeweb.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UpstreamTaskScopeTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void forksRunInParallelWithinTheDeadline() throws Exception {
+        long start = System.nanoTime();
+        try (UpstreamTaskScope scope = new UpstreamTaskScope(executor, 5_000)) {
+            UpstreamTaskScope.Subtask<String> first = scope.fork(() -> sleepAndReturn("a"));
+            UpstreamTaskScope.Subtask<String> second = scope.fork(() -> sleepAndReturn("b"));
+            scope.join();
+
+            assertThat(first.get()).isEqualTo("a");
+            assertThat(second.get()).isEqualTo("b");
+        }
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(390));
+    }
+
+    @Test
+    void subtaskPastTheDeadlineFailsWithTimeoutWhileOthersSucceed() throws Exception {
+        long start = System.nanoTime();
+        try (UpstreamTaskScope scope = new UpstreamTaskScope(executor, 150)) {
+            UpstreamTaskScope.Subtask<String> fast = scope.fork(() -> "ok");
+            UpstreamTaskScope.Subtask<String> slow = scope.fork(() -> {
+                release.await();
+                return "late";
+            });
+            scope.join();
+
+            assertThat(fast.get()).isEqualTo("ok");
+            assertThatThrownBy(slow::get).isInstanceOf(TimeoutException.class);
+        }
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void originalExceptionOfAFailedForkIsRethrown() throws Exception {
+        IllegalArgumentException failure = new IllegalArgumentException("ID inválido");
+        try (UpstreamTaskScope scope = new UpstreamTaskScope(executor, 1_000)) {
+            UpstreamTaskScope.Subtask<String> subtask = scope.fork(() -> {
+                throw failure;
+            });
+            scope.join();
+
+            assertThatThrownBy(subtask::get).isSameAs(failure);
+        }
+    }
+
+    @Test
+    void reactiveForkIsCancelledAtTheDeadline() throws Exception {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        try (UpstreamTaskScope scope = new UpstreamTaskScope(executor, 100)) {
+            UpstreamTaskScope.Subtask<String> subtask = scope.fork(
+                    Mono.<String>never().doOnCancel(() -> cancelled.set(true)));
+            scope.join();
+
+            assertThatThrownBy(subtask::get).isInstanceOf(TimeoutException.class);
+        }
+        assertThat(cancelled).isTrue();
+    }
+
+    @Test
+    void closeWithoutJoinCancelsReactiveForks() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        try (UpstreamTaskScope scope = new UpstreamTaskScope(executor, 10_000)) {
+            scope.fork(Mono.<String>never().doOnCancel(() -> cancelled.set(true)));
+        }
+        assertThat(cancelled).isTrue();
+    }
+
+    @Test
+    void resultsAreOnlyAvailableAfterJoinAndForksOnlyBefore() throws Exception {
+        try (UpstreamTaskScope scope = new UpstreamTaskScope(executor, 1_000)) {
+            UpstreamTaskScope.Subtask<String> subtask = scope.fork(() -> "ok");
+            assertThatThrownBy(subtask::get).isInstanceOf(IllegalStateException.class);
+
+            scope.join();
+
+            assertThatThrownBy(() -> scope.fork(() -> "tarde")).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    private static String sleepAndReturn(String value) throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(200);
+        return value;
+    }
+}